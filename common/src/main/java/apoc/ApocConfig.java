@@ -68,6 +68,7 @@ public class ApocConfig extends LifecycleAdapter {
     public static final String APOC_EXPORT_FILE_ENABLED = "apoc.export.file.enabled";
     public static final String APOC_IMPORT_FILE_USE_NEO4J_CONFIG = "apoc.import.file.use_neo4j_config";
     public static final String APOC_TRIGGER_ENABLED = "apoc.trigger.enabled";
+    public static final String APOC_META_CACHE_ENABLED = "apoc.meta.cache.enabled";
     public static final String APOC_IMPORT_FILE_ALLOW__READ__FROM__FILESYSTEM = "apoc.import.file.allow_read_from_filesystem";
     public static final String APOC_CONFIG_JOBS_SCHEDULED_NUM_THREADS = "apoc.jobs.scheduled.num_threads";
     public static final String APOC_CONFIG_JOBS_POOL_NUM_THREADS = "apoc.jobs.pool.num_threads";
@@ -82,7 +83,8 @@ public class ApocConfig extends LifecycleAdapter {
                     APOC_EXPORT_FILE_ENABLED, false,
                     APOC_IMPORT_FILE_ENABLED, false,
                     APOC_IMPORT_FILE_USE_NEO4J_CONFIG, true,
-                    APOC_TRIGGER_ENABLED, false
+                    APOC_TRIGGER_ENABLED, false,
+                    APOC_META_CACHE_ENABLED, false
             );
 
     private static final List<Setting> NEO4J_DIRECTORY_CONFIGURATION_SETTING_NAMES = new ArrayList<>(Arrays.asList(
@@ -39,6 +39,7 @@ import java.util.concurrent.Future;
 import java.util.concurrent.FutureTask;
 import java.util.concurrent.RejectedExecutionHandler;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -56,6 +57,7 @@ public class Pools extends LifecycleAdapter {
     private ExecutorService singleExecutorService;
     private ScheduledExecutorService scheduledExecutorService;
     private ExecutorService defaultExecutorService;
+    private ScheduledThreadPoolExecutor timerExecutorService;
 
     private final Map<PeriodicUtils.JobInfo,Future> jobList = new ConcurrentHashMap<>();
 
@@ -93,6 +95,10 @@ public class Pools extends LifecycleAdapter {
                 threadFactory
         );
 
+        // a single thread for short actions at a given time, like terminating a transaction, that long jobs can't delay
+        this.timerExecutorService = new ScheduledThreadPoolExecutor(1, threadFactory);
+        timerExecutorService.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+
         scheduledExecutorService.scheduleAtFixedRate(() -> {
             for (Iterator<Map.Entry<PeriodicUtils.JobInfo, Future>> it = jobList.entrySet().iterator(); it.hasNext(); ) {
                 Map.Entry<PeriodicUtils.JobInfo, Future> entry = it.next();
@@ -103,7 +109,7 @@ public class Pools extends LifecycleAdapter {
 
     @Override
     public void shutdown() {
-        Stream.of(singleExecutorService, defaultExecutorService, scheduledExecutorService).forEach( service -> {
+        Stream.of(singleExecutorService, defaultExecutorService, scheduledExecutorService, timerExecutorService).forEach( service -> {
             try {
                 service.shutdown();
                 service.awaitTermination(10, TimeUnit.SECONDS);
@@ -125,6 +131,10 @@ public class Pools extends LifecycleAdapter {
         return defaultExecutorService;
     }
 
+    public ScheduledExecutorService getTimerExecutorService() {
+        return timerExecutorService;
+    }
+
     public Map<PeriodicUtils.JobInfo, Future> getJobList() {
         return jobList;
     }
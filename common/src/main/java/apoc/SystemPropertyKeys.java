@@ -30,4 +30,9 @@ public enum SystemPropertyKeys  {
     selector,
     params,
     paused,
+
+    // periodic iterate checkpoints
+    offset,
+    key,
+    done,
 }
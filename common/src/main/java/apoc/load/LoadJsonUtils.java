@@ -31,10 +31,27 @@ import org.neo4j.procedure.TerminationGuard;
 
 public class LoadJsonUtils {
     public static Stream<MapResult> loadJsonStream(@Name("urlOrKeyOrBinary") Object urlOrKeyOrBinary, @Name("headers") Map<String, Object> headers, @Name("payload") String payload, String path, boolean failOnError, String compressionAlgo, List<String> pathOptions, TerminationGuard terminationGuard) {
+        return loadJsonStream(urlOrKeyOrBinary, headers, payload, path, failOnError, compressionAlgo, pathOptions, terminationGuard, false);
+    }
+
+    /**
+     * @param streamArray if true, the elements of the array selected by the path are read one at a time,
+     *                    each map as a row and any other value as a `result` row
+     */
+    public static Stream<MapResult> loadJsonStream(@Name("urlOrKeyOrBinary") Object urlOrKeyOrBinary, @Name("headers") Map<String, Object> headers, @Name("payload") String payload, String path, boolean failOnError, String compressionAlgo, List<String> pathOptions, TerminationGuard terminationGuard, boolean streamArray) {
         if (urlOrKeyOrBinary instanceof String) {
             headers = null != headers ? headers : new HashMap<>();
             headers.putAll(Util.extractCredentialsIfNeeded((String) urlOrKeyOrBinary, failOnError));
         }
+        if (streamArray) {
+            return JsonUtil.streamJsonArray(urlOrKeyOrBinary, headers, payload, path, failOnError, compressionAlgo)
+                    .map((value) -> {
+                        if (terminationGuard != null) {
+                            terminationGuard.check();
+                        }
+                        return toMapResult(value);
+                    });
+        }
         Stream<Object> stream = JsonUtil.loadJson(urlOrKeyOrBinary,headers,payload, path, failOnError, compressionAlgo, pathOptions);
         return stream.flatMap((value) -> {
             if (terminationGuard != null) {
@@ -60,4 +77,9 @@ public class LoadJsonUtils {
                 return Stream.of(new MapResult(Collections.emptyMap()));
         });
     }
+
+    @SuppressWarnings("unchecked")
+    private static MapResult toMapResult(Object value) {
+        return value instanceof Map ? new MapResult((Map<String, Object>) value) : new MapResult(Collections.singletonMap("result", value));
+    }
 }
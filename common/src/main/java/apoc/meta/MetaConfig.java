@@ -32,6 +32,7 @@ public class MetaConfig {
     private final Set<String> excludeLabels;
     private final Set<String> excludeRels;
     private final boolean addRelationshipsBetweenNodes;
+    private final boolean refresh;
 
     private final SampleMetaConfig sampleMetaConfig;
 
@@ -51,6 +52,8 @@ public class MetaConfig {
      * every 1000th node will be examined.  It does **not** mean that a total of 1000 nodes
      * will be sampled.
      * - maxRels: the maximum number of relationships to look at per Node Label.
+     * - refresh: when the meta profile cache is enabled, rescan the graph instead of answering from the cache.
+     * The cache only answers the calls with sample and maxRels set to -1.
      */
     public MetaConfig(Map<String,Object> config, Boolean shouldSampleByDefault) {
         config = config != null ? config : Collections.emptyMap();
@@ -79,6 +82,7 @@ public class MetaConfig {
         this.excludeRels = new HashSet<>((Collection<String>)config.getOrDefault("excludeRels",Collections.EMPTY_SET));
         this.sampleMetaConfig = new SampleMetaConfig(config, shouldSampleByDefault);
         this.addRelationshipsBetweenNodes = Util.toBoolean(config.getOrDefault("addRelationshipsBetweenNodes", true));
+        this.refresh = Util.toBoolean(config.getOrDefault("refresh", false));
     }
 
     public MetaConfig(Map<String,Object> config) {
@@ -162,4 +166,8 @@ public class MetaConfig {
     public boolean isAddRelationshipsBetweenNodes() {
         return addRelationshipsBetweenNodes;
     }
+
+    public boolean isRefresh() {
+        return refresh;
+    }
 }
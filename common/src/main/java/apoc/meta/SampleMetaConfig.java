@@ -18,24 +18,29 @@
  */
 package apoc.meta;
 
+import apoc.util.Util;
+
 import java.util.Collections;
 import java.util.Map;
 
 public class SampleMetaConfig {
     private final long maxRels;
     private final long sample;
+    private final boolean parallel;
 
 
     /**
      * - sample: a long, i.e. "1 in (SAMPLE)".  If set to 1000 this means that every 1000th node will be examined.
      * It does **not** mean that a total of 1000 nodes will be sampled.
      * - maxRels: the maximum number of relationships to look at per Node Label.
+     * - parallel: when the whole database is examined, profile each label in its own worker transaction.
      */
     public SampleMetaConfig(Map<String,Object> config, Boolean shouldSampleByDefault) {
         config = config != null ? config : Collections.emptyMap();
 
         this.sample = (long) config.getOrDefault("sample", shouldSampleByDefault ? 1000L : 1L);
         this.maxRels = (long) config.getOrDefault("maxRels", shouldSampleByDefault ? 100L : -1L);
+        this.parallel = Util.toBoolean(config.getOrDefault("parallel", false));
     }
 
     public SampleMetaConfig(Map<String,Object> config) {
@@ -49,4 +54,8 @@ public class SampleMetaConfig {
         return maxRels;
     }
 
+    public boolean isParallel() {
+        return parallel;
+    }
+
 }
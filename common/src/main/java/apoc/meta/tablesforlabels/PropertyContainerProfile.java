@@ -61,6 +61,15 @@ public class PropertyContainerProfile {
         }
     }
 
+    /**
+     * Adds observations of a property that have already been counted, e.g. by the meta profile cache
+     */
+    public void addObservations(String propName, String type, long count) {
+        PropertyTracker tracker = profile.computeIfAbsent(propName, k -> new PropertyTracker());
+        tracker.observations += count;
+        tracker.types.add(type);
+    }
+
     public PropertyContainerProfile finished() {
         PropertyTracker tracker;
 
@@ -36,10 +36,10 @@ public class PropertyTracker {
     public void addObservation(Object value) {
         observations++;
         if (value == null) { nulls++; }
-        types.add(assignTypeName(value));
+        types.add(typeName(value));
     }
 
-    private String assignTypeName(Object value) {
+    public static String typeName(Object value) {
         String typeName = value.getClass().getCanonicalName();
         if (typeMappings.containsKey(typeName)) {
             return typeMappings.get(typeName);
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.periodic;
+
+import apoc.util.Util;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The size of the next batch of a periodic iteration.
+ * When adaptive, it is tuned from the commit latency of the completed batches:
+ * halved when a batch had to be retried or failed, i.e. because of deadlocks,
+ * scaled down when slower than the target latency and grown by a quarter when well below it
+ */
+public class AdaptiveBatchSize {
+
+    private final boolean adaptive;
+    private final int min;
+    private final int max;
+    private final long targetNanos;
+    private volatile int current;
+
+    private AdaptiveBatchSize(int batchSize, boolean adaptive, int min, int max, long targetMillis) {
+        this.current = batchSize;
+        this.adaptive = adaptive;
+        this.min = min;
+        this.max = max;
+        this.targetNanos = TimeUnit.MILLISECONDS.toNanos(targetMillis);
+    }
+
+    public static AdaptiveBatchSize fixed(int batchSize) {
+        return new AdaptiveBatchSize(batchSize, false, batchSize, batchSize, 0);
+    }
+
+    public static AdaptiveBatchSize fromConfig(Map<String, Object> config, int batchSize) {
+        if (!Util.toBoolean(config.get("adaptive"))) {
+            return fixed(batchSize);
+        }
+        int min = Util.toInteger(config.getOrDefault("minBatchSize", 1));
+        int max = Util.toInteger(config.getOrDefault("maxBatchSize", (int) Math.min(Integer.MAX_VALUE, batchSize * 10L)));
+        long targetMillis = Util.toLong(config.getOrDefault("targetBatchLatency", 1000));
+        if (min < 1 || max < min) {
+            throw new IllegalArgumentException("minBatchSize must be > 0 and not greater than maxBatchSize");
+        }
+        if (targetMillis < 1) {
+            throw new IllegalArgumentException("targetBatchLatency parameter must be > 0");
+        }
+        return new AdaptiveBatchSize(Math.max(min, Math.min(max, batchSize)), true, min, max, targetMillis);
+    }
+
+    public int get() {
+        return current;
+    }
+
+    void completed(int size, long nanos, boolean contended) {
+        if (!adaptive) return;
+        synchronized (this) {
+            if (contended) {
+                current = Math.max(min, current / 2);
+            } else if (size >= current / 2) {
+                // a short batch, like the last one, tells little about the current size
+                if (nanos > targetNanos) {
+                    current = Math.max(min, (int) (current * ((double) targetNanos / nanos)));
+                } else if (nanos < targetNanos / 2) {
+                    current = (int) Math.min(max, current + Math.max(1L, current / 4));
+                }
+            }
+        }
+    }
+}
@@ -35,13 +35,13 @@ public class BatchAndTotalCollector {
     private final int failedParams;
     private long start = System.nanoTime();
     private AtomicLong batches = new AtomicLong();
-    private long successes = 0;
+    private AtomicLong successes = new AtomicLong();
     private AtomicLong count = new AtomicLong();
     private AtomicLong failedOps = new AtomicLong();
     private AtomicLong retried = new AtomicLong();
     private Map<String, Long> operationErrors = new ConcurrentHashMap<>();
     private AtomicInteger failedBatches = new AtomicInteger();
-    private Map<String, Long> batchErrors = new HashMap<>();
+    private Map<String, Long> batchErrors = new ConcurrentHashMap<>();
     private Map<String, List<Map<String, Object>>> failedParamsMap = new ConcurrentHashMap<>();
     private final boolean wasTerminated;
 
@@ -69,7 +69,7 @@ public class BatchAndTotalCollector {
         updateStatistics.put("labelsAdded", labelsAdded.get());
         updateStatistics.put("labelsRemoved", labelsRemoved.get());
 
-        return new BatchAndTotalResult(batches.get(), count.get(), timeTaken, successes, failedOps.get(),
+        return new BatchAndTotalResult(batches.get(), count.get(), timeTaken, successes.get(), failedOps.get(),
                 failedBatches.get(), retried.get(), operationErrors, batchErrors, wasTerminated,
                 failedParamsMap, updateStatistics);
     }
@@ -87,7 +87,7 @@ public class BatchAndTotalCollector {
     }
 
     public void incrementSuccesses(long increment) {
-        successes += increment;
+        successes.addAndGet(increment);
     }
 
     public void incrementCount(long currentBatchSize) {
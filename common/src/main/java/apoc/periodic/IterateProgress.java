@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.periodic;
+
+import org.neo4j.graphdb.Entity;
+import org.neo4j.values.storable.Values;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Tracks the position of a periodic iteration up to which all the rows have been committed,
+ * that is the first row of the oldest batch not committed yet, together with the value
+ * of the key column in the row before it.
+ * The position is saved by the `saver` at most once per `interval` and when the iteration ends.
+ */
+public class IterateProgress {
+
+    public interface Saver {
+        void save(long offset, Object key, boolean done);
+    }
+
+    private final String keyColumn;
+    private final long base;
+    private final Saver saver;
+    private final long intervalMillis;
+
+    // the first row of the batches not committed yet, with the key of the row before it
+    private final TreeMap<Long, Object> open = new TreeMap<>();
+    private long position;
+    private Object lastKey;
+    private Object previousKey;
+    private long lastSaved = System.currentTimeMillis();
+
+    /**
+     * @param base the position reached by the previous runs, whose rows the iteration statement skips itself
+     */
+    public IterateProgress(String keyColumn, long base, Object key, Saver saver, long intervalMillis) {
+        this.keyColumn = keyColumn;
+        this.base = base;
+        this.lastKey = key;
+        this.saver = saver;
+        this.intervalMillis = intervalMillis;
+    }
+
+    public Iterator<Map<String, Object>> track(Iterator<Map<String, Object>> iterator) {
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public Map<String, Object> next() {
+                Map<String, Object> row = iterator.next();
+                synchronized (IterateProgress.this) {
+                    position++;
+                    if (keyColumn != null) {
+                        previousKey = lastKey;
+                        lastKey = checkKey(row.get(keyColumn));
+                    }
+                }
+                return row;
+            }
+        };
+    }
+
+    /**
+     * Fails on the first row whose key can't be saved, before its batch runs, rather than when the progress is saved
+     */
+    private Object checkKey(Object key) {
+        if (key == null) {
+            throw new IllegalArgumentException(String.format("The checkpointKey `%s` is null, the rows can't be resumed from it", keyColumn));
+        }
+        if (key instanceof Entity) {
+            throw new IllegalArgumentException(String.format("The checkpointKey `%s` is a node or relationship, which can't be ordered to resume from, return one of its properties instead", keyColumn));
+        }
+        try {
+            Values.of(key, false);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(String.format("The checkpointKey `%s` can't be saved, its value %s is not a property value", keyColumn, key));
+        }
+        return key;
+    }
+
+    /**
+     * Opens a batch starting with the next row read
+     */
+    synchronized long openNext() {
+        open.put(position, lastKey);
+        return position;
+    }
+
+    /**
+     * Opens a batch starting with the last row read
+     */
+    synchronized long openLast() {
+        open.put(position - 1, previousKey);
+        return position - 1;
+    }
+
+    synchronized void committed(long offset) {
+        open.remove(offset);
+    }
+
+    void saveIfDue() {
+        if (System.currentTimeMillis() - lastSaved >= intervalMillis) {
+            save(false);
+        }
+    }
+
+    void save(boolean done) {
+        long offset;
+        Object key;
+        synchronized (this) {
+            if (open.isEmpty()) {
+                offset = position;
+                key = lastKey;
+            } else {
+                Map.Entry<Long, Object> first = open.firstEntry();
+                offset = first.getKey();
+                key = first.getValue();
+            }
+        }
+        saver.save(base + offset, key, done && offset == position);
+        lastSaved = System.currentTimeMillis();
+    }
+}
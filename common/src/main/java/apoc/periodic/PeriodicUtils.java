@@ -22,25 +22,31 @@ import apoc.Pools;
 import apoc.util.Util;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.apache.commons.lang3.tuple.Pair;
+import org.neo4j.graphdb.Entity;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.QueryStatistics;
+import org.neo4j.graphdb.TransientFailureException;
 import org.neo4j.graphdb.Transaction;
 import org.neo4j.logging.Log;
 import org.neo4j.procedure.TerminationGuard;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.locks.LockSupport;
 import java.util.function.BiFunction;
 import java.util.function.Function;
-import java.util.function.ToLongFunction;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -207,55 +213,70 @@ public class PeriodicUtils {
             int batchsize, boolean parallel, boolean iterateList, long retries,
             Iterator<Map<String, Object>> iterator, BiFunction<Transaction, Map<String, Object>, QueryStatistics> consumer,
             int concurrency, int failedParams, String periodicId) {
+        return iterateAndExecuteBatchedInSeparateThread(db, terminationGuard, log, pools,
+                AdaptiveBatchSize.fixed(batchsize), parallel, iterateList, retries, iterator, consumer,
+                concurrency, failedParams, periodicId, null);
+    }
+
+    /**
+     * Takes the batches from the iterator in the calling thread and commits them in the pool.
+     * At most `concurrency` batches (one if not parallel) are in flight, the next batch is taken
+     * from the iterator while they commit, and the caller blocks until one of them completes.
+     */
+    public static Stream<BatchAndTotalResult> iterateAndExecuteBatchedInSeparateThread(
+            GraphDatabaseService db, TerminationGuard terminationGuard, Log log, Pools pools,
+            AdaptiveBatchSize batchSize, boolean parallel, boolean iterateList, long retries,
+            Iterator<Map<String, Object>> iterator, BiFunction<Transaction, Map<String, Object>, QueryStatistics> consumer,
+            int concurrency, int failedParams, String periodicId, IterateProgress progress) {
 
         ExecutorService pool = parallel ? pools.getDefaultExecutorService() : pools.getSingleExecutorService();
-        List<Future<Long>> futures = new ArrayList<>(concurrency);
         BatchAndTotalCollector collector = new BatchAndTotalCollector(terminationGuard, failedParams);
-        AtomicInteger activeFutures = new AtomicInteger(0);
+        int window = parallel ? concurrency : 1;
+        Semaphore permits = new Semaphore(window);
+        // only the batches not completed yet, so that a termination can cancel them
+        Map<Long, BatchTask> inFlight = new ConcurrentHashMap<>(window);
+        long batchNo = 0;
 
         do {
             if (Util.transactionIsTerminated(terminationGuard)) break;
 
-            if (activeFutures.get() < concurrency || !parallel) {
-                // we have capacity, add a new Future to the list
-                activeFutures.incrementAndGet();
-
-                if (log.isDebugEnabled()) log.debug("Execute, in periodic iteration with id %s, no %d batch size ", periodicId, batchsize);
-                List<Map<String,Object>> batch = Util.take(iterator, batchsize);
-                final long currentBatchSize = batch.size();
-                ExecuteBatch executeBatch =
-                        iterateList ?
-                                new ListExecuteBatch(terminationGuard, collector, batch, consumer) :
-                                new OneByOneExecuteBatch(terminationGuard, collector, batch, consumer);
-
-                futures.add(Util.inTxFuture(log,
-                        pool,
-                        db,
-                        executeBatch,
-                        retries,
-                        retryCount -> collector.incrementRetried(),
-                        onComplete -> {
-                            collector.incrementBatches();
-                            executeBatch.release();
-                            activeFutures.decrementAndGet();
-                        }));
-                collector.incrementCount(currentBatchSize);
-                if (log.isDebugEnabled()) {
-                    log.debug("Processed in periodic iteration with id %s, %d iterations of %d total", periodicId, batchsize, collector.getCount());
-                }
-            } else {
-                // we can't block until the counter decrease as we might miss a cancellation, so
-                // let this thread be preempted for a bit before we check for cancellation or
-                // capacity.
-                LockSupport.parkNanos(1000);
+            if (log.isDebugEnabled()) log.debug("Execute, in periodic iteration with id %s, no %d batch size ", periodicId, batchSize.get());
+            if (progress != null) progress.saveIfDue();
+            final Runnable onCommitted = committed(progress, progress == null ? 0 : progress.openNext());
+            List<Map<String,Object>> batch = Util.take(iterator, batchSize.get());
+            if (!acquire(permits, 1, terminationGuard)) break;
+
+            final int currentBatchSize = batch.size();
+            final long id = batchNo++;
+            final Runnable execution = batchExecution(db, log, terminationGuard, collector, batchSize, iterateList, retries, batch, consumer, onCommitted);
+            BatchTask task = new BatchTask(execution, () -> {
+                inFlight.remove(id);
+                permits.release();
+            });
+            inFlight.put(id, task);
+            try {
+                pool.execute(task);
+            } catch (Exception e) {
+                inFlight.remove(id);
+                permits.release();
+                throw new RuntimeException("Error executing in separate transaction", e);
+            }
+            collector.incrementCount(currentBatchSize);
+            if (log.isDebugEnabled()) {
+                log.debug("Processed in periodic iteration with id %s, %d iterations of %d total", periodicId, currentBatchSize, collector.getCount());
             }
         } while (iterator.hasNext());
 
-        boolean wasTerminated = Util.transactionIsTerminated(terminationGuard);
-        ToLongFunction<Future<Long>> toLongFunction = wasTerminated ?
-                f -> Util.getFutureOrCancel(f, collector.getBatchErrors(), collector.getFailedBatches(), 0L) :
-                f -> Util.getFuture(f, collector.getBatchErrors(), collector.getFailedBatches(), 0L);
-        collector.incrementSuccesses(futures.stream().mapToLong(toLongFunction).sum());
+        // all the permits are back once the batches in flight are completed
+        boolean wasTerminated = Util.transactionIsTerminated(terminationGuard) || !acquire(permits, window, terminationGuard);
+        if (wasTerminated) {
+            // the batches not started yet are failed, the running ones are waited for, as they may still commit
+            inFlight.values().forEach(task -> {
+                if (task.cancel()) collector.getFailedBatches().incrementAndGet();
+            });
+            permits.acquireUninterruptibly(window);
+        }
+        if (progress != null) progress.save(!wasTerminated && !iterator.hasNext());
 
         Util.logErrors("Error during iterate.commit:", collector.getBatchErrors(), log);
         Util.logErrors("Error during iterate.execute:", collector.getOperationErrors(), log);
@@ -265,6 +286,220 @@ public class PeriodicUtils {
         return Stream.of(collector.getResult());
     }
 
+    /**
+     * A batch submitted to the pool, which runs it unless it is cancelled before it starts.
+     * The completion runs once, either after the batch or on its cancellation
+     */
+    private static class BatchTask implements Runnable {
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private final Runnable batch;
+        private final Runnable completion;
+
+        BatchTask(Runnable batch, Runnable completion) {
+            this.batch = batch;
+            this.completion = completion;
+        }
+
+        @Override
+        public void run() {
+            if (!claimed.compareAndSet(false, true)) return;
+            try {
+                batch.run();
+            } finally {
+                completion.run();
+            }
+        }
+
+        boolean cancel() {
+            if (!claimed.compareAndSet(false, true)) return false;
+            completion.run();
+            return true;
+        }
+    }
+
+    /**
+     * Like {@link #iterateAndExecuteBatchedInSeparateThread}, but the rows are partitioned by the value of `partitionKey`:
+     * rows with the same key, or keys in the same hash bucket, end up in batches of the same partition,
+     * and the batches of a partition are committed one after the other, so that they don't conflict on the key locks
+     */
+    public static Stream<BatchAndTotalResult> iterateAndExecutePartitionedInSeparateThreads(
+            GraphDatabaseService db, TerminationGuard terminationGuard, Log log, Pools pools,
+            AdaptiveBatchSize batchSize, boolean iterateList, long retries,
+            Iterator<Map<String, Object>> iterator, BiFunction<Transaction, Map<String, Object>, QueryStatistics> consumer,
+            int concurrency, int failedParams, String periodicId, String partitionKey, IterateProgress progress) {
+
+        ExecutorService pool = pools.getDefaultExecutorService();
+        BatchAndTotalCollector collector = new BatchAndTotalCollector(terminationGuard, failedParams);
+        // the batches waiting in the partitions or committing
+        int window = concurrency * 2;
+        Semaphore permits = new Semaphore(window);
+        Partition[] partitions = new Partition[concurrency];
+        List<List<Map<String, Object>>> pending = new ArrayList<>(concurrency);
+        Runnable[] onCommitted = new Runnable[concurrency];
+        for (int i = 0; i < concurrency; i++) {
+            partitions[i] = new Partition();
+            pending.add(new ArrayList<>());
+        }
+        boolean wasTerminated = false;
+
+        while (iterator.hasNext()) {
+            if (Util.transactionIsTerminated(terminationGuard)) {
+                wasTerminated = true;
+                break;
+            }
+            if (progress != null) progress.saveIfDue();
+            Map<String, Object> row = iterator.next();
+            int partition = partition(row.get(partitionKey), concurrency);
+            if (pending.get(partition).isEmpty()) {
+                onCommitted[partition] = committed(progress, progress == null ? 0 : progress.openLast());
+            }
+            pending.get(partition).add(row);
+            if (pending.get(partition).size() >= batchSize.get()) {
+                if (!acquire(permits, 1, terminationGuard)) {
+                    wasTerminated = true;
+                    break;
+                }
+                List<Map<String, Object>> batch = pending.set(partition, new ArrayList<>());
+                partitions[partition].submit(pool, permits, batchExecution(db, log, terminationGuard, collector, batchSize, iterateList, retries, batch, consumer, onCommitted[partition]));
+                collector.incrementCount(batch.size());
+            }
+        }
+        for (int i = 0; i < concurrency && !wasTerminated; i++) {
+            List<Map<String, Object>> batch = pending.get(i);
+            if (batch.isEmpty()) continue;
+            if (!acquire(permits, 1, terminationGuard)) {
+                wasTerminated = true;
+                break;
+            }
+            partitions[i].submit(pool, permits, batchExecution(db, log, terminationGuard, collector, batchSize, iterateList, retries, batch, consumer, onCommitted[i]));
+            collector.incrementCount(batch.size());
+        }
+
+        wasTerminated = wasTerminated || !acquire(permits, window, terminationGuard);
+        if (wasTerminated) {
+            // as in iterateAndExecuteBatchedInSeparateThread, the batches still queued are failed and the running ones waited for
+            for (Partition partition : partitions) {
+                collector.getFailedBatches().addAndGet(partition.cancel(permits));
+            }
+            permits.acquireUninterruptibly(window);
+        }
+        if (progress != null) progress.save(!wasTerminated && !iterator.hasNext());
+
+        Util.logErrors("Error during iterate.commit:", collector.getBatchErrors(), log);
+        Util.logErrors("Error during iterate.execute:", collector.getOperationErrors(), log);
+        if (log.isDebugEnabled()) {
+            log.debug("Terminated periodic iteration with id %s with %d executions", periodicId, collector.getCount());
+        }
+        return Stream.of(collector.getResult());
+    }
+
+    static int partition(Object key, int partitions) {
+        int hash = key instanceof Entity entity ? entity.getElementId().hashCode() : Objects.hashCode(key);
+        return Math.floorMod(hash * 0x9E3779B9, partitions);
+    }
+
+    /**
+     * The batches of a partition, committed one at a time by a single task in the pool
+     */
+    private static class Partition {
+        private final Deque<Runnable> batches = new ArrayDeque<>();
+        private boolean running;
+
+        synchronized void submit(ExecutorService pool, Semaphore permits, Runnable batch) {
+            batches.add(batch);
+            if (running) return;
+            running = true;
+            try {
+                pool.execute(() -> drain(permits));
+            } catch (Exception e) {
+                running = false;
+                batches.removeLast();
+                permits.release();
+                throw new RuntimeException("Error executing in separate transaction", e);
+            }
+        }
+
+        private void drain(Semaphore permits) {
+            while (true) {
+                Runnable batch;
+                synchronized (this) {
+                    batch = batches.poll();
+                    if (batch == null) {
+                        running = false;
+                        return;
+                    }
+                }
+                try {
+                    batch.run();
+                } finally {
+                    permits.release();
+                }
+            }
+        }
+
+        synchronized int cancel(Semaphore permits) {
+            int cancelled = batches.size();
+            batches.clear();
+            permits.release(cancelled);
+            return cancelled;
+        }
+    }
+
+    /**
+     * Commits the batch, with retries, and reports its outcome to the collector and the batch size
+     */
+    private static Runnable batchExecution(GraphDatabaseService db, Log log, TerminationGuard terminationGuard,
+                                           BatchAndTotalCollector collector, AdaptiveBatchSize batchSize,
+                                           boolean iterateList, long retries, List<Map<String, Object>> batch,
+                                           BiFunction<Transaction, Map<String, Object>, QueryStatistics> consumer,
+                                           Runnable onCommitted) {
+        final int size = batch.size();
+        final ExecuteBatch executeBatch =
+                iterateList ?
+                        new ListExecuteBatch(terminationGuard, collector, batch, consumer) :
+                        new OneByOneExecuteBatch(terminationGuard, collector, batch, consumer);
+        return () -> {
+            final long start = System.nanoTime();
+            final AtomicBoolean contended = new AtomicBoolean();
+            try {
+                collector.incrementSuccesses(Util.retryInTx(log, db, executeBatch, 0, retries, retryCount -> {
+                    contended.set(true);
+                    collector.incrementRetried();
+                }));
+                onCommitted.run();
+            } catch (Exception e) {
+                if (ExceptionUtils.indexOfType(e, TransientFailureException.class) >= 0) {
+                    contended.set(true);
+                }
+                collector.getFailedBatches().incrementAndGet();
+                collector.getBatchErrors().compute(e.toString(), (s, i) -> i == null ? 1 : i + 1);
+            } finally {
+                batchSize.completed(size, System.nanoTime() - start, contended.get());
+                collector.incrementBatches();
+                executeBatch.release();
+            }
+        };
+    }
+
+    private static Runnable committed(IterateProgress progress, long offset) {
+        return progress == null ? () -> {} : () -> progress.committed(offset);
+    }
+
+    /**
+     * Waits for the permits, checking for a termination in between
+     */
+    private static boolean acquire(Semaphore permits, int count, TerminationGuard terminationGuard) {
+        try {
+            while (!permits.tryAcquire(count, 100, TimeUnit.MILLISECONDS)) {
+                if (Util.transactionIsTerminated(terminationGuard)) return false;
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
     public static Stream<JobInfo> submitProc(String name, String statement, Map<String, Object> config, GraphDatabaseService db, Log log, Pools pools) {
         Map<String,Object> params = (Map) config.getOrDefault("params", Collections.emptyMap());
         JobInfo info = submitJob(name, () -> {
@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.util;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Walks a {@link JsonParser} to the array selected by a path of object fields, in each of the root documents,
+ * and reads its elements one at a time
+ */
+class JsonArrayIterator implements Iterator<Object> {
+
+    private static final Pattern PATH = Pattern.compile("^\\$((?:\\.[^.\\[\\]]+|\\[(?:'[^']*'|\"[^\"]*\")])*)\\[\\*]$");
+    private static final Pattern FIELD = Pattern.compile("\\.([^.\\[\\]]+)|\\['([^']*)']|\\[\"([^\"]*)\"]");
+
+    private final JsonParser parser;
+    private final List<String> fields;
+    private final boolean failOnError;
+
+    // the number of objects of the current document entered to reach the array
+    private int depth;
+    private boolean inArray;
+    private boolean done;
+    private Object next;
+    private boolean hasNext;
+
+    JsonArrayIterator(JsonParser parser, List<String> fields, boolean failOnError) {
+        this.parser = parser;
+        this.fields = fields;
+        this.failOnError = failOnError;
+    }
+
+    /**
+     * @return the fields leading to the array, for a path like `$.items[*]`
+     */
+    static List<String> parsePath(String path) {
+        final Matcher matcher = PATH.matcher(path == null ? "" : path.trim());
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("The path `" + path + "` is not supported in stream mode, " +
+                    "it has to select the elements of an array, like `$.items[*]`");
+        }
+        final List<String> fields = new ArrayList<>();
+        final Matcher field = FIELD.matcher(matcher.group(1));
+        while (field.find()) {
+            fields.add(field.group(1) != null ? field.group(1) : field.group(2) != null ? field.group(2) : field.group(3));
+        }
+        return fields;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (!hasNext && !done) {
+            try {
+                advance();
+            } catch (IOException e) {
+                done = true;
+                if (failOnError) {
+                    throw new RuntimeException(e);
+                }
+            }
+        }
+        return hasNext;
+    }
+
+    @Override
+    public Object next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        hasNext = false;
+        final Object result = next;
+        next = null;
+        return result;
+    }
+
+    private void advance() throws IOException {
+        while (true) {
+            if (inArray) {
+                if (parser.nextToken() == JsonToken.END_ARRAY) {
+                    inArray = false;
+                    unwind();
+                    continue;
+                }
+                next = JsonUtil.OBJECT_MAPPER.readValue(parser, Object.class);
+                hasNext = true;
+                return;
+            }
+            // the root of the next document
+            if (parser.nextToken() == null) {
+                done = true;
+                return;
+            }
+            if (descend()) {
+                inArray = true;
+            } else {
+                unwind();
+            }
+        }
+    }
+
+    /**
+     * @return true if the parser is at the start of the array
+     */
+    private boolean descend() throws IOException {
+        for (String field : fields) {
+            if (parser.currentToken() != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                return false;
+            }
+            depth++;
+            if (!findField(field)) {
+                // the end of the object has been read already
+                depth--;
+                return false;
+            }
+            parser.nextToken();
+        }
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return false;
+        }
+        return true;
+    }
+
+    private boolean findField(String field) throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+            if (field.equals(parser.getCurrentName())) {
+                return true;
+            }
+            parser.nextToken();
+            parser.skipChildren();
+        }
+        if (token == null) {
+            throw new IOException("Unexpected end of the JSON input");
+        }
+        return false;
+    }
+
+    /**
+     * Skips the rest of the objects entered, up to the end of the current document
+     */
+    private void unwind() throws IOException {
+        while (depth > 0) {
+            JsonToken token;
+            while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+                parser.nextToken();
+                parser.skipChildren();
+            }
+            if (token == null) {
+                throw new IOException("Unexpected end of the JSON input");
+            }
+            depth--;
+        }
+    }
+
+    /**
+     * Called when the stream is closed, releases the parser and the input behind it
+     */
+    void close() {
+        JsonUtil.closeParser(parser);
+    }
+}
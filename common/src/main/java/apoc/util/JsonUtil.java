@@ -36,12 +36,17 @@ import org.apache.commons.lang3.StringUtils;
 import org.neo4j.graphdb.spatial.Point;
 import org.neo4j.values.storable.DurationValue;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.time.temporal.Temporal;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.EnumSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Spliterator;
 import java.util.Spliterators;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
@@ -52,6 +57,11 @@ import java.util.stream.StreamSupport;
  */
 public class JsonUtil {
     private final static Option[] defaultJsonPathOptions = { Option.DEFAULT_PATH_LEAF_TO_NULL, Option.SUPPRESS_EXCEPTIONS };
+    private final static int JSON_PATH_CACHE_SIZE = 1000;
+
+    // compiled paths and configurations, reused across the documents of a stream and across calls
+    private final static Map<String, JsonPath> JSON_PATHS = lruCache(JSON_PATH_CACHE_SIZE);
+    private final static Map<List<String>, Configuration> JSON_PATH_CONFIGS = lruCache(JSON_PATH_CACHE_SIZE);
     
     public static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
     public static final String PATH_OPTIONS_ERROR_MESSAGE = "Invalid pathOptions. The allowed values are: " + EnumSet.allOf(Option.class);
@@ -71,7 +81,24 @@ public class JsonUtil {
         OBJECT_MAPPER.registerModule(module);
     }
 
+    private static <K, V> Map<K, V> lruCache(int maxSize) {
+        return Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > maxSize;
+            }
+        });
+    }
+
+    private static JsonPath getJsonPath(String path) {
+        return JSON_PATHS.computeIfAbsent(path, JsonPath::compile);
+    }
+
     private static Configuration getJsonPathConfig(List<String> options) {
+        return JSON_PATH_CONFIGS.computeIfAbsent(options == null ? null : new ArrayList<>(options), JsonUtil::createJsonPathConfig);
+    }
+
+    private static Configuration createJsonPathConfig(List<String> options) {
         try {
             Option[] opts = options == null ? defaultJsonPathOptions : options.stream().map(Option::valueOf).toArray(Option[]::new);
             return Configuration.builder()
@@ -90,15 +117,31 @@ public class JsonUtil {
     
     public static Stream<Object> loadJson(Object urlOrBinary, Map<String,Object> headers, String payload, String path, boolean failOnError, String compressionAlgo, List<String> options) {
         try {
-            if (urlOrBinary instanceof String) {
-                String url = (String) urlOrBinary;
-                urlOrBinary = Util.getLoadUrlByConfigFile("json", url, "url").orElse(url);
-            }
-            InputStream input = FileUtils.inputStreamFor(urlOrBinary, headers, payload, compressionAlgo);
-            JsonParser parser = OBJECT_MAPPER.getFactory().createParser(input);
+            JsonParser parser = createParser(urlOrBinary, headers, payload, compressionAlgo);
             MappingIterator<Object> it = OBJECT_MAPPER.readValues(parser, Object.class);
-            Stream<Object> stream = StreamSupport.stream(Spliterators.spliteratorUnknownSize(it, 0), false);
-            return StringUtils.isBlank(path) ? stream : stream.map((value) -> JsonPath.parse(value, getJsonPathConfig(options)).read(path));
+            Stream<Object> stream = StreamSupport.stream(Spliterators.spliteratorUnknownSize(it, 0), false)
+                    .onClose(() -> closeParser(parser));
+            return StringUtils.isBlank(path) ? stream : stream.map((value) -> JsonPath.parse(value, getJsonPathConfig(options)).read(getJsonPath(path)));
+        } catch (IOException e) {
+            if(!failOnError) {
+                return Stream.of();
+            } else {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    /**
+     * Streams the elements of the array selected by a path like `$.items[*]` or `$['a'].b[*]`, one by one,
+     * reading the JSON incrementally instead of materializing each document first
+     */
+    public static Stream<Object> streamJsonArray(Object urlOrBinary, Map<String,Object> headers, String payload, String path, boolean failOnError, String compressionAlgo) {
+        final List<String> fields = JsonArrayIterator.parsePath(path);
+        try {
+            JsonParser parser = createParser(urlOrBinary, headers, payload, compressionAlgo);
+            JsonArrayIterator it = new JsonArrayIterator(parser, fields, failOnError);
+            return StreamSupport.stream(Spliterators.spliteratorUnknownSize(it, Spliterator.ORDERED), false)
+                    .onClose(it::close);
         } catch (IOException e) {
             if(!failOnError) {
                 return Stream.of();
@@ -108,6 +151,29 @@ public class JsonUtil {
         }
     }
 
+    private static JsonParser createParser(Object urlOrBinary, Map<String,Object> headers, String payload, String compressionAlgo) throws IOException {
+        if (urlOrBinary instanceof String) {
+            String url = (String) urlOrBinary;
+            urlOrBinary = Util.getLoadUrlByConfigFile("json", url, "url").orElse(url);
+        }
+        InputStream input = FileUtils.inputStreamFor(urlOrBinary, headers, payload, compressionAlgo);
+        return OBJECT_MAPPER.getFactory().createParser(input);
+    }
+
+    /**
+     * Closes the parser and its source, which the parsers of the mapper leave open
+     */
+    static void closeParser(JsonParser parser) {
+        try {
+            parser.close();
+            if (parser.getInputSource() instanceof Closeable source) {
+                source.close();
+            }
+        } catch (IOException e) {
+            // ignore
+        }
+    }
+
     public static Stream<Object> loadJson(String url) {
         return loadJson(url,null,null,"", true, null, null);
     }
@@ -126,7 +192,7 @@ public class JsonUtil {
             if (path == null || path.isEmpty()) {
                 return OBJECT_MAPPER.readValue(json, type);
             }
-            return JsonPath.parse(json, getJsonPathConfig(options)).read(path, type);
+            return JsonPath.parse(json, getJsonPathConfig(options)).read(getJsonPath(path), type);
         } catch (IOException e) {
             throw new RuntimeException("Can't convert " + json + " to "+type.getSimpleName()+" with path "+path, e);
         }
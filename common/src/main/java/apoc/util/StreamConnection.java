@@ -102,6 +102,10 @@ public interface StreamConnection {
             this(new File(fileName));
         }
 
+        public File getFile() {
+            return file;
+        }
+
         @Override
         public InputStream getInputStream() throws IOException {
             return FileUtils.openInputStream(file);
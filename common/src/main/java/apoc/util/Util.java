@@ -28,7 +28,8 @@ import apoc.result.VirtualRelationship;
 import apoc.util.collection.Iterators;
 import org.apache.commons.compress.archivers.ArchiveEntry;
 import org.apache.commons.compress.archivers.ArchiveInputStream;
-import org.apache.commons.io.IOUtils;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipFile;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.tuple.Pair;
 import org.neo4j.graphdb.ExecutionPlanDescription;
@@ -43,7 +44,8 @@ import org.neo4j.values.storable.PointValue;
 import org.neo4j.values.storable.Values;
 
 import java.io.BufferedWriter;
-import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStreamWriter;
@@ -366,7 +368,9 @@ public class Util {
         if(tokens.length == 2) {
             zipFileName = tokens[1];
             sc = getStreamConnection(urlAddress, headers, payload);
-            stream = getFileStreamIntoCompressedFile(sc.getInputStream(), zipFileName, archiveType);
+            stream = archiveType == ArchiveType.ZIP && sc instanceof StreamConnection.FileStreamConnection
+                    ? getFileStreamIntoZipFile(((StreamConnection.FileStreamConnection) sc).getFile(), zipFileName)
+                    : getFileStreamIntoCompressedFile(sc.getInputStream(), zipFileName, archiveType);
         }else
             throw new IllegalArgumentException("filename can't be null or empty");
 
@@ -377,20 +381,60 @@ public class Util {
         return FileUtils.getStreamConnection( FileUtils.from( urlAddress), urlAddress, headers, payload);
     }
 
+    /**
+     * Returns the archive stream positioned on the entry, which is read lazily and closes the archive when closed
+     */
     private static InputStream getFileStreamIntoCompressedFile(InputStream is, String fileName, ArchiveType archiveType) throws IOException {
-        try (ArchiveInputStream archive = archiveType.getInputStream(is)) {
+        ArchiveInputStream archive = archiveType.getInputStream(is);
+        try {
             ArchiveEntry archiveEntry;
 
             while ((archiveEntry = archive.getNextEntry()) != null) {
                 if (!archiveEntry.isDirectory() && archiveEntry.getName().equals(fileName)) {
-                    return new ByteArrayInputStream(IOUtils.toByteArray(archive));
+                    return archive;
                 }
             }
+        } catch (IOException | RuntimeException e) {
+            archive.close();
+            throw e;
         }
-
+        archive.close();
         return null;
     }
 
+    /**
+     * Looks the entry up in the central directory of a local zip file, instead of scanning the archive from the start
+     */
+    private static InputStream getFileStreamIntoZipFile(File file, String fileName) throws IOException {
+        final ZipFile zipFile;
+        try {
+            zipFile = new ZipFile(file);
+        } catch (IOException e) {
+            // e.g. a truncated archive without a central directory, which can still be read sequentially
+            return getFileStreamIntoCompressedFile(org.apache.commons.io.FileUtils.openInputStream(file), fileName, ArchiveType.ZIP);
+        }
+        final ZipArchiveEntry entry = zipFile.getEntry(fileName);
+        if (entry == null || entry.isDirectory()) {
+            zipFile.close();
+            return null;
+        }
+        try {
+            return new FilterInputStream(zipFile.getInputStream(entry)) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        zipFile.close();
+                    }
+                }
+            };
+        } catch (IOException | RuntimeException e) {
+            zipFile.close();
+            throw e;
+        }
+    }
+
     public static StreamConnection readHttpInputStream(String urlAddress, Map<String, Object> headers, String payload, int redirectLimit) throws IOException {
         URL url = ApocConfig.apocConfig().checkAllowedUrlAndPinToIP(urlAddress);
         URLConnection con = openUrlConnection(url, headers);
@@ -18,43 +18,172 @@
  */
 package apoc.util.kernel;
 
-import java.util.concurrent.Callable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
+import org.neo4j.common.EntityType;
+import org.neo4j.exceptions.KernelException;
+import org.neo4j.internal.kernel.api.Cursor;
 import org.neo4j.internal.kernel.api.NodeCursor;
+import org.neo4j.internal.kernel.api.NodeLabelIndexCursor;
+import org.neo4j.internal.kernel.api.PartitionedScan;
 import org.neo4j.internal.kernel.api.Read;
-import org.neo4j.internal.kernel.api.Scan;
-import org.neo4j.internal.kernel.api.security.AccessMode;
+import org.neo4j.internal.kernel.api.RelationshipDataAccessor;
+import org.neo4j.internal.kernel.api.RelationshipScanCursor;
+import org.neo4j.internal.kernel.api.RelationshipTypeIndexCursor;
+import org.neo4j.internal.kernel.api.TokenPredicate;
+import org.neo4j.internal.kernel.api.TokenRead;
+import org.neo4j.internal.kernel.api.TokenReadSession;
 import org.neo4j.internal.kernel.api.security.LoginContext;
+import org.neo4j.internal.schema.IndexDescriptor;
+import org.neo4j.internal.schema.SchemaDescriptors;
+import org.neo4j.kernel.api.ExecutionContext;
 import org.neo4j.kernel.api.KernelTransaction;
+import org.neo4j.kernel.api.Statement;
 import org.neo4j.kernel.impl.coreapi.InternalTransaction;
 import org.neo4j.kernel.internal.GraphDatabaseAPI;
+import org.neo4j.procedure.TerminationGuard;
 
+import static org.neo4j.internal.kernel.api.TokenRead.ANY_LABEL;
+
+/**
+ * Parallel scans over the whole graph, all the nodes or relationships, or the ones with a given label or type.
+ * The entities are split into partitions of about batchSize entities, which are reserved by up to concurrency workers,
+ * each one running in its own read transaction.
+ * Every worker gets its own accumulator, created from its transaction, the accumulators are merged once all the workers are done.
+ * If an accumulator is {@link AutoCloseable}, it's closed before its transaction ends, so it can hold cursors of that transaction.
+ */
 public class MultiThreadedGlobalGraphOperations {
 
+    public static final int DEFAULT_CONCURRENCY = Runtime.getRuntime().availableProcessors();
+
     public static BatchJobResult forAllNodes(GraphDatabaseAPI db, ExecutorService executorService, int batchSize, Consumer<NodeCursor> consumer) {
-        BatchJobResult result = new BatchJobResult();
-        AtomicInteger processing = new AtomicInteger();
-        try ( InternalTransaction tx = db.beginTransaction( KernelTransaction.Type.EXPLICIT, LoginContext.AUTH_DISABLED ) ) {
-            KernelTransaction ktx = tx.kernelTransaction();
-            Function<Read, Scan<NodeCursor>> scanFunction = Read::allNodesScan;
-            Scan<NodeCursor> scan = scanFunction.apply( ktx.dataRead() );
-            Function<KernelTransaction,NodeCursor> cursorAllocator = ktx2 -> ktx2.cursors().allocateNodeCursor( ktx2.cursorContext() );
-            executorService.submit( new BatchJob( scan, batchSize, db, consumer, result, cursorAllocator, executorService, processing ) );
+        return forAllNodes(db, executorService, null, batchSize, DEFAULT_CONCURRENCY, ignoreAccumulator(), (acc, cursor) -> consumer.accept(cursor), (a, b) -> null);
+    }
+
+    public static BatchJobResult forAllRelationships(GraphDatabaseAPI db, ExecutorService executorService, int batchSize, Consumer<RelationshipDataAccessor> consumer) {
+        return forAllRelationships(db, executorService, null, batchSize, DEFAULT_CONCURRENCY, ignoreAccumulator(), (acc, cursor) -> consumer.accept(cursor), (a, b) -> null);
+    }
+
+    public static BatchJobResult forAllNodesWithLabel(GraphDatabaseAPI db, ExecutorService executorService, String label, int batchSize, Consumer<NodeCursor> consumer) {
+        return forAllNodesWithLabel(db, executorService, null, label, batchSize, DEFAULT_CONCURRENCY, ignoreAccumulator(), (acc, cursor) -> consumer.accept(cursor), (a, b) -> null);
+    }
+
+    public static BatchJobResult forAllRelationshipsWithType(GraphDatabaseAPI db, ExecutorService executorService, String type, int batchSize, Consumer<RelationshipDataAccessor> consumer) {
+        return forAllRelationshipsWithType(db, executorService, null, type, batchSize, DEFAULT_CONCURRENCY, ignoreAccumulator(), (acc, cursor) -> consumer.accept(cursor), (a, b) -> null);
+    }
+
+    public static <A> ScanResult<A> forAllNodes(GraphDatabaseAPI db, ExecutorService executorService, TerminationGuard terminationGuard, int batchSize, int concurrency,
+                                                Function<KernelTransaction, A> accumulator, BiConsumer<A, NodeCursor> consumer, BinaryOperator<A> merger) {
+        return scan(db, executorService, terminationGuard, batchSize, concurrency, new NodeScanSource(null), accumulator, consumer, merger);
+    }
+
+    public static <A> ScanResult<A> forAllRelationships(GraphDatabaseAPI db, ExecutorService executorService, TerminationGuard terminationGuard, int batchSize, int concurrency,
+                                                        Function<KernelTransaction, A> accumulator, BiConsumer<A, RelationshipDataAccessor> consumer, BinaryOperator<A> merger) {
+        return scan(db, executorService, terminationGuard, batchSize, concurrency, new RelationshipScanSource(null), accumulator, consumer, merger);
+    }
+
+    public static <A> ScanResult<A> forAllNodesWithLabel(GraphDatabaseAPI db, ExecutorService executorService, TerminationGuard terminationGuard, String label, int batchSize, int concurrency,
+                                                         Function<KernelTransaction, A> accumulator, BiConsumer<A, NodeCursor> consumer, BinaryOperator<A> merger) {
+        return scan(db, executorService, terminationGuard, batchSize, concurrency, new NodeScanSource(label), accumulator, consumer, merger);
+    }
+
+    public static <A> ScanResult<A> forAllRelationshipsWithType(GraphDatabaseAPI db, ExecutorService executorService, TerminationGuard terminationGuard, String type, int batchSize, int concurrency,
+                                                                Function<KernelTransaction, A> accumulator, BiConsumer<A, RelationshipDataAccessor> consumer, BinaryOperator<A> merger) {
+        return scan(db, executorService, terminationGuard, batchSize, concurrency, new RelationshipScanSource(type), accumulator, consumer, merger);
+    }
+
+    private static <A> Function<KernelTransaction, A> ignoreAccumulator() {
+        return ktx -> null;
+    }
+
+    private static <E, A> ScanResult<A> scan(GraphDatabaseAPI db, ExecutorService executorService, TerminationGuard terminationGuard, int batchSize, int concurrency,
+                                             ScanSource<E> source, Function<KernelTransaction, A> accumulator, BiConsumer<A, E> consumer, BinaryOperator<A> merger) {
+        ScanResult<A> result = new ScanResult<>();
+        // the scan transaction owns the partitioned scan (and the token index session), so it stays open until all the workers are done
+        try (InternalTransaction tx = db.beginTransaction(KernelTransaction.Type.EXPLICIT, LoginContext.AUTH_DISABLED)) {
+            int partitions = source.init(tx.kernelTransaction(), batchSize);
+            int workers = Math.min(Math.max(1, concurrency), partitions);
+            if (workers == 0) {
+                return result;
+            }
+            CountDownLatch done = new CountDownLatch(workers);
+            AtomicBoolean cancelled = new AtomicBoolean();
+            AtomicReference<Throwable> error = new AtomicReference<>();
+            List<A> accumulators = new ArrayList<>(workers);
+            for (int i = 0; i < workers; i++) {
+                accumulators.add(null);
+            }
+            for (int i = 0; i < workers; i++) {
+                ScanJob<E, A> job = new ScanJob<>(i, db, source, accumulator, consumer, accumulators, result, done, cancelled, error);
+                try {
+                    executorService.submit(job);
+                } catch (RuntimeException e) {
+                    // the jobs that could not be submitted will never count down
+                    cancelled.set(true);
+                    for (int j = i; j < workers; j++) {
+                        done.countDown();
+                    }
+                    error.compareAndSet(null, e);
+                    break;
+                }
+            }
+            awaitCompletion(done, cancelled, terminationGuard);
+            if (error.get() != null) {
+                throw new RuntimeException("Error during parallel scan: " + error.get().getMessage(), error.get());
+            }
+            tx.commit();
+            result.value = accumulators.stream().filter(Objects::nonNull).reduce(merger).orElse(null);
+            return result;
         }
+    }
 
+    private static void awaitCompletion(CountDownLatch done, AtomicBoolean cancelled, TerminationGuard terminationGuard) {
         try {
-            while ( processing.get() > 0 ) {
-                Thread.sleep( 10 );
+            while (!done.await(100, TimeUnit.MILLISECONDS)) {
+                if (terminationGuard != null) {
+                    terminationGuard.check();
+                }
             }
         } catch (InterruptedException e) {
+            cancelled.set(true);
+            awaitUninterruptibly(done);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for the parallel scan", e);
+        } catch (RuntimeException e) {
+            // the calling transaction has been terminated: the workers stop at their next entity,
+            // wait for them as they still read from the scan transaction
+            cancelled.set(true);
+            awaitUninterruptibly(done);
+            throw e;
+        }
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch done) {
+        boolean interrupted = false;
+        while (done.getCount() > 0) {
+            try {
+                done.await();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
             Thread.currentThread().interrupt();
         }
-        return result;
     }
 
     public static class BatchJobResult {
@@ -70,6 +199,10 @@ public class MultiThreadedGlobalGraphOperations {
             failures.incrementAndGet();
         }
 
+        public int getBatches() {
+            return batches.get();
+        }
+
         public long getSucceeded() {
             return succeeded.get();
         }
@@ -79,62 +212,308 @@ public class MultiThreadedGlobalGraphOperations {
         }
     }
 
-    private static class BatchJob implements Callable<Void> {
-        private final Scan<NodeCursor> scan;
-        private final int batchSize;
+    public static class ScanResult<A> extends BatchJobResult {
+        private A value;
+
+        /**
+         * @return the accumulators of all the workers, merged
+         */
+        public A getValue() {
+            return value;
+        }
+    }
+
+    /**
+     * Reads the entities of the partitions reserved by one worker
+     */
+    private interface PartitionReader<E> extends AutoCloseable {
+        boolean reservePartition();
+
+        /**
+         * moves to the next entity of the reserved partition
+         */
+        boolean next();
+
+        E entity();
+
+        @Override
+        void close();
+
+        /**
+         * completes the execution context the partitions were reserved with
+         */
+        default void close(ExecutionContext context) {
+            context.complete();
+            context.close();
+        }
+    }
+
+    /**
+     * Creates the partitioned scan in the scan transaction and a reader for each worker transaction
+     */
+    private interface ScanSource<E> {
+        /**
+         * @return the number of partitions, 0 if there is nothing to scan
+         */
+        int init(KernelTransaction ktx, int batchSize);
+
+        PartitionReader<E> reader(KernelTransaction ktx);
+    }
+
+    private static int partitions(long count, int batchSize) {
+        return (int) Math.min(Integer.MAX_VALUE, Math.max(1, (count + batchSize - 1) / Math.max(1, batchSize)));
+    }
+
+    private static TokenReadSession tokenReadSession(KernelTransaction ktx, EntityType entityType) throws KernelException {
+        Iterator<IndexDescriptor> indexes = ktx.schemaRead().index(SchemaDescriptors.forAnyEntityTokens(entityType));
+        return indexes.hasNext() ? ktx.dataRead().tokenReadSession(indexes.next()) : null;
+    }
+
+    /**
+     * All nodes or, when a label is given, the nodes with that label: from the label lookup index if there is one,
+     * else filtering an all nodes scan
+     */
+    private static class NodeScanSource implements ScanSource<NodeCursor> {
+        private final String label;
+        private int labelId = ANY_LABEL;
+        private PartitionedScan<NodeCursor> nodeScan;
+        private PartitionedScan<NodeLabelIndexCursor> labelScan;
+
+        NodeScanSource(String label) {
+            this.label = label;
+        }
+
+        @Override
+        public int init(KernelTransaction ktx, int batchSize) {
+            Read read = ktx.dataRead();
+            if (label == null) {
+                nodeScan = read.allNodesScan(partitions(read.nodesGetCount(), batchSize), ktx.cursorContext());
+                return nodeScan.getNumberOfPartitions();
+            }
+            labelId = ktx.tokenRead().nodeLabel(label);
+            if (labelId == TokenRead.NO_TOKEN) {
+                return 0;
+            }
+            try {
+                TokenReadSession session = tokenReadSession(ktx, EntityType.NODE);
+                if (session == null) {
+                    nodeScan = read.allNodesScan(partitions(read.nodesGetCount(), batchSize), ktx.cursorContext());
+                    return nodeScan.getNumberOfPartitions();
+                }
+                labelScan = read.nodeLabelScan(session, partitions(read.countsForNode(labelId), batchSize), ktx.cursorContext(), new TokenPredicate(labelId));
+                return labelScan.getNumberOfPartitions();
+            } catch (KernelException e) {
+                throw new RuntimeException("Unable to scan the nodes with label " + label, e);
+            }
+        }
+
+        @Override
+        public PartitionReader<NodeCursor> reader(KernelTransaction ktx) {
+            ExecutionContext context = ktx.createExecutionContext();
+            NodeCursor nodeCursor = context.cursors().allocateNodeCursor(context.cursorContext());
+            if (labelScan == null) {
+                return new PartitionReader<>() {
+                    public boolean reservePartition() {
+                        return nodeScan.reservePartition(nodeCursor, context);
+                    }
+
+                    public boolean next() {
+                        while (nodeCursor.next()) {
+                            if (labelId == ANY_LABEL || nodeCursor.hasLabel(labelId)) return true;
+                        }
+                        return false;
+                    }
+
+                    public NodeCursor entity() {
+                        return nodeCursor;
+                    }
+
+                    public void close() {
+                        nodeCursor.close();
+                        close(context);
+                    }
+                };
+            }
+            NodeLabelIndexCursor indexCursor = context.cursors().allocateNodeLabelIndexCursor(context.cursorContext());
+            return new PartitionReader<>() {
+                public boolean reservePartition() {
+                    return labelScan.reservePartition(indexCursor, context);
+                }
+
+                public boolean next() {
+                    while (indexCursor.next()) {
+                        indexCursor.node(nodeCursor);
+                        if (nodeCursor.next()) return true;
+                    }
+                    return false;
+                }
+
+                public NodeCursor entity() {
+                    return nodeCursor;
+                }
+
+                public void close() {
+                    indexCursor.close();
+                    nodeCursor.close();
+                    close(context);
+                }
+            };
+        }
+    }
+
+    /**
+     * All relationships or, when a type is given, the relationships with that type: from the relationship type lookup index if there is one,
+     * else filtering an all relationships scan
+     */
+    private static class RelationshipScanSource implements ScanSource<RelationshipDataAccessor> {
+        private final String type;
+        private int typeId = TokenRead.ANY_RELATIONSHIP_TYPE;
+        private PartitionedScan<RelationshipScanCursor> relationshipScan;
+        private PartitionedScan<RelationshipTypeIndexCursor> typeScan;
+
+        RelationshipScanSource(String type) {
+            this.type = type;
+        }
+
+        @Override
+        public int init(KernelTransaction ktx, int batchSize) {
+            Read read = ktx.dataRead();
+            if (type == null) {
+                relationshipScan = read.allRelationshipsScan(partitions(read.relationshipsGetCount(), batchSize), ktx.cursorContext());
+                return relationshipScan.getNumberOfPartitions();
+            }
+            typeId = ktx.tokenRead().relationshipType(type);
+            if (typeId == TokenRead.NO_TOKEN) {
+                return 0;
+            }
+            try {
+                TokenReadSession session = tokenReadSession(ktx, EntityType.RELATIONSHIP);
+                if (session == null) {
+                    relationshipScan = read.allRelationshipsScan(partitions(read.relationshipsGetCount(), batchSize), ktx.cursorContext());
+                    return relationshipScan.getNumberOfPartitions();
+                }
+                long count = read.countsForRelationship(ANY_LABEL, typeId, ANY_LABEL);
+                typeScan = read.relationshipTypeScan(session, partitions(count, batchSize), ktx.cursorContext(), new TokenPredicate(typeId));
+                return typeScan.getNumberOfPartitions();
+            } catch (KernelException e) {
+                throw new RuntimeException("Unable to scan the relationships with type " + type, e);
+            }
+        }
+
+        @Override
+        public PartitionReader<RelationshipDataAccessor> reader(KernelTransaction ktx) {
+            ExecutionContext context = ktx.createExecutionContext();
+            if (typeScan == null) {
+                RelationshipScanCursor relationshipCursor = context.cursors().allocateRelationshipScanCursor(context.cursorContext());
+                return new PartitionReader<>() {
+                    public boolean reservePartition() {
+                        return relationshipScan.reservePartition(relationshipCursor, context);
+                    }
+
+                    public boolean next() {
+                        while (relationshipCursor.next()) {
+                            if (typeId == TokenRead.ANY_RELATIONSHIP_TYPE || relationshipCursor.type() == typeId) return true;
+                        }
+                        return false;
+                    }
+
+                    public RelationshipDataAccessor entity() {
+                        return relationshipCursor;
+                    }
+
+                    public void close() {
+                        relationshipCursor.close();
+                        close(context);
+                    }
+                };
+            }
+            RelationshipTypeIndexCursor indexCursor = context.cursors().allocateRelationshipTypeIndexCursor(context.cursorContext());
+            return new PartitionReader<>() {
+                public boolean reservePartition() {
+                    return typeScan.reservePartition(indexCursor, context);
+                }
+
+                public boolean next() {
+                    while (indexCursor.next()) {
+                        // the index entry can be stale, the relationship record is what the consumer reads
+                        if (indexCursor.readFromStore()) return true;
+                    }
+                    return false;
+                }
+
+                public RelationshipDataAccessor entity() {
+                    return indexCursor;
+                }
+
+                public void close() {
+                    indexCursor.close();
+                    close(context);
+                }
+            };
+        }
+    }
+
+    private static class ScanJob<E, A> implements Runnable {
+        private final int index;
         private final GraphDatabaseAPI db;
-        private final Consumer<NodeCursor> consumer;
+        private final ScanSource<E> source;
+        private final Function<KernelTransaction, A> accumulator;
+        private final BiConsumer<A, E> consumer;
+        private final List<A> accumulators;
         private final BatchJobResult result;
-        private final Function<KernelTransaction,NodeCursor> cursorAllocator;
-        private final ExecutorService executorService;
-        private final AtomicInteger processing;
-
-        public BatchJob(Scan<NodeCursor> scan, int batchSize, GraphDatabaseAPI db, Consumer<NodeCursor> consumer,
-                BatchJobResult result, Function<KernelTransaction,NodeCursor> cursorAllocator, ExecutorService executorService, AtomicInteger processing ) {
-            this.scan = scan;
-            this.batchSize = batchSize;
+        private final CountDownLatch done;
+        private final AtomicBoolean cancelled;
+        private final AtomicReference<Throwable> error;
+
+        ScanJob(int index, GraphDatabaseAPI db, ScanSource<E> source, Function<KernelTransaction, A> accumulator, BiConsumer<A, E> consumer,
+                List<A> accumulators, BatchJobResult result, CountDownLatch done, AtomicBoolean cancelled, AtomicReference<Throwable> error) {
+            this.index = index;
             this.db = db;
+            this.source = source;
+            this.accumulator = accumulator;
             this.consumer = consumer;
+            this.accumulators = accumulators;
             this.result = result;
-            this.cursorAllocator = cursorAllocator;
-            this.executorService = executorService;
-            this.processing = processing;
-            processing.incrementAndGet();
+            this.done = done;
+            this.cancelled = cancelled;
+            this.error = error;
         }
 
         @Override
-        public Void call() {
+        public void run() {
             try (InternalTransaction tx = db.beginTransaction(KernelTransaction.Type.EXPLICIT, LoginContext.AUTH_DISABLED)) {
                 KernelTransaction ktx = tx.kernelTransaction();
-                try ( NodeCursor cursor = cursorAllocator.apply( ktx )) {
-                    if (scan.reserveBatch( cursor, batchSize, ktx.cursorContext(), AccessMode.Static.FULL )) {
-                        // Branch out so that all available threads will get saturated
-                        executorService.submit( new BatchJob( scan, batchSize, db, consumer, result, cursorAllocator, executorService, processing ) );
-                        executorService.submit( new BatchJob( scan, batchSize, db, consumer, result, cursorAllocator, executorService, processing ) );
-                        while (processAndReport(cursor)) {
-                            // just continue processing...
+                A acc = accumulator.apply(ktx);
+                // the execution context of the reader can only be created within a statement
+                Statement statement = ktx.acquireStatement();
+                try (PartitionReader<E> reader = source.reader(ktx)) {
+                    while (!cancelled.get() && reader.reservePartition()) {
+                        while (!cancelled.get() && reader.next()) {
+                            try {
+                                consumer.accept(acc, reader.entity());
+                                result.incrementSuceeded();
+                            } catch (Exception e) {
+                                result.incrementFailures();
+                            }
                         }
+                        result.batches.incrementAndGet();
                     }
+                } finally {
+                    statement.close();
+                    if (acc instanceof AutoCloseable) {
+                        ((AutoCloseable) acc).close();
+                    }
+                }
+                synchronized (accumulators) {
+                    accumulators.set(index, acc);
                 }
                 tx.commit();
-                return null;
+            } catch (Throwable t) {
+                cancelled.set(true);
+                error.compareAndSet(null, t);
             } finally {
-                result.batches.incrementAndGet();
-                processing.decrementAndGet();
-            }
-        }
-
-        private boolean processAndReport(NodeCursor cursor) {
-            if (cursor.next()) {
-                try {
-                    consumer.accept(cursor);
-                    result.incrementSuceeded();
-                } catch (Exception e) {
-                    result.incrementFailures();
-                }
-                return true;
+                done.countDown();
             }
-            return false;
         }
     }
 }
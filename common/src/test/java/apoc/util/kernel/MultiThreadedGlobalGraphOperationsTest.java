@@ -23,6 +23,7 @@ import org.junit.BeforeClass;
 import org.junit.ClassRule;
 import org.junit.Test;
 
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -30,7 +31,11 @@ import org.neo4j.test.rule.DbmsRule;
 import org.neo4j.test.rule.ImpermanentDbmsRule;
 
 import static apoc.util.kernel.MultiThreadedGlobalGraphOperations.BatchJobResult;
+import static apoc.util.kernel.MultiThreadedGlobalGraphOperations.ScanResult;
 import static apoc.util.kernel.MultiThreadedGlobalGraphOperations.forAllNodes;
+import static apoc.util.kernel.MultiThreadedGlobalGraphOperations.forAllNodesWithLabel;
+import static apoc.util.kernel.MultiThreadedGlobalGraphOperations.forAllRelationships;
+import static apoc.util.kernel.MultiThreadedGlobalGraphOperations.forAllRelationshipsWithType;
 import static org.junit.Assert.assertEquals;
 
 public class MultiThreadedGlobalGraphOperationsTest {
@@ -38,6 +43,8 @@ public class MultiThreadedGlobalGraphOperationsTest {
     @ClassRule
     public static DbmsRule db = new ImpermanentDbmsRule();
 
+    private static final ExecutorService executor = Executors.newFixedThreadPool(4);
+
     @BeforeClass
     public static void beforeClass() {
         createData();
@@ -45,11 +52,13 @@ public class MultiThreadedGlobalGraphOperationsTest {
 
     @AfterClass
     public static void teardown() {
+       executor.shutdown();
        db.shutdown();
     }
 
     private static void createData() {
         db.executeTransactionally("UNWIND range(1,1000) as x MERGE (s{id:x}) MERGE (e{id:x+1}) merge (s)-[:REL{id:x}]->(e)");
+        db.executeTransactionally("MATCH (n) WHERE n.id % 10 = 0 SET n:Tenth WITH n MATCH (n)-[r:REL]->(m) CREATE (n)-[:TENTH]->(m)");
     }
 
     @Test
@@ -61,4 +70,47 @@ public class MultiThreadedGlobalGraphOperationsTest {
         assertEquals(1001, result.getSucceeded());
         assertEquals(0, result.getFailures());
     }
+
+    @Test
+    public void shouldForAllRelationshipsWork() {
+        AtomicInteger counter = new AtomicInteger();
+        BatchJobResult result = forAllRelationships(db, executor, 10,
+                (relCursor) -> counter.incrementAndGet() );
+        assertEquals(1100, counter.get());
+        assertEquals(1100, result.getSucceeded());
+        assertEquals(0, result.getFailures());
+    }
+
+    @Test
+    public void shouldForAllNodesWithLabelWork() {
+        AtomicInteger counter = new AtomicInteger();
+        BatchJobResult result = forAllNodesWithLabel(db, executor, "Tenth", 10,
+                (nodeCursor) -> counter.incrementAndGet() );
+        assertEquals(100, counter.get());
+        assertEquals(100, result.getSucceeded());
+
+        BatchJobResult missing = forAllNodesWithLabel(db, executor, "Missing", 10,
+                (nodeCursor) -> counter.incrementAndGet() );
+        assertEquals(0, missing.getSucceeded());
+    }
+
+    @Test
+    public void shouldForAllRelationshipsWithTypeMergeAccumulators() {
+        ScanResult<long[]> result = forAllRelationshipsWithType(db, executor, null, "TENTH", 10, 4,
+                ktx -> new long[1],
+                (sum, relCursor) -> sum[0] += 1,
+                (a, b) -> new long[] { a[0] + b[0] });
+        assertEquals(100, result.getValue()[0]);
+        assertEquals(100, result.getSucceeded());
+    }
+
+    @Test
+    public void shouldForAllNodesMergeAccumulators() {
+        ScanResult<long[]> result = forAllNodes(db, executor, null, 10, 4,
+                ktx -> new long[1],
+                (sum, nodeCursor) -> sum[0] += 1,
+                (a, b) -> new long[] { a[0] + b[0] });
+        assertEquals(1001, result.getValue()[0]);
+        assertEquals(0, result.getFailures());
+    }
 }
@@ -19,6 +19,7 @@
 package apoc;
 
 import apoc.cypher.CypherInitializer;
+import apoc.meta.MetaProfileCache;
 import apoc.trigger.TriggerHandler;
 import org.neo4j.annotations.service.ServiceProvider;
 import org.neo4j.kernel.availability.AvailabilityListener;
@@ -27,6 +28,7 @@ import org.neo4j.kernel.lifecycle.Lifecycle;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 @ServiceProvider
@@ -35,18 +37,23 @@ public class CoreApocGlobalComponents implements ApocGlobalComponents {
 
     @Override
     public Map<String,Lifecycle> getServices(GraphDatabaseAPI db, ApocExtensionFactory.Dependencies dependencies) {
-        return Collections.singletonMap("trigger", new TriggerHandler(db,
-                dependencies.databaseManagementService(),
-                dependencies.apocConfig(),
-                dependencies.log().getUserLog(TriggerHandler.class),
-                dependencies.pools(),
-                dependencies.scheduler())
+        return Map.of(
+                "trigger", new TriggerHandler(db,
+                        dependencies.databaseManagementService(),
+                        dependencies.apocConfig(),
+                        dependencies.log().getUserLog(TriggerHandler.class),
+                        dependencies.pools(),
+                        dependencies.scheduler()),
+                "metaProfileCache", new MetaProfileCache(db,
+                        dependencies.databaseManagementService(),
+                        dependencies.apocConfig(),
+                        dependencies.log().getUserLog(MetaProfileCache.class))
         );
     }
 
     @Override
     public Collection<Class> getContextClasses() {
-        return Collections.singleton(TriggerHandler.class);
+        return List.of(TriggerHandler.class, MetaProfileCache.class);
     }
 
     @Override
@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.agg;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static apoc.util.Util.map;
+
+/**
+ * Count-min sketch of the value frequencies, with `depth` rows of `width` counters,
+ * plus the `k` most frequent values seen so far as heavy hitter candidates
+ */
+class FrequencySketch extends Sketch {
+    static final int DEFAULT_WIDTH = 2048;
+    static final int DEFAULT_DEPTH = 5;
+    static final int DEFAULT_K = 10;
+
+    private final int width;
+    private final int depth;
+    private final int k;
+    private final long[] counters;
+    private long total;
+    private final Map<String, Long> candidates = new HashMap<>();
+    // a lower bound of the least candidate estimate, as the estimates only grow
+    private long threshold;
+
+    FrequencySketch(int width, int depth, int k) {
+        if (width < 1 || depth < 1 || depth > 32 || k < 0) {
+            throw new IllegalArgumentException("A frequency sketch needs a width > 0, a depth between 1 and 32 and a k >= 0, got " + width + ", " + depth + " and " + k);
+        }
+        this.width = width;
+        this.depth = depth;
+        this.k = k;
+        this.counters = new long[width * depth];
+    }
+
+    void add(Object value) {
+        String item = itemKey(value);
+        byte[] hash = hash(item).asBytes();
+        long h1 = fromBytes(hash, 0), h2 = fromBytes(hash, 8);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, ++counters[index(h1, h2, row)]);
+        }
+        total++;
+        offer(item, estimate);
+    }
+
+    long estimate(Object value) {
+        return estimate(itemKey(value));
+    }
+
+    private long estimate(String item) {
+        byte[] hash = hash(item).asBytes();
+        long h1 = fromBytes(hash, 0), h2 = fromBytes(hash, 8);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters[index(h1, h2, row)]);
+        }
+        return estimate;
+    }
+
+    /**
+     * The counter of the row, by double hashing with the two halves of the 128 bit hash
+     */
+    private int index(long h1, long h2, int row) {
+        return row * width + (int) Math.floorMod(h1 + row * h2, (long) width);
+    }
+
+    private static long fromBytes(byte[] bytes, int offset) {
+        long value = 0;
+        for (int i = offset + 7; i >= offset; i--) {
+            value = (value << 8) | (bytes[i] & 0xFF);
+        }
+        return value;
+    }
+
+    private void offer(String item, long estimate) {
+        if (k == 0) return;
+        if (candidates.containsKey(item) || candidates.size() < k) {
+            candidates.put(item, estimate);
+            return;
+        }
+        if (estimate <= threshold) return;
+        Map.Entry<String, Long> least = null;
+        for (Map.Entry<String, Long> candidate : candidates.entrySet()) {
+            if (least == null || candidate.getValue() < least.getValue()) least = candidate;
+        }
+        if (estimate > least.getValue()) {
+            candidates.remove(least.getKey());
+            candidates.put(item, estimate);
+        } else {
+            threshold = least.getValue();
+        }
+    }
+
+    long total() {
+        return total;
+    }
+
+    /**
+     * The heavy hitter candidates with their estimated counts, most frequent first.
+     * Numbers are returned as numbers and the other values as their text
+     */
+    List<Map<String, Object>> topK() {
+        List<Map.Entry<String, Long>> entries = new ArrayList<>(candidates.size());
+        for (String item : candidates.keySet()) {
+            entries.add(Map.entry(item, estimate(item)));
+        }
+        entries.sort(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+        List<Map<String, Object>> result = new ArrayList<>(entries.size());
+        for (Map.Entry<String, Long> entry : entries) {
+            result.add(map("item", itemValue(entry.getKey()), "count", entry.getValue()));
+        }
+        return result;
+    }
+
+    @Override
+    byte kind() {
+        return FREQUENCY;
+    }
+
+    @Override
+    void merge(Sketch other) {
+        checkSameKind(this, other);
+        FrequencySketch sketch = (FrequencySketch) other;
+        if (sketch.width != width || sketch.depth != depth) {
+            throw new IllegalArgumentException("Cannot merge frequency sketches with different dimensions: " + width + "x" + depth + " and " + sketch.width + "x" + sketch.depth);
+        }
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] += sketch.counters[i];
+        }
+        total += sketch.total;
+        // the candidates of both sketches, with their merged estimates
+        List<String> items = new ArrayList<>(candidates.keySet());
+        for (String item : sketch.candidates.keySet()) {
+            if (!candidates.containsKey(item)) items.add(item);
+        }
+        candidates.clear();
+        threshold = 0;
+        for (String item : items) {
+            offer(item, estimate(item));
+        }
+    }
+
+    @Override
+    void write(DataOutputStream out) throws IOException {
+        out.writeInt(width);
+        out.writeInt(depth);
+        out.writeInt(k);
+        out.writeLong(total);
+        for (long counter : counters) {
+            out.writeLong(counter);
+        }
+        out.writeInt(candidates.size());
+        for (Map.Entry<String, Long> candidate : candidates.entrySet()) {
+            byte[] item = candidate.getKey().getBytes(StandardCharsets.UTF_8);
+            out.writeInt(item.length);
+            out.write(item);
+            out.writeLong(candidate.getValue());
+        }
+    }
+
+    static FrequencySketch read(DataInputStream in) throws IOException {
+        FrequencySketch sketch = new FrequencySketch(in.readInt(), in.readInt(), in.readInt());
+        sketch.total = in.readLong();
+        for (int i = 0; i < sketch.counters.length; i++) {
+            sketch.counters[i] = in.readLong();
+        }
+        int size = in.readInt();
+        for (int i = 0; i < size; i++) {
+            byte[] item = new byte[in.readInt()];
+            in.readFully(item);
+            sketch.candidates.put(new String(item, StandardCharsets.UTF_8), in.readLong());
+        }
+        return sketch;
+    }
+}
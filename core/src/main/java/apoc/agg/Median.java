@@ -18,11 +18,12 @@
  */
 package apoc.agg;
 
+import apoc.util.Util;
 import org.neo4j.procedure.*;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.List;
+import java.util.Map;
 
 /**
  * @author mh
@@ -30,32 +31,108 @@ import java.util.List;
  */
 public class Median {
     @UserAggregationFunction("apoc.agg.median")
-    @Description("Returns the mathematical median for all non-null numeric values.")
+    @Description("Returns the mathematical median for all non-null numeric values.\n" +
+            "With `{approximate: true}` the median is estimated in bounded memory, with `precision` significant decimal digits (0 to 5, default 3).")
     public MedianFunction median() {
         return new MedianFunction();
     }
 
 
     public static class MedianFunction {
-        private List<Double> values = new ArrayList<>();
+        private double[] values = new double[16];
+        private int size;
+        private QuantileSketch approximation;
+        private boolean configured;
 
         @UserAggregationUpdate
-        public void aggregate(@Name("value") Object value) {
+        public void aggregate(@Name("value") Object value, @Name(value = "config", defaultValue = "{}") Map<String, Object> config) {
+            if (!configured) {
+                configure(config);
+            }
             if (value instanceof Number) {
-                values.add(((Number)value).doubleValue());
+                double number = ((Number) value).doubleValue();
+                if (approximation != null) {
+                    approximation.add(number);
+                } else {
+                    if (size == values.length) {
+                        values = Arrays.copyOf(values, size + (size >> 1));
+                    }
+                    values[size++] = number;
+                }
+            }
+        }
+
+        private void configure(Map<String, Object> config) {
+            if (config == null) config = Collections.emptyMap();
+            if (Util.toBoolean(config.get("approximate"))) {
+                approximation = new QuantileSketch(Util.toInteger(config.getOrDefault("precision", QuantileSketch.DEFAULT_PRECISION)));
+                values = null;
             }
+            configured = true;
         }
 
         @UserAggregationResult
         public Object result() {
-            if (values.isEmpty()) return null;
-            Collections.sort(values);
-            int size = values.size();
+            if (approximation != null) return approximation.median();
+            if (size == 0) return null;
+            int middle = size / 2;
+            select(values, size, middle);
             if (size % 2 == 1) {
-                return values.get(size /2);
+                return values[middle];
+            } else {
+                // after the selection the lower half is left of the middle, in any order
+                double lower = values[0];
+                for (int i = 1; i < middle; i++) {
+                    if (Double.compare(values[i], lower) > 0) lower = values[i];
+                }
+                return (lower + values[middle]) / 2D;
+            }
+        }
+    }
+
+    /**
+     * Moves the k-th smallest of the first `size` values to the index k, with the smaller ones before and the greater ones after it.
+     * Uses a three-way partition so that repeated values don't degrade it, values are ordered as by {@link Double#compare}
+     */
+    static void select(double[] values, int size, int k) {
+        int from = 0, to = size - 1;
+        while (from < to) {
+            double pivot = medianOfThree(values[from], values[from + (to - from) / 2], values[to]);
+            // values[from, lt) < pivot, values[lt, i) == pivot, values(gt, to] > pivot
+            int lt = from, i = from, gt = to;
+            while (i <= gt) {
+                int cmp = Double.compare(values[i], pivot);
+                if (cmp < 0) {
+                    swap(values, lt++, i++);
+                } else if (cmp > 0) {
+                    swap(values, i, gt--);
+                } else {
+                    i++;
+                }
+            }
+            if (k < lt) {
+                to = lt - 1;
+            } else if (k > gt) {
+                from = gt + 1;
             } else {
-                return (values.get(size /2-1) + values.get(size /2)) / 2D;
+                return;
             }
         }
     }
+
+    private static double medianOfThree(double a, double b, double c) {
+        if (Double.compare(a, b) > 0) {
+            double tmp = a; a = b; b = tmp;
+        }
+        if (Double.compare(b, c) > 0) {
+            b = c;
+        }
+        return Double.compare(a, b) > 0 ? a : b;
+    }
+
+    private static void swap(double[] values, int i, int j) {
+        double tmp = values[i];
+        values[i] = values[j];
+        values[j] = tmp;
+    }
 }
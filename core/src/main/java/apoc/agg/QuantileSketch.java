@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.agg;
+
+import org.HdrHistogram.DoubleHistogram;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+
+/**
+ * Bounded memory quantile estimates, from auto-resizing histograms of the positive values and of the negated negative ones,
+ * as {@link DoubleHistogram} only records non-negative values
+ */
+class QuantileSketch extends Sketch {
+    static final int DEFAULT_PRECISION = 3;
+
+    private final int precision;
+    private DoubleHistogram positives;
+    private DoubleHistogram negatives;
+
+    QuantileSketch(int precision) {
+        if (precision < 0 || precision > 5) {
+            throw new IllegalArgumentException("The precision of a quantile sketch must be between 0 and 5, got " + precision);
+        }
+        this.precision = precision;
+    }
+
+    void add(double value) {
+        if (!Double.isFinite(value)) {
+            throw new IllegalArgumentException("A quantile sketch does not support the value " + value);
+        }
+        if (value < 0) {
+            if (negatives == null) negatives = new DoubleHistogram(precision);
+            negatives.recordValue(-value);
+        } else {
+            if (positives == null) positives = new DoubleHistogram(precision);
+            positives.recordValue(value);
+        }
+    }
+
+    long count() {
+        return count(negatives) + count(positives);
+    }
+
+    Double median() {
+        long total = count();
+        if (total == 0) return null;
+        if (total % 2 == 1) {
+            return valueAtRank((total + 1) / 2);
+        }
+        return (valueAtRank(total / 2) + valueAtRank(total / 2 + 1)) / 2D;
+    }
+
+    Double quantile(double quantile) {
+        if (!(quantile >= 0 && quantile <= 1)) {
+            throw new IllegalArgumentException("A quantile must be between 0 and 1, got " + quantile);
+        }
+        long total = count();
+        if (total == 0) return null;
+        return valueAtRank(Math.min(total, Math.max(1, (long) Math.ceil(quantile * total))));
+    }
+
+    /**
+     * @param rank the 1-based position of the value in ascending order
+     */
+    private double valueAtRank(long rank) {
+        long negativeCount = count(negatives);
+        if (rank <= negativeCount || positives == null) {
+            // the negative values are in descending order of their negation
+            return -negatives.getValueAtPercentile(100D * (negativeCount - rank + 1) / negativeCount);
+        }
+        return positives.getValueAtPercentile(100D * (rank - negativeCount) / positives.getTotalCount());
+    }
+
+    private static long count(DoubleHistogram histogram) {
+        return histogram == null ? 0 : histogram.getTotalCount();
+    }
+
+    @Override
+    byte kind() {
+        return QUANTILES;
+    }
+
+    @Override
+    void merge(Sketch other) {
+        checkSameKind(this, other);
+        QuantileSketch sketch = (QuantileSketch) other;
+        positives = merge(positives, sketch.positives);
+        negatives = merge(negatives, sketch.negatives);
+    }
+
+    private static DoubleHistogram merge(DoubleHistogram histogram, DoubleHistogram other) {
+        if (other == null) return histogram;
+        if (histogram == null) return other.copy();
+        histogram.add(other);
+        return histogram;
+    }
+
+    @Override
+    void write(DataOutputStream out) throws IOException {
+        out.writeByte(precision);
+        write(out, positives);
+        write(out, negatives);
+    }
+
+    private static void write(DataOutputStream out, DoubleHistogram histogram) throws IOException {
+        if (histogram == null) {
+            out.writeInt(0);
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+        int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+        out.writeInt(length);
+        out.write(buffer.array(), 0, length);
+    }
+
+    static QuantileSketch read(DataInputStream in) throws IOException {
+        QuantileSketch sketch = new QuantileSketch(in.readByte());
+        sketch.positives = readHistogram(in);
+        sketch.negatives = readHistogram(in);
+        return sketch;
+    }
+
+    private static DoubleHistogram readHistogram(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length == 0) return null;
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        try {
+            DoubleHistogram histogram = DoubleHistogram.decodeFromCompressedByteBuffer(ByteBuffer.wrap(bytes), 2);
+            histogram.setAutoResize(true);
+            return histogram;
+        } catch (DataFormatException e) {
+            throw new IOException(e);
+        }
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.agg;
+
+import apoc.convert.ConvertUtils;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * A mergeable summary of a stream of values, serialized as a byte array
+ * starting with the kind of sketch and the version of its format.
+ */
+abstract class Sketch {
+    static final byte HYPER_LOG_LOG = 1;
+    static final byte QUANTILES = 2;
+    static final byte FREQUENCY = 3;
+
+    private static final byte VERSION = 1;
+    private static final char INTEGER_TAG = 'i';
+    private static final char FLOAT_TAG = 'f';
+    private static final char BYTES_TAG = 'b';
+    private static final char OTHER_TAG = 's';
+    private static final HashFunction HASH = Hashing.murmur3_128();
+
+    abstract byte kind();
+
+    /**
+     * Adds the values summarized by the other sketch, of the same kind, to this one
+     */
+    abstract void merge(Sketch other);
+
+    abstract void write(DataOutputStream out) throws IOException;
+
+    byte[] toBytes() {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(kind());
+            out.writeByte(VERSION);
+            write(out);
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    static Sketch fromBytes(byte[] bytes) {
+        if (bytes == null || bytes.length < 2) {
+            throw new IllegalArgumentException("The value is not a sketch");
+        }
+        if (bytes[1] != VERSION) {
+            throw new IllegalArgumentException("Unsupported sketch version " + bytes[1]);
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes, 2, bytes.length - 2))) {
+            switch (bytes[0]) {
+                case HYPER_LOG_LOG:
+                    return HyperLogLog.read(in);
+                case QUANTILES:
+                    return QuantileSketch.read(in);
+                case FREQUENCY:
+                    return FrequencySketch.read(in);
+                default:
+                    throw new IllegalArgumentException("The value is not a sketch");
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("The value is not a valid sketch", e);
+        }
+    }
+
+    static <T extends Sketch> T fromBytes(byte[] bytes, Class<T> type) {
+        Sketch sketch = fromBytes(bytes);
+        if (!type.isInstance(sketch)) {
+            throw new IllegalArgumentException("Expected a " + type.getSimpleName() + " sketch, got a " + sketch.getClass().getSimpleName() + " one");
+        }
+        return type.cast(sketch);
+    }
+
+    /**
+     * The key identifying a value: a tag of its type followed by its text,
+     * so that values equal in Cypher, like 1 and 1.0, share it, but not 1 and '1'.
+     * Byte arrays are encoded in Base64, arrays like lists and maps with their keys sorted, so the text depends only on the content
+     */
+    static String itemKey(Object value) {
+        if (value instanceof Double || value instanceof Float) {
+            double number = ((Number) value).doubleValue();
+            if (number == Math.rint(number) && Math.abs(number) < 0x1p63) {
+                return INTEGER_TAG + Long.toString((long) number);
+            }
+            return FLOAT_TAG + Double.toString(number);
+        }
+        if (value instanceof Number) {
+            return INTEGER_TAG + Long.toString(((Number) value).longValue());
+        }
+        if (value instanceof byte[]) {
+            return BYTES_TAG + Base64.getEncoder().encodeToString((byte[]) value);
+        }
+        return OTHER_TAG + text(value);
+    }
+
+    private static String text(Object value) {
+        if (value instanceof byte[]) {
+            return Base64.getEncoder().encodeToString((byte[]) value);
+        }
+        if (value instanceof Collection || (value != null && value.getClass().isArray())) {
+            List<?> list = ConvertUtils.convertToList(value);
+            return list.stream().map(Sketch::elementText).collect(Collectors.joining(", ", "[", "]"));
+        }
+        if (value instanceof Map) {
+            return new TreeMap<>((Map<?, ?>) value).entrySet().stream()
+                    .map(e -> e.getKey() + ": " + elementText(e.getValue()))
+                    .collect(Collectors.joining(", ", "{", "}"));
+        }
+        return String.valueOf(value);
+    }
+
+    private static String elementText(Object value) {
+        if (value instanceof String) {
+            return "'" + value + "'";
+        }
+        if (value instanceof Number) {
+            return itemKey(value).substring(1);
+        }
+        return text(value);
+    }
+
+    /**
+     * The value of an item key, numbers as numbers, byte arrays as bytes and the other values as their text
+     */
+    static Object itemValue(String itemKey) {
+        String text = itemKey.substring(1);
+        switch (itemKey.charAt(0)) {
+            case INTEGER_TAG:
+                return Long.parseLong(text);
+            case FLOAT_TAG:
+                return Double.parseDouble(text);
+            case BYTES_TAG:
+                return Base64.getDecoder().decode(text);
+            default:
+                return text;
+        }
+    }
+
+    static HashCode hash(String itemKey) {
+        return HASH.hashString(itemKey, StandardCharsets.UTF_8);
+    }
+
+    static void checkSameKind(Sketch sketch, Sketch other) {
+        if (other.kind() != sketch.kind()) {
+            throw new IllegalArgumentException("Cannot merge a " + other.getClass().getSimpleName() + " sketch into a " + sketch.getClass().getSimpleName() + " one");
+        }
+    }
+}
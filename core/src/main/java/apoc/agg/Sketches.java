@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.agg;
+
+import apoc.util.Util;
+import org.neo4j.procedure.Description;
+import org.neo4j.procedure.Name;
+import org.neo4j.procedure.UserAggregationFunction;
+import org.neo4j.procedure.UserAggregationResult;
+import org.neo4j.procedure.UserAggregationUpdate;
+import org.neo4j.procedure.UserFunction;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Aggregations returning mergeable sketches as byte arrays, which can be stored as properties,
+ * merged later and queried for estimates.
+ */
+public class Sketches {
+
+    @UserAggregationFunction("apoc.agg.hll")
+    @Description("Returns a mergeable HyperLogLog sketch of the distinct non-null values, as a byte array.\n" +
+            "The config `precision` (4 to 18, default 14) sets the 2^precision registers of the sketch.")
+    public HllFunction hll() {
+        return new HllFunction();
+    }
+
+    @UserAggregationFunction("apoc.agg.quantileSketch")
+    @Description("Returns a mergeable quantile sketch of the non-null numeric values, as a byte array.\n" +
+            "The config `precision` (0 to 5, default 3) sets the significant decimal digits of the sketch.")
+    public QuantileSketchFunction quantileSketch() {
+        return new QuantileSketchFunction();
+    }
+
+    @UserAggregationFunction("apoc.agg.frequencySketch")
+    @Description("Returns a mergeable count-min sketch of the frequencies of the non-null values, with their top k heavy hitters, as a byte array.\n" +
+            "The config `width` (default 2048) and `depth` (default 5) set the size of the count-min sketch, `k` (default 10) the number of heavy hitters.")
+    public FrequencySketchFunction frequencySketch() {
+        return new FrequencySketchFunction();
+    }
+
+    @UserAggregationFunction("apoc.agg.mergeSketches")
+    @Description("Returns the merge of the given sketches of the same kind.")
+    public MergeSketchesFunction mergeSketches() {
+        return new MergeSketchesFunction();
+    }
+
+    @UserFunction("apoc.sketch.merge")
+    @Description("Returns the merge of the given list of sketches of the same kind.")
+    public byte[] merge(@Name("sketches") List<Object> sketches) {
+        if (sketches == null) return null;
+        Sketch merged = null;
+        for (Object sketch : sketches) {
+            merged = merge(merged, (byte[]) sketch);
+        }
+        return merged == null ? null : merged.toBytes();
+    }
+
+    @UserFunction("apoc.sketch.distinctCount")
+    @Description("Returns the estimated number of distinct values of the given HyperLogLog sketch.")
+    public Long distinctCount(@Name("sketch") byte[] sketch) {
+        if (sketch == null) return null;
+        return Sketch.fromBytes(sketch, HyperLogLog.class).estimate();
+    }
+
+    @UserFunction("apoc.sketch.quantiles")
+    @Description("Returns the estimated quantiles of the values of the given quantile sketch.")
+    public List<Double> quantiles(@Name("sketch") byte[] sketch, @Name(value = "quantiles", defaultValue = "[0.5,0.75,0.9,0.95,0.99]") List<Double> quantiles) {
+        if (sketch == null) return null;
+        QuantileSketch quantileSketch = Sketch.fromBytes(sketch, QuantileSketch.class);
+        List<Double> result = new ArrayList<>(quantiles.size());
+        for (Double quantile : quantiles) {
+            result.add(quantile == null ? null : quantileSketch.quantile(quantile));
+        }
+        return result;
+    }
+
+    @UserFunction("apoc.sketch.frequency")
+    @Description("Returns the estimated number of occurrences of the given value in the given frequency sketch, it is never below the actual one.")
+    public Long frequency(@Name("sketch") byte[] sketch, @Name("value") Object value) {
+        if (sketch == null) return null;
+        FrequencySketch frequencySketch = Sketch.fromBytes(sketch, FrequencySketch.class);
+        return value == null ? 0L : frequencySketch.estimate(value);
+    }
+
+    @UserFunction("apoc.sketch.topK")
+    @Description("Returns the most frequent values of the given frequency sketch with their estimated counts, values other than numbers are returned as strings.")
+    public List<Map<String, Object>> topK(@Name("sketch") byte[] sketch) {
+        if (sketch == null) return null;
+        return Sketch.fromBytes(sketch, FrequencySketch.class).topK();
+    }
+
+    private static Sketch merge(Sketch merged, byte[] bytes) {
+        if (bytes == null) return merged;
+        Sketch sketch = Sketch.fromBytes(bytes);
+        if (merged == null) return sketch;
+        merged.merge(sketch);
+        return merged;
+    }
+
+    private static Map<String, Object> config(Map<String, Object> config) {
+        return config == null ? Collections.emptyMap() : config;
+    }
+
+    public static class HllFunction {
+        private HyperLogLog sketch;
+
+        @UserAggregationUpdate
+        public void aggregate(@Name("value") Object value, @Name(value = "config", defaultValue = "{}") Map<String, Object> config) {
+            if (sketch == null) {
+                sketch = new HyperLogLog(Util.toInteger(config(config).getOrDefault("precision", HyperLogLog.DEFAULT_PRECISION)));
+            }
+            if (value != null) {
+                sketch.add(value);
+            }
+        }
+
+        @UserAggregationResult
+        public byte[] result() {
+            return (sketch == null ? new HyperLogLog(HyperLogLog.DEFAULT_PRECISION) : sketch).toBytes();
+        }
+    }
+
+    public static class QuantileSketchFunction {
+        private QuantileSketch sketch;
+
+        @UserAggregationUpdate
+        public void aggregate(@Name("value") Object value, @Name(value = "config", defaultValue = "{}") Map<String, Object> config) {
+            if (sketch == null) {
+                sketch = new QuantileSketch(Util.toInteger(config(config).getOrDefault("precision", QuantileSketch.DEFAULT_PRECISION)));
+            }
+            if (value instanceof Number) {
+                sketch.add(((Number) value).doubleValue());
+            }
+        }
+
+        @UserAggregationResult
+        public byte[] result() {
+            return (sketch == null ? new QuantileSketch(QuantileSketch.DEFAULT_PRECISION) : sketch).toBytes();
+        }
+    }
+
+    public static class FrequencySketchFunction {
+        private FrequencySketch sketch;
+
+        @UserAggregationUpdate
+        public void aggregate(@Name("value") Object value, @Name(value = "config", defaultValue = "{}") Map<String, Object> config) {
+            if (sketch == null) {
+                Map<String, Object> conf = config(config);
+                sketch = new FrequencySketch(Util.toInteger(conf.getOrDefault("width", FrequencySketch.DEFAULT_WIDTH)),
+                        Util.toInteger(conf.getOrDefault("depth", FrequencySketch.DEFAULT_DEPTH)),
+                        Util.toInteger(conf.getOrDefault("k", FrequencySketch.DEFAULT_K)));
+            }
+            if (value != null) {
+                sketch.add(value);
+            }
+        }
+
+        @UserAggregationResult
+        public byte[] result() {
+            return (sketch == null ? new FrequencySketch(FrequencySketch.DEFAULT_WIDTH, FrequencySketch.DEFAULT_DEPTH, FrequencySketch.DEFAULT_K) : sketch).toBytes();
+        }
+    }
+
+    public static class MergeSketchesFunction {
+        private Sketch merged;
+
+        @UserAggregationUpdate
+        public void aggregate(@Name("sketch") byte[] sketch) {
+            merged = merge(merged, sketch);
+        }
+
+        @UserAggregationResult
+        public byte[] result() {
+            return merged == null ? null : merged.toBytes();
+        }
+    }
+}
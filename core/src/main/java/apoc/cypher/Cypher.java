@@ -35,6 +35,7 @@ import org.neo4j.procedure.TerminationGuard;
 
 import java.io.Reader;
 import java.io.StringReader;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
@@ -42,6 +43,11 @@ import java.util.Map;
 import java.util.Scanner;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -79,12 +85,12 @@ public class Cypher {
         return runCypherQuery(tx, statement, params);
     }
 
-    private Stream<RowResult> runManyStatements(Reader reader, Map<String, Object> params, boolean schemaOperation, boolean addStatistics, int queueCapacity) {
+    private Stream<RowResult> runManyStatements(Reader reader, Map<String, Object> params, boolean schemaOperation, boolean addStatistics, int queueCapacity, int concurrency) {
         BlockingQueue<RowResult> queue = runInSeparateThreadAndSendTombstone(queueCapacity, internalQueue -> {
             if (schemaOperation) {
                 runSchemaStatementsInTx(reader, internalQueue, params, addStatistics);
             } else {
-                runDataStatementsInTx(reader, internalQueue, params, addStatistics);
+                runDataStatementsInTx(reader, internalQueue, params, addStatistics, concurrency);
             }
         }, RowResult.TOMBSTONE);
         return StreamSupport.stream(new QueueBasedSpliterator<>(queue, RowResult.TOMBSTONE, terminationGuard, Integer.MAX_VALUE), false);
@@ -114,24 +120,124 @@ public class Cypher {
         return queue;
     }
 
-    private void runDataStatementsInTx(Reader reader, BlockingQueue<RowResult> queue, Map<String, Object> params, boolean addStatistics) {
+    private void runDataStatementsInTx(Reader reader, BlockingQueue<RowResult> queue, Map<String, Object> params, boolean addStatistics, int concurrency) {
         Scanner scanner = new Scanner(reader);
         scanner.useDelimiter(";\r?\n");
-        while (scanner.hasNext()) {
-            String stmt = removeShellControlCommands(scanner.next());
-            if (stmt.trim().isEmpty()) continue;
-            if (!isSchemaOperation(stmt)) {
-                if (isPeriodicOperation(stmt)) {
-                    Util.inThread(pools , () -> db.executeTransactionally(stmt, params, result -> consumeResult(result, queue, addStatistics)));
+        ParallelStatements parallel = concurrency > 1 ? new ParallelStatements(queue, params, addStatistics, concurrency) : null;
+        try {
+            while (scanner.hasNext()) {
+                String next = scanner.next();
+                String stmt = removeShellControlCommands(next);
+                // the statements of different :begin/:commit blocks may depend on each other
+                if (parallel != null && !stmt.equals(next)) parallel.awaitAll();
+                if (stmt.trim().isEmpty()) continue;
+                if (!isSchemaOperation(stmt)) {
+                    if (isPeriodicOperation(stmt)) {
+                        if (parallel != null) parallel.awaitAll();
+                        Util.inThread(pools , () -> db.executeTransactionally(stmt, params, result -> consumeResult(result, queue, addStatistics)));
+                    }
+                    else if (parallel != null) {
+                        parallel.submit(stmt);
+                    }
+                    else {
+                        Util.inTx(db, pools, threadTx -> {
+                            try (Result result = threadTx.execute(stmt, params)) {
+                                return consumeResult(result, queue, addStatistics);
+                            }
+                        });
+                    }
+                } else if (parallel != null) {
+                    parallel.awaitAll();
                 }
-                else {
-                    Util.inTx(db, pools, threadTx -> {
-                        try (Result result = threadTx.execute(stmt, params)) {
-                            return consumeResult(result, queue, addStatistics);
-                        }
-                    });
+            }
+            if (parallel != null) parallel.awaitAll();
+        } finally {
+            // the statements still running must not write to the queue after the tombstone
+            if (parallel != null) parallel.awaitQuietly();
+        }
+    }
+
+    /**
+     * Runs the statements between two barriers concurrently, each in its own transaction,
+     * with at most `concurrency` of them at the same time.
+     * The rows of a statement are sent together, once it completes
+     */
+    private class ParallelStatements {
+        private final BlockingQueue<RowResult> queue;
+        private final Map<String, Object> params;
+        private final boolean addStatistics;
+        private final Semaphore permits;
+        private final List<Future<?>> running = new ArrayList<>();
+        // the first failure wins, later ones are often a consequence of it
+        private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+
+        ParallelStatements(BlockingQueue<RowResult> queue, Map<String, Object> params, boolean addStatistics, int concurrency) {
+            this.queue = queue;
+            this.params = params;
+            this.addStatistics = addStatistics;
+            this.permits = new Semaphore(concurrency);
+        }
+
+        void submit(String stmt) {
+            checkFailure();
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            }
+            try {
+                running.add(pools.getDefaultExecutorService().submit(() -> runStatement(stmt)));
+            } catch (RuntimeException e) {
+                permits.release();
+                throw e;
+            }
+        }
+
+        private void runStatement(String stmt) {
+            try (Transaction threadTx = db.beginTx()) {
+                BlockingQueue<RowResult> rows = new LinkedBlockingQueue<>();
+                try (Result result = threadTx.execute(stmt, params)) {
+                    consumeResult(result, rows, addStatistics);
+                }
+                threadTx.commit();
+                for (RowResult row : rows) {
+                    queue.put(row);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure.compareAndSet(null, new RuntimeException(e));
+            } catch (RuntimeException e) {
+                failure.compareAndSet(null, e);
+            } finally {
+                permits.release();
+            }
+        }
+
+        void awaitAll() {
+            awaitQuietly();
+            checkFailure();
+        }
+
+        void awaitQuietly() {
+            for (Future<?> future : running) {
+                try {
+                    future.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                } catch (ExecutionException ignored) {
+                    // failures are kept by runStatement
                 }
             }
+            running.clear();
+        }
+
+        private void checkFailure() {
+            RuntimeException e = failure.get();
+            if (e != null) {
+                throw new RuntimeException("Error executing statement: " + e.getMessage(), e);
+            }
         }
     }
 
@@ -156,9 +262,11 @@ public class Cypher {
     public Stream<RowResult> runMany(@Name("statement") String cypher, @Name("params") Map<String,Object> params, @Name(value = "config",defaultValue = "{}") Map<String,Object> config) {
         boolean addStatistics = Util.toBoolean(config.getOrDefault("statistics",true));
         int queueCapacity = Util.toInteger(config.getOrDefault("queueCapacity",100));
+        boolean parallel = Util.toBoolean(config.getOrDefault("parallel", false));
+        int concurrency = parallel ? Math.max(1, Util.toInteger(config.getOrDefault("concurrency", Runtime.getRuntime().availableProcessors()))) : 1;
 
         StringReader stringReader = new StringReader(cypher);
-        return runManyStatements(stringReader ,params, false, addStatistics, queueCapacity);
+        return runManyStatements(stringReader ,params, false, addStatistics, queueCapacity, concurrency);
     }
 
     @Procedure(name = "apoc.cypher.runManyReadOnly", mode = READ)
@@ -167,6 +275,21 @@ public class Cypher {
         return runMany(cypher, params, config);
     }
 
+    @Procedure("apoc.cypher.prewarm")
+    @Description("Rewrites and plans the given statement as apoc.cypher.runFirstColumnMany and apoc.cypher.runFirstColumnSingle run it, without executing it.")
+    public Stream<StatementCacheResult> prewarm(@Name("statement") String statement, @Name(value = "params", defaultValue = "{}") Map<String, Object> params) {
+        if (params == null) params = Collections.emptyMap();
+        String resolvedStatement = CypherFunctions.resolveStatement(statement, params.keySet());
+        tx.execute("EXPLAIN " + resolvedStatement, params).close();
+        return Stream.of(CypherFunctions.statementCacheStats(resolvedStatement));
+    }
+
+    @Procedure("apoc.cypher.statementCacheStats")
+    @Description("Returns the hits, misses and size of the cache of statements rewritten by apoc.cypher.runFirstColumnMany and apoc.cypher.runFirstColumnSingle.")
+    public Stream<StatementCacheResult> statementCacheStats() {
+        return Stream.of(CypherFunctions.statementCacheStats(null));
+    }
+
     private final static Pattern shellControl = Pattern.compile("^:?\\b(begin|commit|rollback)\\b", Pattern.CASE_INSENSITIVE);
 
     private Object consumeResult(Result result, BlockingQueue<RowResult> queue, boolean addStatistics) {
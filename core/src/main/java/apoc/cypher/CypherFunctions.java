@@ -29,6 +29,9 @@ import org.neo4j.procedure.UserFunction;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Collectors;
 
 import static apoc.cypher.CypherUtils.withParamMapping;
@@ -37,13 +40,39 @@ import static apoc.cypher.CypherUtils.withParamMapping;
  * Created by lyonwj on 9/29/17.
  */
 public class CypherFunctions {
+    private static final int STATEMENT_CACHE_SIZE = 1000;
+    // the rewritten statements, by statement and parameter names, to skip rewriting them for each row
+    private static final Map<StatementKey, String> STATEMENTS = new ConcurrentHashMap<>();
+    private static final LongAdder HITS = new LongAdder();
+    private static final LongAdder MISSES = new LongAdder();
+
+    private record StatementKey(String statement, Set<String> paramNames) {}
+
     @Context
     public Transaction tx;
 
+    static String resolveStatement(String statement, Set<String> paramNames) {
+        String resolvedStatement = STATEMENTS.get(new StatementKey(statement, paramNames));
+        if (resolvedStatement != null) {
+            HITS.increment();
+            return resolvedStatement;
+        }
+        MISSES.increment();
+        resolvedStatement = withParamMapping(statement, paramNames);
+        if (!resolvedStatement.contains(" runtime")) resolvedStatement = "cypher runtime=slotted " + resolvedStatement;
+        if (STATEMENTS.size() >= STATEMENT_CACHE_SIZE) STATEMENTS.clear();
+        // copy the names, so that the cache does not keep the parameter map
+        STATEMENTS.put(new StatementKey(statement, Set.copyOf(paramNames)), resolvedStatement);
+        return resolvedStatement;
+    }
+
+    static StatementCacheResult statementCacheStats(String statement) {
+        return new StatementCacheResult(statement, HITS.sum(), MISSES.sum(), STATEMENTS.size());
+    }
+
     public Object runFirstColumn(String statement, Map<String, Object> params, boolean expectMultipleValues) {
         if (params == null) params = Collections.emptyMap();
-        String resolvedStatement = withParamMapping(statement, params.keySet());
-        if (!resolvedStatement.contains(" runtime")) resolvedStatement = "cypher runtime=slotted " + resolvedStatement;
+        String resolvedStatement = resolveStatement(statement, params.keySet());
         try (Result result = tx.execute(resolvedStatement, params)) {
 
         String firstColumn = result.columns().get(0);
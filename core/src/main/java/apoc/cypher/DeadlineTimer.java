@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.cypher;
+
+import apoc.Pools;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the actions of expired deadlines on the timer executor of the Pools.
+ * Cancelled deadlines release their action at once and are skipped once they expire,
+ * so that scheduling and cancelling stay cheap under high call rates
+ */
+class DeadlineTimer {
+
+    // the longest delay whose expiry time can be compared with System.nanoTime() without overflowing
+    private static final long MAX_DELAY_NANOS = Long.MAX_VALUE >> 1;
+
+    private DeadlineTimer() {}
+
+    static Deadline schedule(Pools pools, long timeoutMillis, Runnable action) {
+        long delay = Math.min(TimeUnit.MILLISECONDS.toNanos(Math.max(0, timeoutMillis)), MAX_DELAY_NANOS);
+        Deadline deadline = new Deadline(System.nanoTime() + delay, action);
+        deadline.future = pools.getTimerExecutorService().schedule(deadline, delay, TimeUnit.NANOSECONDS);
+        return deadline;
+    }
+
+    static class Deadline implements Runnable {
+        private final long expiresAt;
+        private volatile Runnable action;
+        private volatile Future<?> future;
+
+        private Deadline(long expiresAt, Runnable action) {
+            this.expiresAt = expiresAt;
+            this.action = action;
+        }
+
+        boolean isExpired() {
+            return System.nanoTime() - expiresAt >= 0;
+        }
+
+        /**
+         * Prevents the action from running, and releases what it references
+         */
+        void cancel() {
+            action = null;
+            Future<?> scheduled = future;
+            if (scheduled != null) {
+                scheduled.cancel(false);
+            }
+        }
+
+        @Override
+        public void run() {
+            Runnable result = action;
+            action = null;
+            if (result != null) {
+                result.run();
+            }
+        }
+    }
+}
@@ -63,17 +63,41 @@ public class Timeboxed {
 
     @Procedure("apoc.cypher.runTimeboxed")
     @Description("Terminates a Cypher statement if it has not finished before the set timeout (ms).")
-    public Stream<MapResult> runTimeboxed(@Name("statement") String cypher, @Name("params") Map<String, Object> params, @Name("timeout") long timeout) {
+    public Stream<MapResult> runTimeboxed(@Name("statement") String cypher, @Name("params") Map<String, Object> params, @Name("timeout") long timeout,
+                                          @Name(value = "config", defaultValue = "{}") Map<String, Object> config) {
+        if (config == null) config = Collections.emptyMap();
+        if (params == null) params = Collections.emptyMap();
+        if (Util.toBoolean(config.get("direct"))) {
+            return runDirect(cypher, params, timeout);
+        }
+        final int queueCapacity = Math.max(1, Util.toInteger(config.getOrDefault("queueCapacity", 100)));
+        final Map<String, Object> queryParams = params;
 
-        final BlockingQueue<Map<String, Object>> queue = new ArrayBlockingQueue<>(100);
+        final BlockingQueue<Map<String, Object>> queue = new ArrayBlockingQueue<>(queueCapacity);
         final AtomicReference<Transaction> txAtomic = new AtomicReference<>();
 
+        // the timer thread must never block, so the POISON is only offered if the queue has room for it
+        final DeadlineTimer.Deadline deadline = DeadlineTimer.schedule(pools, timeout, () -> {
+            Transaction tx = txAtomic.get();
+            if (tx==null) {
+                log.debug("tx is null, either the other transaction finished gracefully or has not yet been start.");
+            } else {
+                tx.terminate();
+                log.warn("terminating transaction, putting POISON onto queue");
+            }
+            queue.offer(POISON);
+        });
+
         // run query to be timeboxed in a separate thread to enable proper tx termination
         // if we'd run this in current thread, a tx.terminate would kill the transaction the procedure call uses itself.
         pools.getDefaultExecutorService().submit(() -> {
             try (Transaction innerTx = db.beginTx()) {
                 txAtomic.set(innerTx);
-                Result result = innerTx.execute(cypher, params == null ? Collections.EMPTY_MAP : params);
+                // the deadline could have expired before the transaction was visible to it
+                if (deadline.isExpired()) {
+                    innerTx.terminate();
+                }
+                Result result = innerTx.execute(cypher, queryParams);
                 while (result.hasNext()) {
                     if (Util.transactionIsTerminated(terminationGuard)) {
                         txAtomic.get().close();
@@ -82,29 +106,22 @@ public class Timeboxed {
                     }
 
                     final Map<String, Object> map = result.next();
+                    // rows produced by a statement ignoring the termination are not streamed after the deadline
+                    if (deadline.isExpired()) {
+                        return;
+                    }
                     offerToQueue(queue, map, timeout);
                 }
                 innerTx.commit();
             } catch (TransactionTerminatedException e) {
                 log.warn("query " + cypher + " has been terminated");
             } finally {
+                deadline.cancel();
                 offerToQueue(queue, POISON, timeout);
                 txAtomic.set(null);
             }
         });
 
-        //
-        pools.getScheduledExecutorService().schedule(() -> {
-            Transaction tx = txAtomic.get();
-            if (tx==null) {
-                log.debug("tx is null, either the other transaction finished gracefully or has not yet been start.");
-            } else {
-                tx.terminate();
-                offerToQueue(queue, POISON, timeout);
-                log.warn("terminating transaction, putting POISON onto queue");
-            }
-        }, timeout, MILLISECONDS);
-
         // consume the blocking queue using a custom iterator finishing upon POISON
         Iterator<Map<String,Object>> queueConsumer = new Iterator<>() {
             Map<String, Object> nextElement = null;
@@ -140,6 +157,71 @@ public class Timeboxed {
                 .map(MapResult::new);
     }
 
+    /**
+     * Iterates the statement in the caller's thread, checking the deadline for each row.
+     * The statement runs in its own transaction, the one terminated if a single row takes longer than the deadline
+     */
+    private Stream<MapResult> runDirect(String cypher, Map<String, Object> params, long timeout) {
+        final Transaction innerTx = db.beginTx();
+        final DeadlineTimer.Deadline deadline = DeadlineTimer.schedule(pools, timeout, innerTx::terminate);
+        final Result result;
+        try {
+            result = innerTx.execute(cypher, params);
+        } catch (RuntimeException e) {
+            deadline.cancel();
+            innerTx.close();
+            if (e instanceof TransactionTerminatedException) {
+                log.warn("query " + cypher + " has been terminated");
+                return Stream.empty();
+            }
+            throw e;
+        }
+
+        Iterator<Map<String,Object>> directConsumer = new Iterator<>() {
+            boolean hasFinished = false;
+
+            @Override
+            public boolean hasNext() {
+                if (hasFinished) return false;
+                try {
+                    // the row could have been produced after the deadline terminated the transaction
+                    boolean hasNext = !isTerminated() && result.hasNext();
+                    if (!isTerminated()) {
+                        if (hasNext) return true;
+                        deadline.cancel();
+                        innerTx.commit();
+                    }
+                } catch (TransactionTerminatedException e) {
+                    log.warn("query " + cypher + " has been terminated");
+                }
+                finish();
+                return false;
+            }
+
+            @Override
+            public Map<String, Object> next() {
+                return result.next();
+            }
+
+            private boolean isTerminated() {
+                return deadline.isExpired() || Util.transactionIsTerminated(terminationGuard);
+            }
+
+            private void finish() {
+                hasFinished = true;
+                deadline.cancel();
+                innerTx.close();
+            }
+        };
+        return StreamSupport
+                .stream( Spliterators.spliteratorUnknownSize(directConsumer, Spliterator.ORDERED), false)
+                .onClose(() -> {
+                    deadline.cancel();
+                    innerTx.close();
+                })
+                .map(MapResult::new);
+    }
+
     private void offerToQueue(BlockingQueue<Map<String, Object>> queue, Map<String, Object> map, long timeout)  {
         try {
             boolean hasBeenAdded = queue.offer(map, timeout, MILLISECONDS);
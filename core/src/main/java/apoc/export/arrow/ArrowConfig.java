@@ -19,6 +19,7 @@
 package apoc.export.arrow;
 
 import apoc.util.Util;
+import apoc.util.kernel.MultiThreadedGlobalGraphOperations;
 
 import java.util.Collections;
 import java.util.Map;
@@ -26,18 +27,33 @@ import java.util.Map;
 public class ArrowConfig {
 
     private final int batchSize;
+    private final boolean parallel;
+    private final int concurrency;
 
     private final Map<String, Object> config;
 
     public ArrowConfig(Map<String, Object> config) {
         this.config = config == null ? Collections.emptyMap() : config;
         this.batchSize = Util.toInteger(this.config.getOrDefault("batchSize", 2000));
+        this.parallel = Util.toBoolean(this.config.get("parallel"));
+        this.concurrency = Util.toInteger(this.config.getOrDefault("concurrency", MultiThreadedGlobalGraphOperations.DEFAULT_CONCURRENCY));
     }
 
     public int getBatchSize() {
         return batchSize;
     }
 
+    /**
+     * Whether the full database is exported by a parallel scan, see {@link ColumnarGraphExporter}
+     */
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
     public Map<String, Object> getConfig() {
         return config;
     }
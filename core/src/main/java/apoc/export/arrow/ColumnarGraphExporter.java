@@ -0,0 +1,226 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.export.arrow;
+
+import apoc.util.kernel.MultiThreadedGlobalGraphOperations;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.neo4j.exceptions.KernelException;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.internal.kernel.api.EntityCursor;
+import org.neo4j.internal.kernel.api.NodeCursor;
+import org.neo4j.internal.kernel.api.PropertyCursor;
+import org.neo4j.internal.kernel.api.RelationshipDataAccessor;
+import org.neo4j.internal.kernel.api.TokenRead;
+import org.neo4j.internal.kernel.api.TokenSet;
+import org.neo4j.kernel.api.KernelTransaction;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+import org.neo4j.procedure.TerminationGuard;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
+
+import static apoc.export.arrow.ArrowUtils.FIELD_ID;
+import static apoc.export.arrow.ArrowUtils.FIELD_LABELS;
+import static apoc.export.arrow.ArrowUtils.FIELD_SOURCE_ID;
+import static apoc.export.arrow.ArrowUtils.FIELD_TARGET_ID;
+import static apoc.export.arrow.ArrowUtils.FIELD_TYPE;
+
+/**
+ * Exports the whole database with parallel partitioned scans of the nodes and then of the relationships.
+ * Every scan worker fills the vectors of its own record batches straight from the kernel cursors,
+ * with the property key tokens resolved to their vectors once, instead of building a map per entity.
+ * The full record batches are handed to the sink, which may be called concurrently by the workers.
+ */
+public class ColumnarGraphExporter {
+
+    private final GraphDatabaseService db;
+    private final ExecutorService executorService;
+    private final TerminationGuard terminationGuard;
+    private final ExportArrowStrategy<?, ?> strategy;
+    private final Schema schema;
+    private final BufferAllocator allocator;
+    private final int batchSize;
+    private final int concurrency;
+
+    public ColumnarGraphExporter(GraphDatabaseService db, ExecutorService executorService, TerminationGuard terminationGuard,
+                                 ExportArrowStrategy<?, ?> strategy, Schema schema, BufferAllocator allocator, int batchSize, int concurrency) {
+        this.db = db;
+        this.executorService = executorService;
+        this.terminationGuard = terminationGuard;
+        this.strategy = strategy;
+        this.schema = schema;
+        this.allocator = allocator;
+        this.batchSize = batchSize;
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * @return the number of exported nodes and relationships
+     */
+    public long[] export(Consumer<VectorSchemaRoot> sink) {
+        long nodes = succeeded(MultiThreadedGlobalGraphOperations.forAllNodes((GraphDatabaseAPI) db, executorService,
+                terminationGuard, batchSize, concurrency, ktx -> new Partition(ktx, sink), Partition::add, (a, b) -> a));
+        long relationships = succeeded(MultiThreadedGlobalGraphOperations.forAllRelationships((GraphDatabaseAPI) db, executorService,
+                terminationGuard, batchSize, concurrency, ktx -> new Partition(ktx, sink), Partition::add, (a, b) -> a));
+        return new long[]{nodes, relationships};
+    }
+
+    private static long succeeded(MultiThreadedGlobalGraphOperations.BatchJobResult result) {
+        if (result.getFailures() > 0) {
+            throw new RuntimeException("Unable to export " + result.getFailures() + " entities to Arrow");
+        }
+        return result.getSucceeded();
+    }
+
+    /**
+     * The record batch filled by a scan worker, flushed to the sink whenever full and when the worker is done
+     */
+    private class Partition implements AutoCloseable {
+        private final Consumer<VectorSchemaRoot> sink;
+        private final TokenRead tokenRead;
+        private final PropertyCursor propertyCursor;
+        private final VectorSchemaRoot root;
+        private final List<FieldVector> vectors;
+        // the vector of each property key token, null for the properties out of the schema
+        private final FieldVector[] vectorsByToken;
+        private final Map<FieldVector, Integer> indexes = new IdentityHashMap<>();
+        private final boolean[] written;
+        private final Map<Integer, String> tokenNames = new HashMap<>();
+        private final FieldVector idVector, labelsVector, typeVector, sourceVector, targetVector;
+        private int row;
+
+        Partition(KernelTransaction ktx, Consumer<VectorSchemaRoot> sink) {
+            this.sink = sink;
+            this.tokenRead = ktx.tokenRead();
+            this.propertyCursor = ktx.cursors().allocatePropertyCursor(ktx.cursorContext(), ktx.memoryTracker());
+            this.root = VectorSchemaRoot.create(schema, allocator);
+            this.vectors = root.getFieldVectors();
+            this.written = new boolean[vectors.size()];
+            int[] tokens = new int[vectors.size()];
+            int maxToken = -1;
+            for (int i = 0; i < vectors.size(); i++) {
+                indexes.put(vectors.get(i), i);
+                tokens[i] = tokenRead.propertyKey(vectors.get(i).getName());
+                maxToken = Math.max(maxToken, tokens[i]);
+            }
+            this.vectorsByToken = new FieldVector[maxToken + 1];
+            for (int i = 0; i < tokens.length; i++) {
+                if (tokens[i] != TokenRead.NO_TOKEN) vectorsByToken[tokens[i]] = vectors.get(i);
+            }
+            this.idVector = root.getVector(FIELD_ID.getName());
+            this.labelsVector = root.getVector(FIELD_LABELS.getName());
+            this.typeVector = root.getVector(FIELD_TYPE.getName());
+            this.sourceVector = root.getVector(FIELD_SOURCE_ID.getName());
+            this.targetVector = root.getVector(FIELD_TARGET_ID.getName());
+        }
+
+        void add(Object entity) {
+            if (row == 0) {
+                root.allocateNew();
+            }
+            if (entity instanceof NodeCursor) {
+                NodeCursor node = (NodeCursor) entity;
+                write(idVector, node.nodeReference());
+                write(labelsVector, labels(node.labels()));
+            } else {
+                RelationshipDataAccessor rel = (RelationshipDataAccessor) entity;
+                write(idVector, rel.relationshipReference());
+                write(typeVector, typeName(rel.type()));
+                write(sourceVector, rel.sourceNodeReference());
+                write(targetVector, rel.targetNodeReference());
+            }
+            ((EntityCursor) entity).properties(propertyCursor);
+            while (propertyCursor.next()) {
+                int token = propertyCursor.propertyKey();
+                if (token < vectorsByToken.length && vectorsByToken[token] != null) {
+                    write(vectorsByToken[token], propertyCursor.propertyValue().asObjectCopy());
+                }
+            }
+            for (int i = 0; i < written.length; i++) {
+                if (!written[i]) {
+                    strategy.write(row, null, vectors.get(i));
+                }
+                written[i] = false;
+            }
+            if (++row == batchSize) {
+                flush();
+            }
+        }
+
+        private void write(FieldVector vector, Object value) {
+            if (vector == null) return;
+            strategy.write(row, strategy.convertValue(value), vector);
+            written[indexes.get(vector)] = true;
+        }
+
+        private List<String> labels(TokenSet tokens) {
+            if (tokens.numberOfTokens() == 0) return Collections.emptyList();
+            String[] labels = new String[tokens.numberOfTokens()];
+            for (int i = 0; i < labels.length; i++) {
+                labels[i] = tokenNames.computeIfAbsent(tokens.token(i), token -> {
+                    try {
+                        return tokenRead.nodeLabelName(token);
+                    } catch (KernelException e) {
+                        throw new RuntimeException(e);
+                    }
+                });
+            }
+            Arrays.sort(labels);
+            return Arrays.asList(labels);
+        }
+
+        private String typeName(int type) {
+            // label and relationship type tokens don't mix, a worker scans either nodes or relationships
+            return tokenNames.computeIfAbsent(type, token -> {
+                try {
+                    return tokenRead.relationshipTypeName(token);
+                } catch (KernelException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+        }
+
+        private void flush() {
+            if (row == 0) return;
+            root.setRowCount(row);
+            sink.accept(root);
+            root.clear();
+            row = 0;
+        }
+
+        @Override
+        public void close() {
+            try {
+                flush();
+            } finally {
+                root.close();
+                propertyCursor.close();
+            }
+        }
+    }
+}
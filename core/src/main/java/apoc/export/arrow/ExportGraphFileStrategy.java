@@ -21,10 +21,17 @@ package apoc.export.arrow;
 import apoc.Pools;
 import apoc.export.util.ProgressReporter;
 import apoc.result.ProgressInfo;
+import apoc.util.FileUtils;
 import apoc.util.collection.Iterables;
 import org.apache.arrow.memory.BufferAllocator;
 import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.VectorLoader;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.VectorUnloader;
+import org.apache.arrow.vector.ipc.ArrowWriter;
+import org.apache.arrow.vector.ipc.message.ArrowRecordBatch;
 import org.apache.arrow.vector.types.pojo.Schema;
+import org.neo4j.cypher.export.DatabaseSubGraph;
 import org.neo4j.cypher.export.SubGraph;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Node;
@@ -32,6 +39,8 @@ import org.neo4j.graphdb.Relationship;
 import org.neo4j.logging.Log;
 import org.neo4j.procedure.TerminationGuard;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -78,9 +87,41 @@ public class ExportGraphFileStrategy implements ExportArrowFileStrategy<SubGraph
     @Override
     public Stream<ProgressInfo> export(SubGraph data, ArrowConfig config) {
         schemaFor(List.of(createConfigMap(data, config)));
+        if (config.isParallel() && data instanceof DatabaseSubGraph) {
+            return Stream.of(exportColumnar(config));
+        }
         return ExportArrowFileStrategy.super.export(data, config);
     }
 
+    private ProgressInfo exportColumnar(ArrowConfig config) {
+        ProgressInfo progressInfo = new ProgressInfo(fileName, null, "arrow");
+        progressInfo.batchSize = config.getBatchSize();
+        ProgressReporter reporter = new ProgressReporter(null, null, progressInfo);
+        try (OutputStream out = FileUtils.getOutputStream(fileName);
+             VectorSchemaRoot root = VectorSchemaRoot.create(schema, bufferAllocator);
+             ArrowWriter writer = newArrowWriter(root, out)) {
+            // the batches of the workers are moved into the root of the writer, one at a time
+            VectorLoader loader = new VectorLoader(root);
+            long[] counts = new ColumnarGraphExporter(db, getExecutorService(), terminationGuard, this, schema, bufferAllocator,
+                    config.getBatchSize(), config.getConcurrency()).export(batch -> {
+                synchronized (writer) {
+                    try (ArrowRecordBatch recordBatch = new VectorUnloader(batch).getRecordBatch()) {
+                        loader.load(recordBatch);
+                        writer.writeBatch();
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+            });
+            progressInfo.source = String.format("graph: nodes(%d), rels(%d)", counts[0], counts[1]);
+            reporter.update(counts[0], counts[1], 0);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        reporter.done();
+        return progressInfo;
+    }
+
     @Override
     public String getFileName() {
         return fileName;
@@ -20,6 +20,9 @@ package apoc.export.arrow;
 
 import apoc.Pools;
 import apoc.result.ByteArrayResult;
+import apoc.util.QueueBasedSpliterator;
+import apoc.util.QueueUtil;
+import apoc.util.Util;
 import apoc.util.collection.Iterables;
 import org.apache.arrow.memory.BufferAllocator;
 import org.apache.arrow.memory.RootAllocator;
@@ -28,18 +31,24 @@ import org.apache.arrow.vector.dictionary.DictionaryProvider;
 import org.apache.arrow.vector.ipc.ArrowStreamWriter;
 import org.apache.arrow.vector.ipc.ArrowWriter;
 import org.apache.arrow.vector.types.pojo.Schema;
+import org.neo4j.cypher.export.DatabaseSubGraph;
 import org.neo4j.cypher.export.SubGraph;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.logging.Log;
 import org.neo4j.procedure.TerminationGuard;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.channels.Channels;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class ExportGraphStreamStrategy implements ExportArrowStreamStrategy<SubGraph>, ExportGraphStrategy {
 
@@ -72,9 +81,37 @@ public class ExportGraphStreamStrategy implements ExportArrowStreamStrategy<SubG
     public Stream<ByteArrayResult> export(SubGraph subGraph, ArrowConfig config) {
         Map<String, Object> configMap = createConfigMap(subGraph, config);
         this.schemaFor(List.of(configMap));
+        if (config.isParallel() && subGraph instanceof DatabaseSubGraph) {
+            return exportColumnar(config);
+        }
         return ExportArrowStreamStrategy.super.export(subGraph, config);
     }
 
+    private Stream<ByteArrayResult> exportColumnar(ArrowConfig config) {
+        final BlockingQueue<ByteArrayResult> queue = new ArrayBlockingQueue<>(100);
+        // not a pool thread, as it waits for the scan workers running in the pool
+        Util.newDaemonThread(() -> {
+            try {
+                new ColumnarGraphExporter(db, getExecutorService(), terminationGuard, this, schema, bufferAllocator,
+                        config.getBatchSize(), config.getConcurrency()).export(batch -> {
+                    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+                    try (ArrowWriter writer = newArrowWriter(batch, out)) {
+                        writer.writeBatch();
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                    QueueUtil.put(queue, new ByteArrayResult(out.toByteArray()), 10);
+                });
+            } catch (Exception e) {
+                logger.error("Exception while extracting Arrow data:", e);
+            } finally {
+                QueueUtil.put(queue, ByteArrayResult.NULL, 10);
+            }
+        }).start();
+        QueueBasedSpliterator<ByteArrayResult> spliterator = new QueueBasedSpliterator<>(queue, ByteArrayResult.NULL, terminationGuard, Integer.MAX_VALUE);
+        return StreamSupport.stream(spliterator, false);
+    }
+
     @Override
     public TerminationGuard getTerminationGuard() {
         return terminationGuard;
@@ -25,15 +25,25 @@ import apoc.load.CSVResult;
 import apoc.load.Mapping;
 import apoc.load.util.Results;
 import apoc.util.FileUtils;
+import apoc.util.Util;
 import com.opencsv.CSVParserBuilder;
 import com.opencsv.CSVReader;
 import com.opencsv.CSVReaderBuilder;
 import org.neo4j.graphdb.*;
+import org.neo4j.kernel.impl.core.NodeEntity;
+import org.neo4j.kernel.impl.coreapi.InternalTransaction;
 import org.neo4j.logging.Log;
+import org.neo4j.procedure.TerminationGuard;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -42,20 +52,26 @@ public class CsvEntityLoader {
     private final CsvLoaderConfig clc;
     private final ProgressReporter reporter;
     private final Log log;
+    private final ExecutorService executor;
+    private final TerminationGuard terminationGuard;
 
     /**
      * @param clc configuration object
      * @param reporter
+     * @param executor runs the parsing and the parallel writes of the pipelined import
+     * @param terminationGuard of the calling transaction, checked once per batch to stop the import when it's terminated
      */
-    public CsvEntityLoader(CsvLoaderConfig clc, ProgressReporter reporter, Log log) {
+    public CsvEntityLoader(CsvLoaderConfig clc, ProgressReporter reporter, Log log, ExecutorService executor, TerminationGuard terminationGuard) {
         this.clc = clc;
         this.reporter = reporter;
         this.log = log;
+        this.executor = executor;
+        this.terminationGuard = terminationGuard;
     }
 
     /**
      * Loads nodes from a CSV file with given labels to an online database, and fills the {@code idMapping},
-     * which will be used by the {@link #loadRelationships(Object, String, GraphDatabaseService, Map)}
+     * which will be used by the {@link #loadRelationships(Object, String, GraphDatabaseService, CsvIdMapping)}
      * method.
      *
      * @param fileName URI/Binary of the CSV file representing the node
@@ -65,7 +81,7 @@ public class CsvEntityLoader {
      * @throws IOException
      */
     public void loadNodes(final Object fileName, final List<String> labels, final GraphDatabaseService db,
-                          final Map<String, Map<String, String>> idMapping) throws IOException {
+                          final CsvIdMapping idMapping) throws IOException {
         
         try (final CountingReader reader = FileUtils.readerFor(fileName, clc.getCompressionAlgo())) {
             final String header = readFirstLine(reader);
@@ -82,9 +98,6 @@ public class CsvEntityLoader {
             final Optional<String> idAttribute = idField.isPresent() ? Optional.of(idField.get().getName()) : Optional.empty();
             final String idSpace = idField.isPresent() ? idField.get().getIdSpace() : CsvLoaderConstants.DEFAULT_IDSPACE;
 
-            idMapping.putIfAbsent(idSpace, new HashMap<>());
-            final Map<String, String> idspaceIdMapping = idMapping.get(idSpace);
-
             final Map<String, Mapping> mapping = getMapping(fields);
 
             final CSVReader csv = new CSVReaderBuilder(reader)
@@ -96,69 +109,37 @@ public class CsvEntityLoader {
                     .build();
 
             final String[] loadCsvCompatibleHeader = fields.stream().map(f -> f.getName()).toArray(String[]::new);
+            final NodeWriter nodeWriter = new NodeWriter(fields, labels, idField.isPresent(), idAttribute, idSpace, idMapping);
+
+            if (clc.isParallel()) {
+                // nodes are still created by a single writer, which owns the id mapping, while the lines are parsed in parallel
+                runPipeline(csv.iterator(),
+                        lines -> parse(lines, loadCsvCompatibleHeader, mapping),
+                        rows -> {
+                            try (Transaction tx = db.beginTx()) {
+                                rows.forEach(row -> nodeWriter.write(tx, row));
+                                tx.commit();
+                            }
+                            reporter.progress("commit after " + rows.size() + " row(s) ");
+                        });
+                return;
+            }
+
             AtomicInteger lineNo = new AtomicInteger();
             BatchTransaction btx = new BatchTransaction(db, clc.getBatchSize(), reporter);
             try {
-                csv.forEach(line -> {
-                    lineNo.getAndIncrement();
+                for (String[] line : csv) {
+                    if (lineNo.getAndIncrement() % clc.getBatchSize() == 0 && Util.transactionIsTerminated(terminationGuard)) break;
 
                     final EnumSet<Results> results = EnumSet.of(Results.map);
                     final CSVResult result = new CSVResult(
                             loadCsvCompatibleHeader, line, lineNo.get(), false, mapping, Collections.emptyList(), results
                     );
 
-                    final String nodeCsvId = (String) idAttribute.map(result.map::get).orElse(null);
-
-                    // if 'ignore duplicate nodes' is false, there is an id field and the mapping already has the current id,
-                    // we either fail the loading process or skip it depending on the 'ignore duplicate nodes' setting
-                    if (idField.isPresent() && idspaceIdMapping.containsKey(nodeCsvId)) {
-                        if (clc.getIgnoreDuplicateNodes()) {
-                            return;
-                        } else {
-                            throw new IllegalStateException("Duplicate node with id " + nodeCsvId + " found on line " + lineNo + "\n"
-                                    + Arrays.toString(line));
-                        }
-                    }
-
-                    // create node and add its id to the mapping
-                    final Node node = btx.getTransaction().createNode();
-                    if (idField.isPresent()) {
-                        idspaceIdMapping.put(nodeCsvId, node.getElementId());
-                    }
-
-                    // add labels
-                    for (String label : labels) {
-                        node.addLabel(Label.label(label));
-                    }
-
-                    // add properties
-                    int props = 0;
-                    for (CsvHeaderField field : fields) {
-                        final String name = field.getName();
-                        Object value = result.map.get(name);
-
-                        if (field.isMeta()) {
-                            final List<String> customLabels = (List<String>) value;
-                            for (String customLabel : customLabels) {
-                                node.addLabel(Label.label(customLabel));
-                            }
-                        } else if (field.isId()) {
-                            final Object idValue;
-                            if (clc.getStringIds()) {
-                                idValue = value;
-                            } else {
-                                idValue = Long.valueOf((String) value);
-                            }
-                            node.setProperty(field.getName(), idValue);
-                            props++;
-                        } else {
-                            boolean propertyAdded = CsvPropertyConverter.addPropertyToGraphEntity(node, field, value,clc);
-                            props += propertyAdded ? 1 : 0;
-                        }
+                    if (nodeWriter.write(btx.getTransaction(), new ParsedLine(line, result))) {
+                        btx.increment();
                     }
-                    btx.increment();
-                    reporter.update(1, 0, props++);
-                });
+                }
                 btx.doCommit();
             } catch (RuntimeException e) {
                 btx.rollback();
@@ -169,10 +150,89 @@ public class CsvEntityLoader {
         }
     }
 
+    /**
+     * Creates the nodes of a file, one line at a time
+     */
+    private class NodeWriter {
+        private final List<CsvHeaderField> fields;
+        private final List<String> labels;
+        private final boolean hasIdField;
+        private final Optional<String> idAttribute;
+        private final String idSpace;
+        private final CsvIdMapping idMapping;
+
+        NodeWriter(List<CsvHeaderField> fields, List<String> labels, boolean hasIdField, Optional<String> idAttribute, String idSpace, CsvIdMapping idMapping) {
+            this.fields = fields;
+            this.labels = labels;
+            this.hasIdField = hasIdField;
+            this.idAttribute = idAttribute;
+            this.idSpace = idSpace;
+            this.idMapping = idMapping;
+        }
+
+        /**
+         * @return false if the line has been skipped as a duplicate
+         */
+        boolean write(Transaction tx, ParsedLine parsed) {
+            final CSVResult result = parsed.result;
+            final String nodeCsvId = (String) idAttribute.map(result.map::get).orElse(null);
+
+            // if 'ignore duplicate nodes' is false, there is an id field and the mapping already has the current id,
+            // we either fail the loading process or skip it depending on the 'ignore duplicate nodes' setting
+            if (hasIdField && idMapping.contains(idSpace, nodeCsvId)) {
+                if (clc.getIgnoreDuplicateNodes()) {
+                    return false;
+                } else {
+                    throw new IllegalStateException("Duplicate node with id " + nodeCsvId + " found on line " + result.lineNo + "\n"
+                            + Arrays.toString(parsed.line));
+                }
+            }
+
+            // create node and add its id to the mapping
+            final Node node = tx.createNode();
+            if (hasIdField) {
+                idMapping.put(idSpace, nodeCsvId, ((NodeEntity) node).getId());
+            }
+
+            // add labels
+            for (String label : labels) {
+                node.addLabel(Label.label(label));
+            }
+
+            // add properties
+            int props = 0;
+            for (CsvHeaderField field : fields) {
+                final String name = field.getName();
+                Object value = result.map.get(name);
+
+                if (field.isMeta()) {
+                    final List<String> customLabels = (List<String>) value;
+                    for (String customLabel : customLabels) {
+                        node.addLabel(Label.label(customLabel));
+                    }
+                } else if (field.isId()) {
+                    final Object idValue;
+                    if (clc.getStringIds()) {
+                        idValue = value;
+                    } else {
+                        idValue = Long.valueOf((String) value);
+                    }
+                    node.setProperty(field.getName(), idValue);
+                    props++;
+                } else {
+                    boolean propertyAdded = CsvPropertyConverter.addPropertyToGraphEntity(node, field, value,clc);
+                    props += propertyAdded ? 1 : 0;
+                }
+            }
+            reporter.update(1, 0, props++);
+            return true;
+        }
+    }
+
     /**
      * Loads relationships from a CSV file with given relationship types to an online database,
      * using the {@code idMapping} created by the
-     * {@link #loadNodes(Object, List, GraphDatabaseService, Map)} method.
+     * {@link #loadNodes(Object, List, GraphDatabaseService, CsvIdMapping)} method.
      *
      * @param data URI / Binary of the CSV file representing the relationship
      * @param type relationship type to be applied to each relationships
@@ -185,7 +245,7 @@ public class CsvEntityLoader {
             final Object data, 
             final String type,
             final GraphDatabaseService db,
-            final Map<String, Map<String, String>> idMapping) throws IOException {
+            final CsvIdMapping idMapping) throws IOException {
         
         try (final CountingReader reader = FileUtils.readerFor(data, clc.getCompressionAlgo())) {
             final String header = readFirstLine(reader);
@@ -209,52 +269,39 @@ public class CsvEntityLoader {
 
             try (final var csv = new CSVReaderBuilder(reader).withCSVParser(parser).build()) {
                 final String[] loadCsvCompatibleHeader = fields.stream().map(f -> f.getName()).toArray(String[]::new);
+                final RelationshipWriter relationshipWriter = new RelationshipWriter(type, startIdField, endIdField, edgePropertiesFields);
+
+                if (clc.isParallel()) {
+                    // the endpoints are resolved by the parsing workers: the id mapping is only read from now on
+                    final RelationshipGrid grid = new RelationshipGrid(db, relationshipWriter);
+                    runPipeline(csv.iterator(),
+                            lines -> parse(lines, loadCsvCompatibleHeader, mapping).stream()
+                                    .map(row -> new ResolvedRelationship(
+                                            resolve(idMapping, startIdField, row.result.map.get(CsvLoaderConstants.START_ID_ATTR)),
+                                            resolve(idMapping, endIdField, row.result.map.get(CsvLoaderConstants.END_ID_ATTR)),
+                                            row.result))
+                                    .collect(Collectors.toList()),
+                            grid::add);
+                    grid.flush();
+                    return;
+                }
 
                 AtomicInteger lineNo = new AtomicInteger();
                 BatchTransaction btx = new BatchTransaction(db, clc.getBatchSize(), reporter);
                 try {
-                    csv.forEach(line -> {
-                        lineNo.getAndIncrement();
+                    for (String[] line : csv) {
+                        if (lineNo.getAndIncrement() % clc.getBatchSize() == 0 && Util.transactionIsTerminated(terminationGuard)) break;
 
                         final EnumSet<Results> results = EnumSet.of(Results.map);
                         final CSVResult result = new CSVResult(
                                 loadCsvCompatibleHeader, line, lineNo.get(), false, mapping, Collections.emptyList(), results
                         );
 
-                        final Object startId = result.map.get(CsvLoaderConstants.START_ID_ATTR);
-                        final Object startInternalId = idMapping.get(startIdField.getIdSpace()).get(startId.toString());
-                        if (startInternalId == null) {
-                            throw new IllegalStateException("Node for id space " + endIdField.getIdSpace() + " and id " + startId + " not found");
-                        }
-                        final Node source = btx.getTransaction().getNodeByElementId(startInternalId.toString());
-
-                        final Object endId = result.map.get(CsvLoaderConstants.END_ID_ATTR);
-                        final Object endInternalId = idMapping.get(endIdField.getIdSpace()).get(endId.toString());
-                        if (endInternalId == null) {
-                            throw new IllegalStateException("Node for id space " + endIdField.getIdSpace() + " and id " + endId + " not found");
-                        }
-                        final Node target = btx.getTransaction().getNodeByElementId(endInternalId.toString());
-
-                        final String currentType;
-                        final Object overridingType = result.map.get(CsvLoaderConstants.TYPE_ATTR);
-                        if (overridingType != null && !((String) overridingType).isEmpty()) {
-                            currentType = (String) overridingType;
-                        } else {
-                            currentType = type;
-                        }
-                        final Relationship rel = source.createRelationshipTo(target, RelationshipType.withName(currentType));
-
-                        // add properties
-                        int props = 0;
-                        for (CsvHeaderField field : edgePropertiesFields) {
-                            final String name = field.getName();
-                            Object value = result.map.get(name);
-                            boolean propertyAdded = CsvPropertyConverter.addPropertyToGraphEntity(rel, field, value, clc);
-                            props += propertyAdded ? 1 : 0;
-                        }
+                        final long startInternalId = resolve(idMapping, startIdField, result.map.get(CsvLoaderConstants.START_ID_ATTR));
+                        final long endInternalId = resolve(idMapping, endIdField, result.map.get(CsvLoaderConstants.END_ID_ATTR));
+                        relationshipWriter.write(btx.getTransaction(), new ResolvedRelationship(startInternalId, endInternalId, result));
                         btx.increment();
-                        reporter.update(0, 1, props);
-                    });
+                    }
                     btx.doCommit();
                 } catch (RuntimeException e) {
                     btx.rollback();
@@ -266,6 +313,228 @@ public class CsvEntityLoader {
         }
     }
 
+    private static long resolve(CsvIdMapping idMapping, CsvHeaderField idField, Object csvId) {
+        final long internalId = idMapping.get(idField.getIdSpace(), csvId.toString());
+        if (internalId == CsvIdMapping.NOT_FOUND) {
+            throw new IllegalStateException("Node for id space " + idField.getIdSpace() + " and id " + csvId + " not found");
+        }
+        return internalId;
+    }
+
+    /**
+     * Creates the relationships of a file, one line at a time
+     */
+    private class RelationshipWriter {
+        private final String type;
+        private final CsvHeaderField startIdField;
+        private final CsvHeaderField endIdField;
+        private final List<CsvHeaderField> edgePropertiesFields;
+
+        RelationshipWriter(String type, CsvHeaderField startIdField, CsvHeaderField endIdField, List<CsvHeaderField> edgePropertiesFields) {
+            this.type = type;
+            this.startIdField = startIdField;
+            this.endIdField = endIdField;
+            this.edgePropertiesFields = edgePropertiesFields;
+        }
+
+        /**
+         * @return the number of properties set
+         */
+        int write(Transaction tx, ResolvedRelationship row) {
+            final CSVResult result = row.result;
+            final Node source = node((InternalTransaction) tx, startIdField, row.startId, result.map.get(CsvLoaderConstants.START_ID_ATTR));
+            final Node target = node((InternalTransaction) tx, endIdField, row.endId, result.map.get(CsvLoaderConstants.END_ID_ATTR));
+
+            final String currentType;
+            final Object overridingType = result.map.get(CsvLoaderConstants.TYPE_ATTR);
+            if (overridingType != null && !((String) overridingType).isEmpty()) {
+                currentType = (String) overridingType;
+            } else {
+                currentType = type;
+            }
+            final Relationship rel = source.createRelationshipTo(target, RelationshipType.withName(currentType));
+
+            // add properties
+            int props = 0;
+            for (CsvHeaderField field : edgePropertiesFields) {
+                final String name = field.getName();
+                Object value = result.map.get(name);
+                boolean propertyAdded = CsvPropertyConverter.addPropertyToGraphEntity(rel, field, value, clc);
+                props += propertyAdded ? 1 : 0;
+            }
+            if (!clc.isParallel()) {
+                reporter.update(0, 1, props);
+            }
+            return props;
+        }
+
+        /**
+         * The mapping holds the nodes created by the import, which could have been deleted since
+         */
+        private Node node(InternalTransaction tx, CsvHeaderField idField, long internalId, Object csvId) {
+            if (!tx.kernelTransaction().dataRead().nodeExists(internalId)) {
+                throw new IllegalStateException("Node for id space " + idField.getIdSpace() + " and id " + csvId + " not found");
+            }
+            return tx.newNodeEntity(internalId);
+        }
+    }
+
+    /**
+     * Buffers the relationships in a grid of start node partitions by end node partitions, and writes them in rounds,
+     * so that concurrent transactions never lock the same nodes.
+     * A termination of the calling transaction fails the import instead of committing part of a flush silently.
+     */
+    private class RelationshipGrid {
+        private final GraphDatabaseService db;
+        private final RelationshipWriter writer;
+        private final int partitions = clc.getConcurrency();
+        private final List<List<List<ResolvedRelationship>>> cells;
+        private int buffered;
+
+        RelationshipGrid(GraphDatabaseService db, RelationshipWriter writer) {
+            this.db = db;
+            this.writer = writer;
+            this.cells = new ArrayList<>(partitions);
+            for (int start = 0; start < partitions; start++) {
+                final List<List<ResolvedRelationship>> row = new ArrayList<>(partitions);
+                for (int end = 0; end < partitions; end++) row.add(new ArrayList<>());
+                cells.add(row);
+            }
+        }
+
+        void add(List<ResolvedRelationship> rows) {
+            for (ResolvedRelationship row : rows) {
+                cells.get(Math.floorMod(row.startId, partitions)).get(Math.floorMod(row.endId, partitions)).add(row);
+            }
+            buffered += rows.size();
+            if (buffered >= (long) clc.getBatchSize() * partitions) {
+                flush();
+            }
+        }
+
+        void flush() {
+            // the pairs of partitions {start, end} with the same (start + end) % partitions are disjoint,
+            // so the cells of a round can be written concurrently
+            for (int round = 0; round < partitions; round++) {
+                terminationGuard.check();
+                final List<FutureTask<Void>> futures = new ArrayList<>(partitions);
+                for (int start = 0; start < partitions; start++) {
+                    final int end = Math.floorMod(round - start, partitions);
+                    if (start > end) continue;
+                    final List<ResolvedRelationship> rows = cells.get(start).set(end, new ArrayList<>());
+                    if (start != end) {
+                        rows.addAll(cells.get(end).set(start, new ArrayList<>()));
+                    }
+                    if (rows.isEmpty()) continue;
+                    futures.add(fork(() -> {
+                        write(rows);
+                        return null;
+                    }));
+                }
+                await(futures);
+            }
+            buffered = 0;
+        }
+
+        private void write(List<ResolvedRelationship> cell) {
+            for (int from = 0; from < cell.size(); from += clc.getBatchSize()) {
+                // the worker transactions don't belong to the calling one, which can be terminated meanwhile
+                terminationGuard.check();
+                final List<ResolvedRelationship> batch = cell.subList(from, Math.min(cell.size(), from + clc.getBatchSize()));
+                long props = 0;
+                try (Transaction tx = db.beginTx()) {
+                    for (ResolvedRelationship row : batch) {
+                        props += writer.write(tx, row);
+                    }
+                    tx.commit();
+                }
+                synchronized (reporter) {
+                    reporter.update(0, batch.size(), props);
+                    reporter.progress("commit after " + batch.size() + " row(s) ");
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the file in batches of lines, which are parsed and converted by the executor's workers,
+     * while the current thread writes the batches already converted, in the order of the file.
+     * A termination of the calling transaction fails the import.
+     */
+    private <T> void runPipeline(Iterator<String[]> lines, Function<List<Line>, List<T>> parser, Consumer<List<T>> writer) {
+        final Deque<FutureTask<List<T>>> inFlight = new ArrayDeque<>();
+        long lineNo = 0;
+        try {
+            while (lines.hasNext()) {
+                terminationGuard.check();
+                final List<Line> batch = new ArrayList<>(clc.getBatchSize());
+                while (batch.size() < clc.getBatchSize() && lines.hasNext()) {
+                    batch.add(new Line(lines.next(), ++lineNo));
+                }
+                inFlight.add(fork(() -> parser.apply(batch)));
+                if (inFlight.size() > clc.getConcurrency()) {
+                    writer.accept(join(inFlight.poll()));
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                terminationGuard.check();
+                writer.accept(join(inFlight.poll()));
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            throw unwrap(e);
+        } finally {
+            inFlight.forEach(future -> future.cancel(true));
+        }
+    }
+
+    private <T> FutureTask<T> fork(Callable<T> task) {
+        final FutureTask<T> future = new FutureTask<>(task);
+        executor.execute(future);
+        return future;
+    }
+
+    /**
+     * The import itself usually runs in the executor, so a task not yet picked up by a worker
+     * is run by the current thread rather than waited for
+     */
+    private static <T> T join(FutureTask<T> future) throws InterruptedException, ExecutionException {
+        future.run();
+        return future.get();
+    }
+
+    private static void await(List<? extends FutureTask<?>> futures) {
+        try {
+            for (FutureTask<?> future : futures) {
+                join(future);
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            throw unwrap(e);
+        }
+    }
+
+    private static RuntimeException unwrap(Exception e) {
+        if (e instanceof ExecutionException && e.getCause() instanceof RuntimeException) {
+            return (RuntimeException) e.getCause();
+        }
+        return new RuntimeException("Error importing the CSV file: " + e.getMessage(), e);
+    }
+
+    private static List<ParsedLine> parse(List<Line> lines, String[] header, Map<String, Mapping> mapping) {
+        final EnumSet<Results> results = EnumSet.of(Results.map);
+        final List<ParsedLine> parsed = new ArrayList<>(lines.size());
+        for (Line line : lines) {
+            parsed.add(new ParsedLine(line.values, new CSVResult(header, line.values, line.lineNo, false, mapping, Collections.emptyList(), results)));
+        }
+        return parsed;
+    }
+
+    private record Line(String[] values, long lineNo) {}
+
+    private record ParsedLine(String[] line, CSVResult result) {}
+
+    private record ResolvedRelationship(long startId, long endId, CSVResult result) {}
+
     private Map<String, Mapping> getMapping(List<CsvHeaderField> fields) {
         return fields.stream().collect(
                 Collectors.toMap(
@@ -0,0 +1,287 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.export.csv;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maps the ids of the CSV files to the internal ids of the imported nodes, for each id space.
+ * Numeric ids are kept in primitive arrays, string ids in a table of offsets into large byte pages
+ * holding the id bytes, so that an imported node costs a few dozen bytes of heap
+ * instead of a HashMap entry with two Strings.
+ * Ids are matched as strings, as before: with numeric ids "01" and "1" are two different nodes.
+ */
+public class CsvIdMapping implements AutoCloseable {
+
+    public static final long NOT_FOUND = -1L;
+
+    private final boolean stringIds;
+    private final Map<String, IdSpace> idSpaces = new HashMap<>();
+
+    public CsvIdMapping(boolean stringIds) {
+        this.stringIds = stringIds;
+    }
+
+    public boolean contains(String idSpace, String csvId) {
+        return get(idSpace, csvId) != NOT_FOUND;
+    }
+
+    /**
+     * @return the internal id of the node with the given CSV id, or {@link #NOT_FOUND}
+     */
+    public long get(String idSpace, String csvId) {
+        IdSpace ids = idSpaces.get(idSpace);
+        return ids == null || csvId == null ? NOT_FOUND : ids.get(csvId);
+    }
+
+    public void put(String idSpace, String csvId, long nodeId) {
+        if (csvId == null) return;
+        idSpaces.computeIfAbsent(idSpace, k -> stringIds ? new StringIdSpace() : new NumericIdSpace()).put(csvId, nodeId);
+    }
+
+    @Override
+    public void close() {
+        idSpaces.values().forEach(IdSpace::close);
+        idSpaces.clear();
+    }
+
+    private interface IdSpace {
+        long get(String csvId);
+
+        void put(String csvId, long nodeId);
+
+        default void close() {}
+    }
+
+    /**
+     * Open addressing table with linear probing, a slot is free when its value is 0 (node ids are stored shifted by one)
+     */
+    private abstract static class OpenAddressingIdSpace implements IdSpace {
+        private static final int INITIAL_CAPACITY = 1 << 10;
+
+        protected long[] values = new long[INITIAL_CAPACITY];
+        private int size;
+
+        protected int mask() {
+            return values.length - 1;
+        }
+
+        protected static int spread(long hash) {
+            hash ^= hash >>> 33;
+            hash *= 0xff51afd7ed558ccdL;
+            hash ^= hash >>> 33;
+            return (int) hash;
+        }
+
+        protected void added() {
+            if (++size > values.length * 3L / 4) {
+                if (values.length == 1 << 30) throw new IllegalStateException("Too many ids in the same id space: " + size);
+                resize(values.length << 1);
+            }
+        }
+
+        protected abstract void resize(int capacity);
+    }
+
+    /**
+     * The ids written as a long, without sign or leading zeros, are stored as longs; the others, blank or
+     * non-numeric ones included, go to a string id space
+     */
+    private static class NumericIdSpace extends OpenAddressingIdSpace {
+        private static final String MAX_DIGITS = String.valueOf(Long.MAX_VALUE);
+        private static final String MIN_DIGITS = String.valueOf(Long.MIN_VALUE).substring(1);
+
+        private long[] keys = new long[values.length];
+        private StringIdSpace others;
+
+        @Override
+        public long get(String csvId) {
+            if (!isLong(csvId)) {
+                return others == null ? NOT_FOUND : others.get(csvId);
+            }
+            long key = Long.parseLong(csvId);
+            for (int slot = spread(key) & mask(); values[slot] != 0; slot = (slot + 1) & mask()) {
+                if (keys[slot] == key) return values[slot] - 1;
+            }
+            return NOT_FOUND;
+        }
+
+        @Override
+        public void put(String csvId, long nodeId) {
+            if (!isLong(csvId)) {
+                if (others == null) others = new StringIdSpace();
+                others.put(csvId, nodeId);
+                return;
+            }
+            long key = Long.parseLong(csvId);
+            int slot = spread(key) & mask();
+            for (; values[slot] != 0; slot = (slot + 1) & mask()) {
+                if (keys[slot] == key) {
+                    values[slot] = nodeId + 1;
+                    return;
+                }
+            }
+            keys[slot] = key;
+            values[slot] = nodeId + 1;
+            added();
+        }
+
+        @Override
+        protected void resize(int capacity) {
+            long[] oldKeys = keys;
+            long[] oldValues = values;
+            keys = new long[capacity];
+            values = new long[capacity];
+            for (int i = 0; i < oldValues.length; i++) {
+                if (oldValues[i] == 0) continue;
+                int slot = spread(oldKeys[i]) & mask();
+                while (values[slot] != 0) slot = (slot + 1) & mask();
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+
+        @Override
+        public void close() {
+            if (others != null) others.close();
+        }
+
+        /**
+         * Whether the id is the canonical representation of a long, so that parsing it is lossless
+         */
+        private static boolean isLong(String csvId) {
+            int start = csvId.startsWith("-") ? 1 : 0;
+            int digits = csvId.length() - start;
+            if (digits == 0 || digits > MAX_DIGITS.length()) return false;
+            if (csvId.charAt(start) == '0' && (digits > 1 || start == 1)) return false;
+            for (int i = start; i < csvId.length(); i++) {
+                char c = csvId.charAt(i);
+                if (c < '0' || c > '9') return false;
+            }
+            return digits < MAX_DIGITS.length() || csvId.substring(start).compareTo(start == 1 ? MIN_DIGITS : MAX_DIGITS) <= 0;
+        }
+    }
+
+    /**
+     * The table only keeps the hash of each id and its offset in the id pages, where the bytes of the ids are appended
+     */
+    private static class StringIdSpace extends OpenAddressingIdSpace {
+        private int[] hashes = new int[values.length];
+        private long[] offsets = new long[values.length];
+        private final IdPages idPages = new IdPages();
+
+        @Override
+        public long get(String csvId) {
+            byte[] key = csvId.getBytes(StandardCharsets.UTF_8);
+            int hash = Arrays.hashCode(key);
+            for (int slot = spread(hash) & mask(); values[slot] != 0; slot = (slot + 1) & mask()) {
+                if (hashes[slot] == hash && idPages.matches(offsets[slot], key)) return values[slot] - 1;
+            }
+            return NOT_FOUND;
+        }
+
+        @Override
+        public void put(String csvId, long nodeId) {
+            byte[] key = csvId.getBytes(StandardCharsets.UTF_8);
+            int hash = Arrays.hashCode(key);
+            int slot = spread(hash) & mask();
+            for (; values[slot] != 0; slot = (slot + 1) & mask()) {
+                if (hashes[slot] == hash && idPages.matches(offsets[slot], key)) {
+                    values[slot] = nodeId + 1;
+                    return;
+                }
+            }
+            hashes[slot] = hash;
+            offsets[slot] = idPages.append(key);
+            values[slot] = nodeId + 1;
+            added();
+        }
+
+        @Override
+        protected void resize(int capacity) {
+            int[] oldHashes = hashes;
+            long[] oldOffsets = offsets;
+            long[] oldValues = values;
+            hashes = new int[capacity];
+            offsets = new long[capacity];
+            values = new long[capacity];
+            for (int i = 0; i < oldValues.length; i++) {
+                if (oldValues[i] == 0) continue;
+                int slot = spread(oldHashes[i]) & mask();
+                while (values[slot] != 0) slot = (slot + 1) & mask();
+                hashes[slot] = oldHashes[i];
+                offsets[slot] = oldOffsets[i];
+                values[slot] = oldValues[i];
+            }
+        }
+
+        @Override
+        public void close() {
+            idPages.close();
+        }
+    }
+
+    /**
+     * Append-only pages of length-prefixed ids. Few large arrays rather than an object per id, and nothing
+     * left to release but the pages themselves when the import ends
+     */
+    private static class IdPages {
+        private static final int PAGE_SIZE = 1024 * 1024;
+
+        private final List<byte[]> pages = new ArrayList<>();
+        private long position;
+
+        long append(byte[] key) {
+            int length = Integer.BYTES + key.length;
+            if (length > PAGE_SIZE) throw new IllegalArgumentException("Id too long: " + key.length + " bytes");
+            // an id never spans two pages
+            if (position + length > (long) pages.size() * PAGE_SIZE) {
+                position = (long) pages.size() * PAGE_SIZE;
+                pages.add(new byte[PAGE_SIZE]);
+            }
+            long offset = position;
+            byte[] page = pages.get((int) (offset / PAGE_SIZE));
+            int index = (int) (offset % PAGE_SIZE);
+            page[index] = (byte) (key.length >>> 24);
+            page[index + 1] = (byte) (key.length >>> 16);
+            page[index + 2] = (byte) (key.length >>> 8);
+            page[index + 3] = (byte) key.length;
+            System.arraycopy(key, 0, page, index + Integer.BYTES, key.length);
+            position += length;
+            return offset;
+        }
+
+        boolean matches(long offset, byte[] key) {
+            byte[] page = pages.get((int) (offset / PAGE_SIZE));
+            int index = (int) (offset % PAGE_SIZE);
+            int length = (page[index] & 0xff) << 24 | (page[index + 1] & 0xff) << 16 | (page[index + 2] & 0xff) << 8 | (page[index + 3] & 0xff);
+            int from = index + Integer.BYTES;
+            return length == key.length && Arrays.equals(page, from, from + length, key, 0, key.length);
+        }
+
+        void close() {
+            pages.clear();
+        }
+    }
+}
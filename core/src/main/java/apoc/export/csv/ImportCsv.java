@@ -26,7 +26,6 @@ import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.logging.Log;
 import org.neo4j.procedure.*;
 
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Stream;
@@ -41,6 +40,9 @@ public class ImportCsv {
     @Context
     public Log log;
 
+    @Context
+    public TerminationGuard terminationGuard;
+
     @Procedure(name = "apoc.import.csv", mode = Mode.SCHEMA)
     @Description("Imports nodes and relationships with the given labels and types from the provided CSV file.")
     public Stream<ProgressInfo> importCsv(
@@ -59,19 +61,20 @@ public class ImportCsv {
                     }
                     final CsvLoaderConfig clc = CsvLoaderConfig.from(config);
                     final ProgressReporter reporter = new ProgressReporter(null, null, new ProgressInfo(file, source, "csv"));
-                    final CsvEntityLoader loader = new CsvEntityLoader(clc, reporter, log);
+                    final CsvEntityLoader loader = new CsvEntityLoader(clc, reporter, log, pools.getDefaultExecutorService(), terminationGuard);
 
-                    final Map<String, Map<String, String>> idMapping = new HashMap<>();
-                    for (Map<String, Object> node : nodes) {
-                        final Object data = node.getOrDefault("fileName", node.get("data"));
-                        final List<String> labels = (List<String>) node.get("labels");
-                        loader.loadNodes(data, labels, db, idMapping);
-                    }
+                    try (final CsvIdMapping idMapping = new CsvIdMapping(clc.getStringIds())) {
+                        for (Map<String, Object> node : nodes) {
+                            final Object data = node.getOrDefault("fileName", node.get("data"));
+                            final List<String> labels = (List<String>) node.get("labels");
+                            loader.loadNodes(data, labels, db, idMapping);
+                        }
 
-                    for (Map<String, Object> relationship : relationships) {
-                        final Object fileName = relationship.getOrDefault("fileName", relationship.get("data"));
-                        final String type = (String) relationship.get("type");
-                        loader.loadRelationships(fileName, type, db, idMapping);
+                        for (Map<String, Object> relationship : relationships) {
+                            final Object fileName = relationship.getOrDefault("fileName", relationship.get("data"));
+                            final String type = (String) relationship.get("type");
+                            loader.loadRelationships(fileName, type, db, idMapping);
+                        }
                     }
 
                     return reporter.getTotal();
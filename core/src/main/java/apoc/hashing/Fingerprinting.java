@@ -18,37 +18,61 @@
  */
 package apoc.hashing;
 
+import apoc.Pools;
 import apoc.util.Util;
+import apoc.util.kernel.MultiThreadedGlobalGraphOperations;
 import org.neo4j.graphdb.Direction;
 import org.neo4j.graphdb.Entity;
+import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Label;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Path;
 import org.neo4j.graphdb.Relationship;
 import org.neo4j.graphdb.Transaction;
+import org.neo4j.kernel.impl.core.NodeEntity;
+import org.neo4j.kernel.impl.coreapi.InternalTransaction;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
 import org.neo4j.logging.Log;
 import org.neo4j.procedure.Context;
 import org.neo4j.procedure.Description;
 import org.neo4j.procedure.Name;
+import org.neo4j.procedure.TerminationGuard;
 import org.neo4j.procedure.UserFunction;
 
+import java.nio.ByteBuffer;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Formatter;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
 public class Fingerprinting {
 
+    private static final int BATCHSIZE = 10000;
+
     @Context
     public Transaction tx;
 
+    @Context
+    public GraphDatabaseService db;
+
+    @Context
+    public Pools pools;
+
+    @Context
+    public TerminationGuard terminationGuard;
+
     @Context
     public Log log;
 
@@ -121,11 +145,19 @@ public class Fingerprinting {
     @UserFunction("apoc.hashing.fingerprintGraph")
     @Description("Calculates a MD5 checksum over the full graph.\n" +
             "This function uses in-memory data structures.\n" +
+            "With `{parallel: true}`, the committed graph is hashed by a parallel partitioned scan with bounded memory, which gives a different checksum.\n" +
             "Unsuitable for cryptographic use-cases.")
-    public String fingerprintGraph(@Name(value = "propertyExcludes", defaultValue = "[]") List<String> excludedPropertyKeys) {
+    public String fingerprintGraph(@Name(value = "propertyExcludes", defaultValue = "[]") List<String> excludedPropertyKeys,
+                                   @Name(value = "config", defaultValue = "{}") Map<String, Object> conf) {
         FingerprintingConfig config = new FingerprintingConfig(Util.map("allNodesDisallowList", excludedPropertyKeys,
                 "allRelsDisallowList", excludedPropertyKeys, "mapDisallowList", excludedPropertyKeys,
                 "strategy", FingerprintingConfig.FingerprintStrategy.EAGER.toString()));
+        if (conf == null) conf = Collections.emptyMap();
+        if (Util.toBoolean(conf.get("parallel"))) {
+            return fingerprintGraphParallel(config,
+                    Util.toInteger(conf.getOrDefault("batchSize", BATCHSIZE)),
+                    Util.toInteger(conf.getOrDefault("concurrency", MultiThreadedGlobalGraphOperations.DEFAULT_CONCURRENCY)));
+        }
         return withMessageDigest(config, messageDigest -> {
             // step 1: load all nodes, calc their hash and map them to id
             Map<Long, String> idToNodeHash = tx.getAllNodes().stream().collect(Collectors.toMap(
@@ -163,6 +195,198 @@ public class Fingerprinting {
         });
     }
 
+    /**
+     * Every node contributes the digest of its own digest followed by the sorted digests of its outgoing relationships.
+     * The contributions are added modulo 2^digestBits, which does not depend on the order of the nodes,
+     * so the partitions can be hashed in parallel without sorting all the digests
+     */
+    private String fingerprintGraphParallel(FingerprintingConfig config, int batchSize, int concurrency) {
+        final int digestLength = digestLength(config);
+        final ExecutorService executor = pools.getDefaultExecutorService();
+
+        // step 1: the raw digests of all the nodes, merged into a single array sorted by id
+        final NodeDigests nodeDigests = MultiThreadedGlobalGraphOperations.forAllNodes((GraphDatabaseAPI) db, executor, terminationGuard, batchSize, concurrency,
+                ktx -> new NodeDigests(ktx.internalTransaction(), digestLength),
+                (digests, nodeCursor) -> {
+                    final long id = nodeCursor.nodeReference();
+                    final Node node = digests.tx.newNodeEntity(id);
+                    digests.add(id, digest(config, md -> fingerprintNode(md, node, config)));
+                },
+                NodeDigests::merge).getValue();
+        if (nodeDigests != null) nodeDigests.sort();
+
+        // step 2: the contributions of the nodes with their outgoing relationships, summed per worker
+        final Function<Node, byte[]> nodeDigest = node -> {
+            byte[] digest = nodeDigests == null ? null : nodeDigests.get(((NodeEntity) node).getId());
+            // a node created after the first step
+            return digest != null ? digest : digest(config, md -> fingerprintNode(md, node, config));
+        };
+        final GraphDigest graphDigest = MultiThreadedGlobalGraphOperations.forAllNodes((GraphDatabaseAPI) db, executor, terminationGuard, batchSize, concurrency,
+                ktx -> new GraphDigest(ktx.internalTransaction(), digestLength),
+                (sum, nodeCursor) -> {
+                    final Node node = sum.tx.newNodeEntity(nodeCursor.nodeReference());
+                    final List<byte[]> relationshipDigests = new ArrayList<>();
+                    for (Relationship rel : node.getRelationships(Direction.OUTGOING)) {
+                        relationshipDigests.add(digest(config, md -> fingerprintRelationship(md, rel, config, nodeDigest)));
+                    }
+                    relationshipDigests.sort(Arrays::compareUnsigned);
+                    sum.add(digest(config, md -> {
+                        md.update(nodeDigest.apply(node));
+                        relationshipDigests.forEach(md::update);
+                    }));
+                },
+                GraphDigest::merge).getValue();
+
+        final GraphDigest result = graphDigest == null ? new GraphDigest(null, digestLength) : graphDigest;
+        return renderAsHex(digest(config, md -> {
+            md.update(ByteBuffer.allocate(Long.BYTES).putLong(result.count).array());
+            md.update(result.sum);
+        }));
+    }
+
+    /**
+     * The node digests of a scan worker, as runs of ascending ids with their digests in a flat byte array.
+     * Once all the workers are merged, {@link #sort()} merges the runs into a single run for the lookups
+     */
+    private static class NodeDigests implements AutoCloseable {
+        private InternalTransaction tx;
+        private final int digestLength;
+        private final List<Run> runs = new ArrayList<>();
+        private Run current;
+
+        NodeDigests(InternalTransaction tx, int digestLength) {
+            this.tx = tx;
+            this.digestLength = digestLength;
+        }
+
+        void add(long id, byte[] digest) {
+            if (current == null || (current.size > 0 && id <= current.ids[current.size - 1])) {
+                current = new Run(digestLength);
+                runs.add(current);
+            }
+            current.add(id, digest);
+        }
+
+        byte[] get(long id) {
+            return runs.isEmpty() ? null : runs.get(0).get(id);
+        }
+
+        NodeDigests merge(NodeDigests other) {
+            runs.addAll(other.runs);
+            return this;
+        }
+
+        void sort() {
+            if (runs.size() <= 1) return;
+            final int total = runs.stream().mapToInt(run -> run.size).sum();
+            final Run sorted = new Run(digestLength, total);
+            // k-way merge of the runs, each one is already sorted by id
+            final PriorityQueue<int[]> heads = new PriorityQueue<>(runs.size(),
+                    Comparator.comparingLong(head -> runs.get(head[0]).ids[head[1]]));
+            for (int i = 0; i < runs.size(); i++) {
+                if (runs.get(i).size > 0) heads.add(new int[] {i, 0});
+            }
+            while (!heads.isEmpty()) {
+                final int[] head = heads.poll();
+                final Run run = runs.get(head[0]);
+                sorted.add(run, head[1]);
+                if (++head[1] < run.size) heads.add(head);
+            }
+            runs.clear();
+            runs.add(sorted);
+            current = null;
+        }
+
+        @Override
+        public void close() {
+            tx = null;
+            runs.forEach(Run::trim);
+        }
+
+        private static class Run {
+            private final int digestLength;
+            private long[] ids;
+            private byte[] digests;
+            private int size;
+
+            Run(int digestLength) {
+                this(digestLength, 1024);
+            }
+
+            Run(int digestLength, int capacity) {
+                this.digestLength = digestLength;
+                this.ids = new long[capacity];
+                this.digests = new byte[capacity * digestLength];
+            }
+
+            void add(long id, byte[] digest) {
+                if (size == ids.length) {
+                    ids = Arrays.copyOf(ids, size + (size >> 1));
+                    digests = Arrays.copyOf(digests, ids.length * digestLength);
+                }
+                ids[size] = id;
+                System.arraycopy(digest, 0, digests, size * digestLength, digestLength);
+                size++;
+            }
+
+            void add(Run other, int index) {
+                ids[size] = other.ids[index];
+                System.arraycopy(other.digests, index * digestLength, digests, size * digestLength, digestLength);
+                size++;
+            }
+
+            byte[] get(long id) {
+                if (size == 0 || id < ids[0] || id > ids[size - 1]) return null;
+                int index = Arrays.binarySearch(ids, 0, size, id);
+                return index < 0 ? null : Arrays.copyOfRange(digests, index * digestLength, (index + 1) * digestLength);
+            }
+
+            void trim() {
+                ids = Arrays.copyOf(ids, size);
+                digests = Arrays.copyOf(digests, size * digestLength);
+            }
+        }
+    }
+
+    /**
+     * The sum modulo 2^digestBits of the digests added by a scan worker, and their count
+     */
+    private static class GraphDigest implements AutoCloseable {
+        private InternalTransaction tx;
+        private final byte[] sum;
+        private long count;
+
+        GraphDigest(InternalTransaction tx, int digestLength) {
+            this.tx = tx;
+            this.sum = new byte[digestLength];
+        }
+
+        void add(byte[] digest) {
+            addToSum(digest);
+            count++;
+        }
+
+        GraphDigest merge(GraphDigest other) {
+            addToSum(other.sum);
+            count += other.count;
+            return this;
+        }
+
+        private void addToSum(byte[] value) {
+            int carry = 0;
+            for (int i = sum.length - 1; i >= 0; i--) {
+                int digit = (sum[i] & 0xFF) + (value[i] & 0xFF) + carry;
+                sum[i] = (byte) digit;
+                carry = digit >>> 8;
+            }
+        }
+
+        @Override
+        public void close() {
+            tx = null;
+        }
+    }
+
     private static class EndNodeRelationshipHashTuple implements Comparable {
         private final String endNodeHash;
         private final String relationshipHash;
@@ -245,17 +469,21 @@ public class Fingerprinting {
     }
 
     private void fingerprintRelationship(DiagnosingMessageDigestDecorator md, Relationship rel, FingerprintingConfig config) {
+        fingerprintRelationship(md, rel, config, node -> fingerprint(node, config).getBytes());
+    }
+
+    private void fingerprintRelationship(DiagnosingMessageDigestDecorator md, Relationship rel, FingerprintingConfig config, Function<Node, byte[]> nodeFingerprint) {
         switch (config.getStrategy()) {
             case EAGER:
                 md.update(rel.getType().name().getBytes());
-                md.update(fingerprint(rel.getStartNode(), config).getBytes());
-                md.update(fingerprint(rel.getEndNode(), config).getBytes());
+                md.update(nodeFingerprint.apply(rel.getStartNode()));
+                md.update(nodeFingerprint.apply(rel.getEndNode()));
                 break;
             case LAZY:
                 if (config.getAllTypes().contains(rel.getType().name())) {
                     md.update(rel.getType().name().getBytes());
-                    md.update(fingerprint(rel.getStartNode(), config).getBytes());
-                    md.update(fingerprint(rel.getEndNode(), config).getBytes());
+                    md.update(nodeFingerprint.apply(rel.getStartNode()));
+                    md.update(nodeFingerprint.apply(rel.getEndNode()));
                 }
         }
 
@@ -295,11 +523,22 @@ public class Fingerprinting {
     }
 
     private String withMessageDigest(FingerprintingConfig conf, Consumer<DiagnosingMessageDigestDecorator> consumer) {
+        return renderAsHex(digest(conf, consumer));
+    }
+
+    private byte[] digest(FingerprintingConfig conf, Consumer<DiagnosingMessageDigestDecorator> consumer) {
+        MessageDigest md = messageDigest(conf);
+        consumer.accept(new DiagnosingMessageDigestDecorator(md));
+        return md.digest();
+    }
+
+    private static int digestLength(FingerprintingConfig conf) {
+        return messageDigest(conf).getDigestLength();
+    }
+
+    private static MessageDigest messageDigest(FingerprintingConfig conf) {
         try {
-            MessageDigest md = MessageDigest.getInstance(conf.getDigestAlgorithm());
-            DiagnosingMessageDigestDecorator dmd = new DiagnosingMessageDigestDecorator(md);
-            consumer.accept(dmd);
-            return renderAsHex(md.digest());
+            return MessageDigest.getInstance(conf.getDigestAlgorithm());
         } catch (NoSuchAlgorithmException e) {
             throw new RuntimeException(e);
         }
@@ -23,9 +23,12 @@ import apoc.util.FileUtils;
 import apoc.util.JsonUtil;
 import apoc.util.Util;
 import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BigIntVector;
 import org.apache.arrow.vector.BitVector;
 import org.apache.arrow.vector.DateMilliVector;
 import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.VarCharVector;
 import org.apache.arrow.vector.VectorSchemaRoot;
 import org.apache.arrow.vector.ipc.ArrowFileReader;
 import org.apache.arrow.vector.ipc.ArrowReader;
@@ -39,49 +42,83 @@ import org.neo4j.values.storable.Values;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Spliterator;
 import java.util.Spliterators;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
+import java.util.function.IntFunction;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 public class LoadArrow {
 
-    private static class ArrowSpliterator extends Spliterators.AbstractSpliterator<MapResult> {
+    public static class BatchResult {
+        public final long batch;
+        public final long count;
+        public final Map<String, Object> value;
 
-        private final ArrowReader reader;
-        private final VectorSchemaRoot schemaRoot;
-        private final AtomicInteger counter;
+        public BatchResult(long batch, long count, Map<String, Object> value) {
+            this.batch = batch;
+            this.count = count;
+            this.value = value;
+        }
+    }
 
-        public ArrowSpliterator(ArrowReader reader, VectorSchemaRoot schemaRoot) throws IOException {
+    private abstract static class RecordBatchSpliterator<T> extends Spliterators.AbstractSpliterator<T> {
+
+        protected final ArrowReader reader;
+        protected final VectorSchemaRoot schemaRoot;
+        // the reader loads every batch into the same vectors, so the column readers are resolved once
+        protected final String[] names;
+        protected final List<IntFunction<Object>> readers;
+
+        RecordBatchSpliterator(ArrowReader reader, VectorSchemaRoot schemaRoot) {
             super(Long.MAX_VALUE, Spliterator.ORDERED);
             this.reader = reader;
             this.schemaRoot = schemaRoot;
-            this.counter = new AtomicInteger();
+            final List<FieldVector> vectors = schemaRoot.getFieldVectors();
+            this.names = new String[vectors.size()];
+            this.readers = new ArrayList<>(vectors.size());
+            for (int i = 0; i < vectors.size(); i++) {
+                names[i] = vectors.get(i).getName();
+                readers.add(reader(vectors.get(i)));
+            }
+        }
+    }
+
+    private static class ArrowSpliterator extends RecordBatchSpliterator<MapResult> {
+
+        private int index;
+
+        public ArrowSpliterator(ArrowReader reader, VectorSchemaRoot schemaRoot) throws IOException {
+            super(reader, schemaRoot);
             this.reader.loadNextBatch();
         }
 
         @Override
-        public synchronized boolean tryAdvance(Consumer<? super MapResult> action) {
+        public boolean tryAdvance(Consumer<? super MapResult> action) {
             try {
-                if (counter.get() >= schemaRoot.getRowCount()) {
+                while (index >= schemaRoot.getRowCount()) {
                     if (reader.loadNextBatch()) {
-                        counter.set(0);
+                        index = 0;
                     } else {
                         return false;
                     }
                 }
-                final Map<String, Object> row = schemaRoot.getFieldVectors()
-                        .stream()
-                        .collect(HashMap::new, (map, fieldVector) -> map.put(fieldVector.getName(), read(fieldVector, counter.get())), HashMap::putAll); // please look at https://bugs.openjdk.java.net/browse/JDK-8148463
-                counter.incrementAndGet();
+                final Map<String, Object> row = new HashMap<>((int) (names.length / 0.75f) + 1);
+                for (int i = 0; i < names.length; i++) {
+                    row.put(names[i], readers.get(i).apply(index));
+                }
+                index++;
                 action.accept(new MapResult(row));
                 return true;
             } catch (Exception e) {
@@ -91,6 +128,37 @@ public class LoadArrow {
         }
     }
 
+    private static class ArrowBatchSpliterator extends RecordBatchSpliterator<BatchResult> {
+
+        private long batch;
+
+        public ArrowBatchSpliterator(ArrowReader reader, VectorSchemaRoot schemaRoot) {
+            super(reader, schemaRoot);
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super BatchResult> action) {
+            try {
+                if (!reader.loadNextBatch()) {
+                    return false;
+                }
+                final int count = schemaRoot.getRowCount();
+                final Map<String, Object> columns = new HashMap<>((int) (names.length / 0.75f) + 1);
+                for (int i = 0; i < names.length; i++) {
+                    final Object[] column = new Object[count];
+                    for (int j = 0; j < count; j++) {
+                        column[j] = readers.get(i).apply(j);
+                    }
+                    columns.put(names[i], Arrays.asList(column));
+                }
+                action.accept(new BatchResult(batch++, count, columns));
+                return true;
+            } catch (Exception e) {
+                return false;
+            }
+        }
+    }
+
     @Procedure(name = "apoc.load.arrow.stream")
     @Description("Imports nodes and relationships from the provided arrow byte array.")
     public Stream<MapResult> stream(
@@ -128,19 +196,59 @@ public class LoadArrow {
                 });
     }
 
-    private static Object read(FieldVector fieldVector, int index) {
-        if (fieldVector.isNull(index)) {
-            return null;
-        } else if (fieldVector instanceof DateMilliVector) {
-            DateMilliVector fe = (DateMilliVector) fieldVector;
-            return Instant.ofEpochMilli(fe.get(index)).atOffset(ZoneOffset.UTC);
-        } else if (fieldVector instanceof BitVector) {
-            BitVector fe = (BitVector) fieldVector;
-            return fe.get(index) == 1;
+    @Procedure(name = "apoc.load.arrow.stream.batches")
+    @Description("Imports the record batches of the provided arrow byte array, one row per batch with a list of values per column.")
+    public Stream<BatchResult> streamBatches(
+            @Name("source") byte[] source,
+            @Name(value = "config", defaultValue = "{}") Map<String, Object> config) throws IOException {
+        RootAllocator allocator = new RootAllocator();
+        ByteArrayInputStream inputStream = new ByteArrayInputStream(source);
+        ArrowStreamReader streamReader = new ArrowStreamReader(inputStream, allocator);
+        VectorSchemaRoot schemaRoot = streamReader.getVectorSchemaRoot();
+        return StreamSupport.stream(new ArrowBatchSpliterator(streamReader, schemaRoot), false)
+                .onClose(() -> {
+                    Util.close(allocator);
+                    Util.close(streamReader);
+                    Util.close(schemaRoot);
+                    Util.close(inputStream);
+                });
+    }
+
+    @Procedure(name = "apoc.load.arrow.batches")
+    @Description("Imports the record batches of the provided arrow file, one row per batch with a list of values per column.")
+    public Stream<BatchResult> fileBatches(
+            @Name("file") String fileName,
+            @Name(value = "config", defaultValue = "{}") Map<String, Object> config) throws IOException {
+        final SeekableByteChannel channel = FileUtils.inputStreamFor(fileName, null, null, null)
+                .asChannel();
+        RootAllocator allocator = new RootAllocator();
+        ArrowFileReader streamReader = new ArrowFileReader(channel, allocator);
+        VectorSchemaRoot schemaRoot = streamReader.getVectorSchemaRoot();
+        return StreamSupport.stream(new ArrowBatchSpliterator(streamReader, schemaRoot), false)
+                .onClose(() -> {
+                    Util.close(allocator);
+                    Util.close(streamReader);
+                    Util.close(schemaRoot);
+                    Util.close(channel);
+                });
+    }
+
+    private static IntFunction<Object> reader(FieldVector fieldVector) {
+        final IntFunction<Object> reader;
+        if (fieldVector instanceof DateMilliVector vector) {
+            reader = index -> Instant.ofEpochMilli(vector.get(index)).atOffset(ZoneOffset.UTC);
+        } else if (fieldVector instanceof BitVector vector) {
+            reader = index -> vector.get(index) == 1;
+        } else if (fieldVector instanceof BigIntVector vector) {
+            reader = vector::get;
+        } else if (fieldVector instanceof Float8Vector vector) {
+            reader = vector::get;
+        } else if (fieldVector instanceof VarCharVector vector) {
+            reader = index -> new String(vector.get(index), StandardCharsets.UTF_8);
         } else {
-            Object object = fieldVector.getObject(index);
-            return getObject(object);
+            reader = index -> getObject(fieldVector.getObject(index));
         }
+        return index -> fieldVector.isNull(index) ? null : reader.apply(index);
     }
 
     private static Object getObject(Object object) {
@@ -22,6 +22,7 @@ import apoc.result.MapResult;
 import apoc.result.ObjectResult;
 import apoc.util.CompressionAlgo;
 import apoc.util.JsonUtil;
+import apoc.util.Util;
 import org.neo4j.procedure.Context;
 import org.neo4j.procedure.Description;
 import org.neo4j.procedure.Name;
@@ -58,7 +59,8 @@ public class LoadJson {
 
     @Procedure("apoc.load.json")
     @Description("Imports JSON file as a stream of values if the given JSON file is an array.\n" +
-            "If the given JSON file is a map, this procedure imports a single value instead.")
+            "If the given JSON file is a map, this procedure imports a single value instead.\n" +
+            "With `stream: true` and a path like `$.items[*]`, the elements of the array are read one at a time.")
     public Stream<MapResult> json(@Name("urlOrKeyOrBinary") Object urlOrKeyOrBinary, @Name(value = "path",defaultValue = "") String path, @Name(value = "config",defaultValue = "{}") Map<String, Object> config) {
         return jsonParams(urlOrKeyOrBinary,null,null, path, config);
     }
@@ -72,7 +74,8 @@ public class LoadJson {
         boolean failOnError = (boolean) config.getOrDefault("failOnError", true);
         String compressionAlgo = (String) config.getOrDefault(COMPRESSION, CompressionAlgo.NONE.name());
         List<String> pathOptions = (List<String>) config.get("pathOptions");
-        return loadJsonStream(urlOrKeyOrBinary, headers, payload, path, failOnError, compressionAlgo, pathOptions, terminationGuard);
+        boolean stream = Util.toBoolean(config.get("stream"));
+        return loadJsonStream(urlOrKeyOrBinary, headers, payload, path, failOnError, compressionAlgo, pathOptions, terminationGuard, stream);
     }
 
 }
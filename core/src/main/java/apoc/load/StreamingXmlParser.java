@@ -0,0 +1,321 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.load;
+
+import apoc.result.MapResult;
+import org.apache.commons.lang3.StringUtils;
+import org.neo4j.procedure.TerminationGuard;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Evaluates a subset of XPath while reading the document with StAX, so that only the matched element
+ * being built is held in memory.
+ * Supported are absolute and relative child paths, the descendant axis (`//`), the `*` wildcard
+ * and attribute predicates (`[@id]`, `[@id='bk101']`). Names are matched by their local part.
+ * Elements matching the path inside an element already matched are returned only as part of it.
+ */
+class StreamingXmlParser implements Iterator<MapResult> {
+
+    private static final Pattern STEP = Pattern.compile("^(\\*|[\\w.\\-]+(?::[\\w.\\-]+)?)((?:\\[[^\\]]*\\])*)$");
+    private static final Pattern PREDICATE = Pattern.compile("^@([\\w.\\-:]+)(?:\\s*=\\s*(['\"])(.*)\\2)?$");
+
+    private final XMLStreamReader xml;
+    private final InputStream data;
+    private final List<Step> steps;
+    private final boolean simpleMode;
+    private final boolean failOnError;
+    private final TerminationGuard terminationGuard;
+
+    // the ancestors of the current element, used to evaluate the path
+    private final List<Element> path = new ArrayList<>();
+    // the elements of the current match, being built
+    private final Deque<Frame> frames = new ArrayDeque<>();
+    private MapResult next;
+    private boolean done;
+
+    private StreamingXmlParser(XMLInputFactory factory, InputStream data, List<Step> steps, boolean simpleMode, boolean failOnError, TerminationGuard terminationGuard) throws XMLStreamException {
+        this.xml = factory.createXMLStreamReader(data);
+        this.data = data;
+        this.steps = steps;
+        this.simpleMode = simpleMode;
+        this.failOnError = failOnError;
+        this.terminationGuard = terminationGuard;
+    }
+
+    static Stream<MapResult> stream(XMLInputFactory factory, InputStream data, String path, boolean simpleMode, boolean failOnError, TerminationGuard terminationGuard) throws XMLStreamException {
+        final List<Step> steps = compile(path);
+        final StreamingXmlParser parser = new StreamingXmlParser(factory, data, steps, simpleMode, failOnError, terminationGuard);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(parser, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(parser::close);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null && !done) {
+            next = advance();
+        }
+        return next != null;
+    }
+
+    @Override
+    public MapResult next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        final MapResult result = next;
+        next = null;
+        return result;
+    }
+
+    private MapResult advance() {
+        try {
+            while (xml.hasNext()) {
+                switch (xml.next()) {
+                    case XMLStreamConstants.DTD:
+                        throw new XMLStreamException(Xml.DOCTYPE_NOT_ALLOWED);
+                    case XMLStreamConstants.START_ELEMENT:
+                        terminationGuard.check();
+                        startElement();
+                        break;
+                    case XMLStreamConstants.CHARACTERS:
+                    case XMLStreamConstants.CDATA:
+                    case XMLStreamConstants.SPACE:
+                        if (!frames.isEmpty()) {
+                            Xml.addText(Xml.normalizeText(xml.getText()), frames.peekLast().map);
+                        }
+                        break;
+                    case XMLStreamConstants.END_ELEMENT:
+                        final Map<String, Object> matched = endElement();
+                        if (matched != null) {
+                            return new MapResult(matched);
+                        }
+                        break;
+                    default:
+                        break;
+                }
+            }
+        } catch (XMLStreamException e) {
+            if (failOnError) {
+                throw Xml.DOCTYPE_NOT_ALLOWED.equals(e.getMessage())
+                        ? new RuntimeException(Xml.DOCTYPE_NOT_ALLOWED)
+                        : new RuntimeException("Error parsing the XML document: " + e.getMessage(), e);
+            }
+            done = true;
+            return new MapResult(Collections.emptyMap());
+        }
+        done = true;
+        return null;
+    }
+
+    private void startElement() {
+        final String name = xml.getLocalName();
+        if (!frames.isEmpty()) {
+            frames.addLast(new Frame(name, attributes()));
+            return;
+        }
+        final Element element = new Element(name, steps.stream().anyMatch(step -> !step.predicates.isEmpty()) ? attributes() : Collections.emptyMap());
+        path.add(element);
+        if (matches(0, 0)) {
+            frames.addLast(new Frame(name, element.attributes.isEmpty() ? attributes() : element.attributes));
+        }
+    }
+
+    /**
+     * @return the map of the matched element, once it has been fully read
+     */
+    private Map<String, Object> endElement() {
+        if (frames.isEmpty()) {
+            path.remove(path.size() - 1);
+            return null;
+        }
+        final Frame frame = frames.pollLast();
+        final Map<String, Object> elementMap = frame.map;
+        if (!frame.children.isEmpty()) {
+            // as for the DOM: mixed text goes after the children
+            Object text = elementMap.get("_text");
+            if (text instanceof List) {
+                frame.children.addAll((List<?>) text);
+                elementMap.remove("_text");
+            }
+            elementMap.put(simpleMode ? "_" + frame.name : "_children", frame.children);
+        }
+        if (!frames.isEmpty()) {
+            frames.peekLast().children.add(elementMap);
+            return null;
+        }
+        path.remove(path.size() - 1);
+        return elementMap;
+    }
+
+    /**
+     * The attributes of the current element, namespace declarations included, sorted by name as the DOM does
+     */
+    private Map<String, String> attributes() {
+        final Map<String, String> attributes = new TreeMap<>();
+        for (int i = 0; i < xml.getNamespaceCount(); i++) {
+            final String prefix = xml.getNamespacePrefix(i);
+            attributes.put(StringUtils.isEmpty(prefix) ? "xmlns" : "xmlns:" + prefix, xml.getNamespaceURI(i));
+        }
+        for (int i = 0; i < xml.getAttributeCount(); i++) {
+            final String prefix = xml.getAttributePrefix(i);
+            final String localName = xml.getAttributeLocalName(i);
+            attributes.put(StringUtils.isEmpty(prefix) ? localName : prefix + ":" + localName, xml.getAttributeValue(i));
+        }
+        return attributes;
+    }
+
+    /**
+     * @return true if the steps from {@code step} on match the elements of the path from {@code depth} on
+     */
+    private boolean matches(int step, int depth) {
+        if (steps.isEmpty()) {
+            // the document itself, which is returned as its root element
+            return path.size() == 1;
+        }
+        if (step == steps.size()) {
+            return depth == path.size();
+        }
+        final Step current = steps.get(step);
+        if (current.descendant) {
+            for (int i = depth; i < path.size(); i++) {
+                if (current.test(path.get(i)) && matches(step + 1, i + 1)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return depth < path.size() && current.test(path.get(depth)) && matches(step + 1, depth + 1);
+    }
+
+    private void close() {
+        try {
+            xml.close();
+        } catch (XMLStreamException e) {
+            // ignore
+        }
+        try {
+            data.close();
+        } catch (IOException e) {
+            // ignore
+        }
+    }
+
+    static List<Step> compile(String path) {
+        final String expression = StringUtils.isBlank(path) ? "/" : path.trim();
+        final List<Step> steps = new ArrayList<>();
+        if (expression.equals("/")) {
+            return steps;
+        }
+        int index = 0;
+        while (index < expression.length()) {
+            boolean descendant = false;
+            if (expression.startsWith("//", index)) {
+                descendant = true;
+                index += 2;
+            } else if (expression.charAt(index) == '/') {
+                index++;
+            }
+            final int end = nextSeparator(expression, index);
+            if (end == index) throw unsupported(path);
+            steps.add(Step.of(expression.substring(index, end), descendant, path));
+            index = end;
+        }
+        return steps;
+    }
+
+    private static int nextSeparator(String expression, int from) {
+        boolean inPredicate = false;
+        for (int i = from; i < expression.length(); i++) {
+            final char c = expression.charAt(i);
+            if (c == '[') inPredicate = true;
+            else if (c == ']') inPredicate = false;
+            else if (c == '/' && !inPredicate) return i;
+        }
+        return expression.length();
+    }
+
+    private static IllegalArgumentException unsupported(String path) {
+        return new IllegalArgumentException("The path `" + path + "` is not supported in stream mode, " +
+                "only child and descendant steps with attribute predicates are");
+    }
+
+    private record Element(String name, Map<String, String> attributes) {}
+
+    private record Predicate(String attribute, String value) {
+        boolean test(Element element) {
+            final String actual = element.attributes.get(attribute);
+            return actual != null && (value == null || value.equals(actual));
+        }
+    }
+
+    private record Step(String name, List<Predicate> predicates, boolean descendant) {
+        static Step of(String expression, boolean descendant, String path) {
+            final Matcher matcher = STEP.matcher(expression);
+            if (!matcher.matches()) throw unsupported(path);
+            final String name = StringUtils.substringAfter(matcher.group(1), ":");
+            final List<Predicate> predicates = new ArrayList<>();
+            final String allPredicates = matcher.group(2);
+            int start = allPredicates.indexOf('[');
+            while (start >= 0) {
+                final int end = allPredicates.indexOf(']', start);
+                final Matcher predicate = PREDICATE.matcher(allPredicates.substring(start + 1, end).trim());
+                if (!predicate.matches()) throw unsupported(path);
+                predicates.add(new Predicate(predicate.group(1), predicate.group(3)));
+                start = allPredicates.indexOf('[', end);
+            }
+            return new Step(name.isEmpty() ? matcher.group(1) : name, predicates, descendant);
+        }
+
+        boolean test(Element element) {
+            return ("*".equals(name) || name.equals(element.name)) && predicates.stream().allMatch(p -> p.test(element));
+        }
+    }
+
+    private static class Frame {
+        private final String name;
+        private final Map<String, Object> map = new LinkedHashMap<>();
+        private final List<Object> children = new ArrayList<>();
+
+        Frame(String name, Map<String, String> attributes) {
+            this.name = name;
+            map.put("_type", name);
+            map.putAll(attributes);
+        }
+    }
+}
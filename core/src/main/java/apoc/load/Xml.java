@@ -26,6 +26,7 @@ import apoc.result.NodeResult;
 import apoc.util.CompressionAlgo;
 import apoc.util.CompressionConfig;
 import apoc.util.FileUtils;
+import apoc.util.Util;
 import org.apache.commons.lang3.BooleanUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.neo4j.graphdb.Label;
@@ -85,6 +86,8 @@ import static apoc.util.Util.getStreamConnection;
 
 public class Xml {
 
+    static final String DOCTYPE_NOT_ALLOWED = "XML documents with a DOCTYPE are not allowed.";
+
     private static final XMLInputFactory FACTORY = XMLInputFactory.newFactory();
     static {
         FACTORY.setProperty(XMLInputFactory.IS_COALESCING, true);
@@ -105,7 +108,9 @@ public class Xml {
     public TerminationGuard terminationGuard;
 
     @Procedure("apoc.load.xml")
-    @Description("Loads a single nested map from an XML URL (e.g. web-API).")
+    @Description("Loads a single nested map from an XML URL (e.g. web-API).\n" +
+            "With `stream: true` the XML is parsed incrementally and each element matching the path is returned while parsing, " +
+            "supporting child and descendant steps with attribute predicates.")
     public Stream<MapResult> xml(@Name("urlOrBinary") Object urlOrBinary, @Name(value = "path", defaultValue = "/") String path, @Name(value = "config",defaultValue = "{}") Map<String, Object> config, @Name(value = "simple", defaultValue = "false") boolean simpleMode) throws Exception {
         return xmlXpathToMapResult(urlOrBinary, simpleMode, path ,config);
     }
@@ -124,7 +129,15 @@ public class Xml {
         boolean failOnError = (boolean) config.getOrDefault("failOnError", true);
         try {
             Map<String, Object> headers = (Map) config.getOrDefault("headers", Collections.emptyMap());
+            boolean stream = Util.toBoolean(config.get("stream"));
+            if (stream) {
+                // compile the path first, so that unsupported expressions fail before the file is opened
+                StreamingXmlParser.compile(path);
+            }
             CountingInputStream is = FileUtils.inputStreamFor(urlOrBinary, headers, null, (String) config.getOrDefault(COMPRESSION, CompressionAlgo.NONE.name()));
+            if (stream) {
+                return StreamingXmlParser.stream(FACTORY, is, path, simpleMode, failOnError, terminationGuard);
+            }
             return parse(is, simpleMode, path, failOnError);
         } catch (Exception e){
             if(!failOnError)
@@ -300,6 +313,10 @@ public class Xml {
                 break;
         }
 
+        addText(text, elementMap);
+    }
+
+    static void addText(Object text, Map<String, Object> elementMap) {
         // If the text is valid ...
         if (!StringUtils.isEmpty(text.toString())) {
             // We check if we have already collected some text previously
@@ -318,7 +335,7 @@ public class Xml {
      * @param text
      * @return
      */
-    private String normalizeText(String text) {
+    static String normalizeText(String text) {
         String[] tokens = StringUtils.split(text, "\n");
         for (int i = 0; i < tokens.length; i++) {
             tokens[i] = tokens[i].trim();
@@ -617,6 +634,6 @@ public class Xml {
     }
 
     private RuntimeException generateXmlDoctypeException() {
-        throw new RuntimeException("XML documents with a DOCTYPE are not allowed.");
+        throw new RuntimeException(DOCTYPE_NOT_ALLOWED);
     }
 }
@@ -18,6 +18,7 @@
  */
 package apoc.meta;
 
+import apoc.Pools;
 import apoc.export.util.NodesAndRelsSubGraph;
 import apoc.result.GraphResult;
 import apoc.result.MapResult;
@@ -25,7 +26,9 @@ import apoc.result.VirtualGraph;
 import apoc.result.VirtualNode;
 import apoc.result.VirtualRelationship;
 import apoc.util.MapUtil;
+import apoc.util.Util;
 import apoc.util.collection.Iterables;
+import apoc.util.collection.Iterators;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.tuple.Pair;
 import org.neo4j.cypher.export.CypherResultSubGraph;
@@ -33,6 +36,7 @@ import org.neo4j.cypher.export.DatabaseSubGraph;
 import org.neo4j.cypher.export.SubGraph;
 import org.neo4j.graphdb.Direction;
 import org.neo4j.graphdb.Entity;
+import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Label;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Relationship;
@@ -46,13 +50,16 @@ import org.neo4j.graphdb.schema.IndexDefinition;
 import org.neo4j.graphdb.schema.Schema;
 import org.neo4j.internal.kernel.api.Read;
 import org.neo4j.internal.kernel.api.TokenRead;
+import org.neo4j.internal.kernel.api.security.AccessMode;
 import org.neo4j.kernel.api.KernelTransaction;
+import org.neo4j.kernel.impl.coreapi.InternalTransaction;
 import org.neo4j.logging.Log;
 import org.neo4j.procedure.Context;
 import org.neo4j.procedure.Description;
 import org.neo4j.procedure.Name;
 import org.neo4j.procedure.Procedure;
 import org.neo4j.procedure.UserFunction;
+import org.neo4j.token.api.NamedToken;
 
 import java.util.AbstractMap;
 import java.util.ArrayList;
@@ -69,6 +76,8 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -92,6 +101,15 @@ public class Meta {
 
     @Context public Log log;
 
+    @Context
+    public GraphDatabaseService db;
+
+    @Context
+    public Pools pools;
+
+    @Context
+    public MetaProfileCache metaProfileCache;
+
     public static class MetaResult {
         public String label;
         public String property;
@@ -422,11 +440,12 @@ public class Meta {
      * metadata that is useful for generating "Tables 4 Labels" schema designs for RDBMSs, but in a more performant way.
      */
     @Procedure("apoc.meta.nodeTypeProperties")
-    @Description("Examines the full graph and returns a table of metadata with information about the nodes therein.")
+    @Description("Examines the full graph and returns a table of metadata with information about the nodes therein.\n" +
+            "With apoc.meta.cache.enabled, the calls with `sample: -1` and `maxRels: -1` are answered from a profile kept up to date with the commits, the other calls scan the graph.")
     public Stream<Tables4LabelsProfile.NodeTypePropertiesEntry> nodeTypeProperties( @Name( value = "config", defaultValue = "{}" ) Map<String,Object> config ) {
         MetaConfig metaConfig = new MetaConfig( config );
         try {
-            return collectTables4LabelsProfile( metaConfig ).asNodeStream();
+            return tables4LabelsProfile( metaConfig ).asNodeStream();
         }
         catch ( Exception e ) {
             log.debug( "apoc.meta.nodeTypeProperties(): Failed to return stream", e );
@@ -440,11 +459,12 @@ public class Meta {
      * RDBMSs, but in a more performant way.
      */
     @Procedure("apoc.meta.relTypeProperties")
-    @Description("Examines the full graph and returns a table of metadata with information about the relationships therein.")
+    @Description("Examines the full graph and returns a table of metadata with information about the relationships therein.\n" +
+            "With apoc.meta.cache.enabled, the calls with `sample: -1` and `maxRels: -1` are answered from a profile kept up to date with the commits, the other calls scan the graph.")
     public Stream<Tables4LabelsProfile.RelTypePropertiesEntry> relTypeProperties( @Name( value = "config", defaultValue = "{}" ) Map<String,Object> config ) {
         MetaConfig metaConfig = new MetaConfig( config );
         try {
-            return collectTables4LabelsProfile( metaConfig ).asRelStream();
+            return tables4LabelsProfile( metaConfig ).asRelStream();
         }
         catch ( Exception e ) {
             log.debug( "apoc.meta.relTypeProperties(): Failed to return stream", e );
@@ -452,9 +472,35 @@ public class Meta {
         }
     }
 
-    private Tables4LabelsProfile collectTables4LabelsProfile(MetaConfig config) {
-        Tables4LabelsProfile profile = new Tables4LabelsProfile();
+    private Tables4LabelsProfile tables4LabelsProfile(MetaConfig config) {
+        trackConstraints();
+        Tables4LabelsProfile cached = canUseProfileCache(config) ? metaProfileCache.profile(config) : null;
+        return cached != null ? cached : collectTables4LabelsProfile(config);
+    }
 
+    /**
+     * The cache holds exact counts of the committed graph, read with full access: it can only answer
+     * the callers that ask for exact results (sample and maxRels -1), can read the whole graph and have no pending changes
+     */
+    private boolean canUseProfileCache(MetaConfig config) {
+        if (config.getSample() != -1L || config.getMaxRels() != -1L || kernelTx.dataRead().transactionStateHasChanges()) {
+            return false;
+        }
+        AccessMode mode = kernelTx.securityContext().mode();
+        if (!mode.allowsTraverseAllLabels() || !mode.allowsTraverseAllRelTypes()) {
+            return false;
+        }
+        Iterator<NamedToken> propertyKeys = kernelTx.tokenRead().propertyKeyGetAllTokens();
+        while (propertyKeys.hasNext()) {
+            int propertyKey = propertyKeys.next().id();
+            if (!mode.allowsReadPropertyAllLabels(propertyKey) || !mode.allowsReadPropertyAllRelTypes(propertyKey)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void trackConstraints() {
         Schema schema = tx.schema();
 
         for (ConstraintDefinition cd : schema.getConstraints()) {
@@ -476,6 +522,11 @@ public class Meta {
             }
         }
 
+    }
+
+    private Tables4LabelsProfile collectTables4LabelsProfile(MetaConfig config) {
+        Tables4LabelsProfile profile = new Tables4LabelsProfile();
+
         Map<String, Long> countStore = getLabelCountStore(transaction, kernelTx);
 
         Set<String> includeLabels = config.getIncludeLabels();
@@ -492,12 +543,14 @@ public class Meta {
 
                 long labelCount = countStore.get(labelName);
                 long sample = getSampleForLabelCount(labelCount, config.getSample());
+                List<Node> sampled = NodeSampler.sample((InternalTransaction) tx, label, labelCount, sample);
+                long skip = sampled == null ? sample : 1L;
 
-                try (ResourceIterator<Node> nodes = tx.findNodes(label)) {
+                try (ResourceIterator<Node> nodes = sampled == null ? tx.findNodes(label) : Iterators.asResourceIterator(sampled.iterator())) {
                     int count = 1;
                     while (nodes.hasNext()) {
                         Node node = nodes.next();
-                        if (count++ % sample == 0) {
+                        if (count++ % skip == 0) {
                             final Set<Boolean> skips = StreamSupport
                                     // we analyze the node for each its relationship type
                                     .stream(node.getRelationshipTypes().spliterator(), false)
@@ -524,37 +577,100 @@ public class Meta {
 
     private Map<Set<String>, Map<String, MetaItem>> collectMetaData(SubGraph graph, SampleMetaConfig config) {
         Map<Set<String>, Map<String, MetaItem>> metaData = new LinkedHashMap<>(100);
+        RelationshipsSchema relsSchema = new RelationshipsSchema(graph, metaData);
 
-        Set<RelationshipType> types = Iterables.asSet(graph.getAllRelationshipTypesInUse());
-        Map<String, Iterable<ConstraintDefinition>> relConstraints = new HashMap<>(20);
-        Map<String, Set<String>> relIndexes = new HashMap<>();
-        for (RelationshipType type : graph.getAllRelationshipTypesInUse()) {
-            metaData.put(Set.of(Types.RELATIONSHIP.name(), type.name()), new LinkedHashMap<>(10));
-            relConstraints.put(type.name(), graph.getConstraints(type));
-            relIndexes.put(type.name(), getIndexedProperties(graph.getIndexes(type)));
+        // on request the labels of the database are profiled by one worker each, unless the workers couldn't see the changes of this transaction
+        if (config.isParallel() && graph instanceof DatabaseSubGraph && !kernelTx.dataRead().transactionStateHasChanges()) {
+            collectLabelsMetaDataInParallel(metaData, config);
+            return metaData;
         }
         for (Label label : graph.getAllLabelsInUse()) {
-            Map<String, MetaItem> nodeMeta = new LinkedHashMap<>(50);
-            String labelName = label.name();
-            // workaround in case of duplicated keys
-            metaData.put(Set.of(Types.NODE.name(), labelName), nodeMeta);
-            Iterable<ConstraintDefinition> constraints = graph.getConstraints(label);
-            Set<String> indexed = getIndexedProperties(graph.getIndexes(label));
-            long labelCount = graph.countsForNode(label);
-            long sample = getSampleForLabelCount(labelCount, config.getSample());
-            Iterator<Node> nodes = graph.findNodes(label);
-            int count = 1;
-            while (nodes.hasNext()) {
-                Node node = nodes.next();
-                if(count++ % sample == 0) {
-                    addRelationships(metaData, nodeMeta, labelName, node, relConstraints, types, relIndexes);
-                    addProperties(nodeMeta, labelName, constraints, indexed, node, node);
-                }
-            }
+            collectLabelMetaData(graph, (InternalTransaction) transaction, relsSchema, label, config, metaData);
         }
         return metaData;
     }
 
+    private void collectLabelsMetaDataInParallel(Map<Set<String>, Map<String, MetaItem>> metaData, SampleMetaConfig config) {
+        List<Future<Map<Set<String>, Map<String, MetaItem>>>> futures = new ArrayList<>();
+        for (Label label : transaction.getAllLabelsInUse()) {
+            futures.add(Util.inTxFuture(pools.getDefaultExecutorService(), db, txInThread -> {
+                SubGraph graph = new DatabaseSubGraph(txInThread);
+                Map<Set<String>, Map<String, MetaItem>> labelMetaData = new LinkedHashMap<>();
+                RelationshipsSchema relsSchema = new RelationshipsSchema(graph, labelMetaData);
+                collectLabelMetaData(graph, (InternalTransaction) txInThread, relsSchema, label, config, labelMetaData);
+                return labelMetaData;
+            }));
+        }
+        try {
+            // merged in label order, so that the results don't depend on which worker finishes first
+            for (Future<Map<Set<String>, Map<String, MetaItem>>> future : futures) {
+                mergeMetaData(metaData, future.get());
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            throw new RuntimeException("Error collecting meta data: " + e.getMessage(), e);
+        }
+    }
+
+    private static void mergeMetaData(Map<Set<String>, Map<String, MetaItem>> metaData, Map<Set<String>, Map<String, MetaItem>> labelMetaData) {
+        // each worker only writes the items of its own label, the first property seen wins as in the sequential profiling
+        labelMetaData.forEach((key, items) -> {
+            Map<String, MetaItem> target = metaData.computeIfAbsent(key, k -> new LinkedHashMap<>(10));
+            items.forEach(target::putIfAbsent);
+        });
+    }
+
+    /**
+     * The nodes of the database are sampled from the label index, so that only the sampled nodes are read
+     */
+    private void collectLabelMetaData(SubGraph graph, InternalTransaction tx, RelationshipsSchema relsSchema, Label label, SampleMetaConfig config,
+                                      Map<Set<String>, Map<String, MetaItem>> metaData) {
+        long labelCount = graph.countsForNode(label);
+        long sample = getSampleForLabelCount(labelCount, config.getSample());
+        List<Node> sampled = graph instanceof DatabaseSubGraph ? NodeSampler.sample(tx, label, labelCount, sample) : null;
+        if (sampled == null) {
+            collectLabelMetaData(graph, relsSchema, label, graph.findNodes(label), sample, metaData);
+        } else {
+            collectLabelMetaData(graph, relsSchema, label, sampled.iterator(), 1L, metaData);
+        }
+    }
+
+    private void collectLabelMetaData(SubGraph graph, RelationshipsSchema relsSchema, Label label, Iterator<Node> nodes, long sample,
+                                      Map<Set<String>, Map<String, MetaItem>> metaData) {
+        Map<String, MetaItem> nodeMeta = new LinkedHashMap<>(50);
+        String labelName = label.name();
+        // workaround in case of duplicated keys
+        metaData.put(Set.of(Types.NODE.name(), labelName), nodeMeta);
+        Iterable<ConstraintDefinition> constraints = graph.getConstraints(label);
+        Set<String> indexed = getIndexedProperties(graph.getIndexes(label));
+        int count = 1;
+        while (nodes.hasNext()) {
+            Node node = nodes.next();
+            if(count++ % sample == 0) {
+                addRelationships(metaData, nodeMeta, labelName, node, relsSchema.constraints, relsSchema.types, relsSchema.indexes);
+                addProperties(nodeMeta, labelName, constraints, indexed, node, node);
+            }
+        }
+    }
+
+    /**
+     * The relationship types in use with their constraints and indexed properties
+     */
+    private class RelationshipsSchema {
+        private final Set<RelationshipType> types;
+        private final Map<String, Iterable<ConstraintDefinition>> constraints = new HashMap<>(20);
+        private final Map<String, Set<String>> indexes = new HashMap<>();
+
+        RelationshipsSchema(SubGraph graph, Map<Set<String>, Map<String, MetaItem>> metaData) {
+            types = Iterables.asSet(graph.getAllRelationshipTypesInUse());
+            for (RelationshipType type : graph.getAllRelationshipTypesInUse()) {
+                metaData.put(Set.of(Types.RELATIONSHIP.name(), type.name()), new LinkedHashMap<>(10));
+                constraints.put(type.name(), graph.getConstraints(type));
+                indexes.put(type.name(), getIndexedProperties(graph.getIndexes(type)));
+            }
+        }
+    }
+
     private Set<String> getIndexedProperties(Iterable<IndexDefinition> indexes) {
         return Iterables.stream(indexes)
                 .map(IndexDefinition::getPropertyKeys)
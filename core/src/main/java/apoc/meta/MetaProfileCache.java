@@ -0,0 +1,410 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.meta;
+
+import apoc.ApocConfig;
+import apoc.meta.tablesforlabels.OrderedLabels;
+import apoc.meta.tablesforlabels.PropertyContainerProfile;
+import apoc.meta.tablesforlabels.PropertyTracker;
+import org.neo4j.dbms.api.DatabaseManagementService;
+import org.neo4j.graphdb.Entity;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.ResourceIterable;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.event.LabelEntry;
+import org.neo4j.graphdb.event.PropertyEntry;
+import org.neo4j.graphdb.event.TransactionData;
+import org.neo4j.graphdb.event.TransactionEventListener;
+import org.neo4j.kernel.lifecycle.LifecycleAdapter;
+import org.neo4j.logging.Log;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static apoc.ApocConfig.APOC_META_CACHE_ENABLED;
+
+/**
+ * Keeps the property type counts per label set and per relationship type, the data behind
+ * apoc.meta.nodeTypeProperties and apoc.meta.relTypeProperties, up to date with the committed transactions.
+ * The profile is built with a full scan on first use (or on `refresh`), and from then on the changes of every
+ * transaction are added as they are committed, so the procedures don't have to scan the store again.
+ * The cache is opt-in (apoc.meta.cache.enabled): only then the write transactions pay for computing their changes.
+ * It holds exact counts, so it only answers the calls asking for them (sample and maxRels -1): the default, sampled,
+ * calls and the other meta procedures keep scanning the graph.
+ * A label change of a node with relationships drops the cache instead, to be rebuilt on the next use.
+ */
+public class MetaProfileCache extends LifecycleAdapter implements TransactionEventListener<MetaProfileCache.Delta> {
+
+    private final GraphDatabaseService db;
+    private final DatabaseManagementService databaseManagementService;
+    private final ApocConfig apocConfig;
+    private final Log log;
+
+    // guarded by this
+    private Map<OrderedLabels, EntityCounts> nodes = new HashMap<>();
+    private Map<RelationshipKey, EntityCounts> relationships = new HashMap<>();
+    private boolean loaded;
+    private boolean registered;
+    private long commits;
+    private int pending;
+    // the commits counted when the last rebuild was discarded, -1 if it wasn't
+    private long discardedAt = -1;
+
+    private final Object rebuildLock = new Object();
+
+    public MetaProfileCache(GraphDatabaseService db, DatabaseManagementService databaseManagementService, ApocConfig apocConfig, Log log) {
+        this.db = db;
+        this.databaseManagementService = databaseManagementService;
+        this.apocConfig = apocConfig;
+        this.log = log;
+    }
+
+    public boolean isEnabled() {
+        return apocConfig.getBoolean(APOC_META_CACHE_ENABLED);
+    }
+
+    @Override
+    public void start() {
+        if (isEnabled()) {
+            register();
+        }
+    }
+
+    @Override
+    public synchronized void stop() {
+        unregister();
+    }
+
+    private synchronized void register() {
+        if (!registered) {
+            databaseManagementService.registerTransactionEventListener(db.databaseName(), this);
+            registered = true;
+        }
+    }
+
+    private synchronized void unregister() {
+        if (registered) {
+            databaseManagementService.unregisterTransactionEventListener(db.databaseName(), this);
+            registered = false;
+        }
+        loaded = false;
+        nodes = new HashMap<>();
+        relationships = new HashMap<>();
+    }
+
+    /**
+     * Returns the cached profile filtered by the config, rescanning the store first if it isn't loaded yet or
+     * `refresh` is set. Returns null when the cache is disabled or couldn't be built because of concurrent writes.
+     */
+    public Tables4LabelsProfile profile(MetaConfig config) {
+        if (!isEnabled()) {
+            unregister();
+            return null;
+        }
+        register();
+        if ((config.isRefresh() || !isLoaded()) && !rebuild()) {
+            return null;
+        }
+        return toProfile(config);
+    }
+
+    private synchronized boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Scans the whole store, once per call. The result is only kept if no transaction committed meanwhile,
+     * as we can't tell whether the scan has seen its changes or not.
+     * After a discarded scan, the next scan waits for a call with no commits since the previous one,
+     * so that the callers don't pay for a full scan each while the writes go on.
+     */
+    private boolean rebuild() {
+        synchronized (rebuildLock) {
+            long startCommits;
+            synchronized (this) {
+                loaded = false;
+                if (discardedAt != -1 && discardedAt != commits) {
+                    discardedAt = commits;
+                    return false;
+                }
+                startCommits = commits;
+            }
+            Delta scan = new Delta();
+            try (Transaction tx = db.beginTx()) {
+                try (ResourceIterable<Node> allNodes = tx.getAllNodes()) {
+                    allNodes.forEach(node -> scan.addNode(labelNames(node.getLabels()), node.getAllProperties(), 1));
+                }
+                try (ResourceIterable<Relationship> allRelationships = tx.getAllRelationships()) {
+                    allRelationships.forEach(rel -> scan.addRelationship(rel, labelNames(rel.getStartNode().getLabels()), labelNames(rel.getEndNode().getLabels()), rel.getAllProperties(), 1));
+                }
+                tx.commit();
+            }
+            synchronized (this) {
+                if (pending == 0 && commits == startCommits) {
+                    nodes = new HashMap<>();
+                    relationships = new HashMap<>();
+                    scan.applyTo(nodes, relationships);
+                    loaded = true;
+                    discardedAt = -1;
+                    return true;
+                }
+                discardedAt = commits;
+            }
+            log.warn("Could not build the meta profile cache because of concurrent writes, falling back to sampling");
+            return false;
+        }
+    }
+
+    private synchronized Tables4LabelsProfile toProfile(MetaConfig config) {
+        Tables4LabelsProfile profile = new Tables4LabelsProfile();
+        nodes.forEach((labels, counts) -> {
+            // as for the scan, nodes without labels are not profiled
+            if (labels.nodeLabels().isEmpty() || labels.nodeLabels().stream().noneMatch(label -> config.matches(Label.label(label)))) return;
+            counts.addTo(profile.getNodeProfile(labels), true);
+            profile.obsByNode.put(labels, counts.observations);
+        });
+        relationships.forEach((key, counts) -> {
+            if (key.startLabels.isEmpty() || !config.getIncludeRels().isEmpty() && !config.getIncludeRels().contains(key.type)
+                    || config.getExcludeRels().contains(key.type)) return;
+            String relIdentifier = String.join("@@@", key.startLabels) + "###" + String.join("@@@", key.endLabels) + "###" + key.type;
+            counts.addTo(profile.getRelProfile(relIdentifier), false);
+            profile.obsByRelType.put(relIdentifier, counts.observations);
+        });
+        return profile.finished();
+    }
+
+    @Override
+    public Delta beforeCommit(TransactionData data, Transaction transaction, GraphDatabaseService databaseService) {
+        synchronized (this) {
+            pending++;
+            if (!loaded) return null;
+        }
+        return Delta.of(data);
+    }
+
+    @Override
+    public void afterCommit(TransactionData data, Delta delta, GraphDatabaseService databaseService) {
+        synchronized (this) {
+            pending--;
+            commits++;
+            if (loaded && delta != null) {
+                if (delta.invalidates) {
+                    loaded = false;
+                    nodes = new HashMap<>();
+                    relationships = new HashMap<>();
+                } else {
+                    delta.applyTo(nodes, relationships);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void afterRollback(TransactionData data, Delta delta, GraphDatabaseService databaseService) {
+        synchronized (this) {
+            pending--;
+        }
+    }
+
+    private static List<String> labelNames(Iterable<Label> labels) {
+        List<String> names = new ArrayList<>(3);
+        labels.forEach(label -> names.add(label.name()));
+        return names;
+    }
+
+    private static Map<String, String> propertyTypes(Map<String, Object> properties) {
+        Map<String, String> types = new HashMap<>(properties.size());
+        properties.forEach((key, value) -> types.put(key, PropertyTracker.typeName(value)));
+        return types;
+    }
+
+    private record RelationshipKey(List<String> startLabels, List<String> endLabels, String type) {}
+
+    /**
+     * Number of entities with the key and, for each property, the number of values of each type
+     */
+    private static class EntityCounts {
+        private long observations;
+        private final Map<String, Map<String, Long>> propertyTypes = new HashMap<>();
+
+        private void add(Map<String, String> types, long sign) {
+            observations += sign;
+            types.forEach((property, type) -> {
+                Map<String, Long> counts = propertyTypes.computeIfAbsent(property, k -> new HashMap<>(3));
+                counts.merge(type, sign, Long::sum);
+                if (counts.get(type) == 0) counts.remove(type);
+                if (counts.isEmpty()) propertyTypes.remove(property);
+            });
+        }
+
+        private void addTo(PropertyContainerProfile profile, boolean isNode) {
+            profile.observations = observations;
+            profile.isNode = isNode;
+            propertyTypes.forEach((property, types) -> types.forEach((type, count) -> profile.addObservations(property, type, count)));
+        }
+    }
+
+    /**
+     * The entities to remove from and to add to the profile: their previous state is removed, their new state is added
+     */
+    static class Delta {
+        private final List<Change<OrderedLabels>> nodeChanges = new ArrayList<>();
+        private final List<Change<RelationshipKey>> relationshipChanges = new ArrayList<>();
+        private boolean invalidates;
+
+        private record Change<K>(K key, Map<String, String> propertyTypes, long sign) {}
+
+        private void addNode(List<String> labels, Map<String, Object> properties, long sign) {
+            nodeChanges.add(new Change<>(new OrderedLabels(labels.stream().map(Label::label).collect(Collectors.toList())), propertyTypes(properties), sign));
+        }
+
+        private void addRelationship(Relationship rel, List<String> startLabels, List<String> endLabels, Map<String, Object> properties, long sign) {
+            RelationshipKey key = new RelationshipKey(new ArrayList<>(new TreeSet<>(startLabels)), new ArrayList<>(new TreeSet<>(endLabels)), rel.getType().name());
+            relationshipChanges.add(new Change<>(key, propertyTypes(properties), sign));
+        }
+
+        private void applyTo(Map<OrderedLabels, EntityCounts> nodes, Map<RelationshipKey, EntityCounts> relationships) {
+            nodeChanges.forEach(change -> apply(nodes, change));
+            relationshipChanges.forEach(change -> apply(relationships, change));
+        }
+
+        private static <K> void apply(Map<K, EntityCounts> counts, Change<K> change) {
+            EntityCounts entityCounts = counts.computeIfAbsent(change.key(), k -> new EntityCounts());
+            entityCounts.add(change.propertyTypes(), change.sign());
+            if (entityCounts.observations == 0 && entityCounts.propertyTypes.isEmpty()) counts.remove(change.key());
+        }
+
+        /**
+         * Computes, while the transaction can still be read, the previous and the new state of every entity it touched
+         */
+        static Delta of(TransactionData data) {
+            Delta delta = new Delta();
+            Set<Node> createdNodes = toSet(data.createdNodes());
+            Set<Node> deletedNodes = toSet(data.deletedNodes());
+            Set<Relationship> createdRels = toSet(data.createdRelationships());
+            Set<Relationship> deletedRels = toSet(data.deletedRelationships());
+
+            Map<Node, List<String>> assignedLabels = new HashMap<>();
+            Map<Node, List<String>> removedLabels = new HashMap<>();
+            for (LabelEntry entry : data.assignedLabels()) {
+                assignedLabels.computeIfAbsent(entry.node(), k -> new ArrayList<>()).add(entry.label().name());
+            }
+            for (LabelEntry entry : data.removedLabels()) {
+                removedLabels.computeIfAbsent(entry.node(), k -> new ArrayList<>()).add(entry.label().name());
+            }
+            Map<Node, Map<String, Object>> previousNodeProperties = previousProperties(data.assignedNodeProperties(), data.removedNodeProperties());
+            Map<Relationship, Map<String, Object>> previousRelProperties = previousProperties(data.assignedRelationshipProperties(), data.removedRelationshipProperties());
+
+            Map<Node, List<String>> labelsBefore = new HashMap<>();
+            Function<Node, List<String>> previousLabels = node -> labelsBefore.computeIfAbsent(node, n -> {
+                if (deletedNodes.contains(n)) return removedLabels.getOrDefault(n, List.of());
+                List<String> labels = labelNames(n.getLabels());
+                labels.removeAll(assignedLabels.getOrDefault(n, List.of()));
+                labels.addAll(removedLabels.getOrDefault(n, List.of()));
+                return labels;
+            });
+
+            Set<Node> touchedNodes = new HashSet<>(createdNodes);
+            touchedNodes.addAll(deletedNodes);
+            touchedNodes.addAll(assignedLabels.keySet());
+            touchedNodes.addAll(removedLabels.keySet());
+            touchedNodes.addAll(previousNodeProperties.keySet());
+
+            Set<Relationship> touchedRels = new HashSet<>(createdRels);
+            touchedRels.addAll(deletedRels);
+            touchedRels.addAll(previousRelProperties.keySet());
+
+            for (Node node : touchedNodes) {
+                boolean created = createdNodes.contains(node);
+                boolean deleted = deletedNodes.contains(node);
+                if (created && deleted) continue;
+                if (!created) {
+                    delta.addNode(previousLabels.apply(node), previousEntityProperties(node, deleted, previousNodeProperties), -1);
+                }
+                if (!deleted) {
+                    // a label change moves all the relationships of the node under another key, rather than reading them
+                    // all (a supernode could have millions) the cache is rebuilt
+                    if (!created && (assignedLabels.containsKey(node) || removedLabels.containsKey(node)) && node.getDegree() > 0) {
+                        delta.invalidates = true;
+                        return delta;
+                    }
+                    delta.addNode(labelNames(node.getLabels()), node.getAllProperties(), 1);
+                }
+            }
+            for (Relationship rel : touchedRels) {
+                boolean created = createdRels.contains(rel);
+                boolean deleted = deletedRels.contains(rel);
+                if (created && deleted) continue;
+                if (!created) {
+                    delta.addRelationship(rel, previousLabels.apply(rel.getStartNode()), previousLabels.apply(rel.getEndNode()),
+                            previousEntityProperties(rel, deleted, previousRelProperties), -1);
+                }
+                if (!deleted) {
+                    delta.addRelationship(rel, labelNames(rel.getStartNode().getLabels()), labelNames(rel.getEndNode().getLabels()), rel.getAllProperties(), 1);
+                }
+            }
+            return delta;
+        }
+
+        private static <T extends Entity> Map<String, Object> previousEntityProperties(T entity, boolean deleted, Map<T, Map<String, Object>> previousProperties) {
+            Map<String, Object> changes = previousProperties.getOrDefault(entity, Map.of());
+            if (deleted) {
+                Map<String, Object> properties = new HashMap<>(changes);
+                properties.values().removeIf(value -> value == null);
+                return properties;
+            }
+            Map<String, Object> properties = new HashMap<>(entity.getAllProperties());
+            changes.forEach((key, value) -> {
+                if (value == null) properties.remove(key);
+                else properties.put(key, value);
+            });
+            return properties;
+        }
+
+        /**
+         * The committed values of the changed properties, null for the ones that didn't exist before
+         */
+        private static <T extends Entity> Map<T, Map<String, Object>> previousProperties(Iterable<PropertyEntry<T>> assigned, Iterable<PropertyEntry<T>> removed) {
+            Map<T, Map<String, Object>> previous = new HashMap<>();
+            for (PropertyEntry<T> entry : assigned) {
+                previous.computeIfAbsent(entry.entity(), k -> new HashMap<>()).put(entry.key(), entry.previouslyCommittedValue());
+            }
+            for (PropertyEntry<T> entry : removed) {
+                previous.computeIfAbsent(entry.entity(), k -> new HashMap<>()).put(entry.key(), entry.previouslyCommittedValue());
+            }
+            return previous;
+        }
+
+        private static <T> Set<T> toSet(Iterable<T> entities) {
+            Set<T> set = new HashSet<>();
+            entities.forEach(set::add);
+            return set;
+        }
+    }
+}
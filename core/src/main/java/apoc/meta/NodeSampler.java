@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.meta;
+
+import apoc.util.Util;
+import org.neo4j.common.EntityType;
+import org.neo4j.exceptions.KernelException;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.internal.kernel.api.NodeLabelIndexCursor;
+import org.neo4j.internal.kernel.api.PartitionedScan;
+import org.neo4j.internal.kernel.api.Read;
+import org.neo4j.internal.kernel.api.TokenPredicate;
+import org.neo4j.internal.kernel.api.TokenRead;
+import org.neo4j.internal.schema.IndexDescriptor;
+import org.neo4j.internal.schema.SchemaDescriptors;
+import org.neo4j.kernel.api.ExecutionContext;
+import org.neo4j.kernel.api.KernelTransaction;
+import org.neo4j.kernel.api.Statement;
+import org.neo4j.kernel.impl.coreapi.InternalTransaction;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Picks the nodes of a label that the meta procedures profile.
+ * The label index scan is split into partitions, spread over the whole label,
+ * and each partition is only read until it has given its share of the sample,
+ * so the cost follows the sample size rather than the label count.
+ */
+class NodeSampler {
+
+    private NodeSampler() {}
+
+    /**
+     * Returns about {@code labelCount / skip} nodes of the label, or null when the nodes
+     * can't be sampled this way and the caller has to walk the whole label instead:
+     * no skip, no token index, or a transaction with pending changes
+     */
+    static List<Node> sample(InternalTransaction tx, Label label, long labelCount, long skip) {
+        if (skip <= 1) return null;
+        KernelTransaction ktx = tx.kernelTransaction();
+        Read read = ktx.dataRead();
+        // partitioned scans are only allowed in transactions without changes
+        if (read.transactionStateHasChanges()) return null;
+        int labelId = ktx.tokenRead().nodeLabel(label.name());
+        if (labelId == TokenRead.NO_TOKEN) return Collections.emptyList();
+        Iterator<IndexDescriptor> indexes = ktx.schemaRead().index(SchemaDescriptors.forAnyEntityTokens(EntityType.NODE));
+        if (!indexes.hasNext()) return null;
+
+        long budget = Math.max(1, labelCount / skip);
+        try {
+            PartitionedScan<NodeLabelIndexCursor> scan = read.nodeLabelScan(read.tokenReadSession(indexes.next()),
+                    (int) Math.min(budget, Integer.MAX_VALUE), ktx.cursorContext(), new TokenPredicate(labelId));
+            int partitions = Math.max(1, scan.getNumberOfPartitions());
+            long perPartition = (budget + partitions - 1) / partitions;
+            // with fewer partitions than samples, the ones taken from a partition are spaced out
+            long stride = Math.max(1, labelCount / partitions / perPartition);
+
+            List<Node> nodes = new ArrayList<>((int) Math.min(budget, 10_000));
+            // the partitions are read with the security context of the transaction, from a context created within a statement
+            Statement statement = ktx.acquireStatement();
+            try (ExecutionContext context = ktx.createExecutionContext()) {
+                try (NodeLabelIndexCursor cursor = context.cursors().allocateNodeLabelIndexCursor(context.cursorContext())) {
+                    while (scan.reservePartition(cursor, context)) {
+                        long position = 0;
+                        long taken = 0;
+                        while (taken < perPartition && cursor.next()) {
+                            if (++position % stride == 0) {
+                                nodes.add(tx.getNodeByElementId(Util.getNodeElementId(tx, cursor.nodeReference())));
+                                taken++;
+                            }
+                        }
+                    }
+                }
+                context.complete();
+            } finally {
+                statement.close();
+            }
+            return nodes;
+        } catch (KernelException e) {
+            throw new RuntimeException("Error sampling nodes with label " + label.name(), e);
+        }
+    }
+}
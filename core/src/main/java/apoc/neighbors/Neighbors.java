@@ -18,20 +18,27 @@
  */
 package apoc.neighbors;
 
+import apoc.Pools;
 import apoc.result.ListResult;
 import apoc.result.LongResult;
 import apoc.result.NodeListResult;
 import apoc.result.NodeResult;
+import apoc.util.Util;
 import org.apache.commons.lang3.tuple.Pair;
 import org.neo4j.graphdb.*;
+import org.neo4j.kernel.api.KernelTransaction;
 import org.neo4j.kernel.impl.coreapi.InternalTransaction;
 import org.neo4j.procedure.Context;
 import org.neo4j.procedure.Description;
 import org.neo4j.procedure.Name;
 import org.neo4j.procedure.Procedure;
+import org.roaringbitmap.longlong.LongIterator;
 import org.roaringbitmap.longlong.Roaring64NavigableMap;
 
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
@@ -45,160 +52,134 @@ public class Neighbors {
     @Context
     public Transaction tx;
 
-    private Iterable<Relationship> getRelationshipsByTypeAndDirection(Node node, Pair<RelationshipType, Direction> typesAndDirection) {
-        // as policy if both elements in the pair are null we return an empty result
-        if (typesAndDirection.getLeft() == null) {
-            return typesAndDirection.getRight() == null ? Collections.emptyList() : node.getRelationships(typesAndDirection.getRight());
-        }
-        if (typesAndDirection.getRight() == null) {
-            return typesAndDirection.getLeft() == null ? Collections.emptyList() : node.getRelationships(typesAndDirection.getLeft());
-        }
-        return node.getRelationships(typesAndDirection.getRight(), typesAndDirection.getLeft());
-    }
+    @Context
+    public KernelTransaction ktx;
 
-    @Procedure("apoc.neighbors.tohop")
-    @Description("Returns all nodes connected by the given relationship types within the specified distance.\n" +
-            "Nodes are returned individually for each row.")
-    public Stream<NodeResult> neighbors(@Name("node") Node node, @Name(value = "relTypes", defaultValue = "") String types, @Name(value="distance", defaultValue = "1") Long distance) {
-        if (distance < 1) return Stream.empty();
-        if (types==null || types.isEmpty()) return Stream.empty();
+    @Context
+    public GraphDatabaseService db;
+
+    @Context
+    public Pools pools;
 
+    /**
+     * Returns the ids of all the nodes within the given distance, the start node excluded
+     */
+    private Roaring64NavigableMap neighborsWithinDistance(Node node, String types, long distance, NeighborsConfig config) {
         final long startNodeId = getNodeId((InternalTransaction) tx, node.getElementId());
 
         // Initialize bitmaps for iteration
         Roaring64NavigableMap seen = new Roaring64NavigableMap();
-        Roaring64NavigableMap nextA = new Roaring64NavigableMap();
-        Roaring64NavigableMap nextB = new Roaring64NavigableMap();
-        String nodeElementId = node.getElementId();
-        long nodeId = getNodeId((InternalTransaction) tx, nodeElementId);
-        seen.addLong(nodeId);
-        Iterator<Long> iterator;
+        Roaring64NavigableMap frontier = new Roaring64NavigableMap();
+        seen.addLong(startNodeId);
+        frontier.addLong(startNodeId);
 
         List<Pair<RelationshipType, Direction>> typesAndDirections = parse(types);
-
-        // First Hop
-        for (Pair<RelationshipType, Direction> pair : typesAndDirections) {
-            for (Relationship r : getRelationshipsByTypeAndDirection(node, pair)) {
-                nextB.addLong(getNodeId((InternalTransaction) tx, r.getOtherNode(node).getElementId()));
+        try (NeighborsExpander expander = new NeighborsExpander(ktx, typesAndDirections)) {
+            for (int i = 0; i < distance; i++) {
+                Roaring64NavigableMap next = new Roaring64NavigableMap();
+                if (config.isParallel() && frontier.getLongCardinality() >= config.getBatchSize()) {
+                    expandInParallel(frontier, next, typesAndDirections, config);
+                } else {
+                    expander.expand(frontier, next);
+                }
+                next.andNot(seen);
+                if (next.isEmpty()) break;
+                seen.or(next);
+                frontier = next;
             }
         }
+        // remove starting node
+        seen.removeLong(startNodeId);
+        return seen;
+    }
 
-        for(int i = 1; i < distance; i++) {
-            // next even Hop
-            nextB.andNot(seen);
-            seen.or(nextB);
-            nextA.clear();
-            iterator = nextB.iterator();
-            while (iterator.hasNext()) {
-                nodeElementId = getNodeElementId((InternalTransaction) tx, iterator.next());
-                node = tx.getNodeByElementId(nodeElementId);
-                for (Pair<RelationshipType, Direction> pair : typesAndDirections) {
-                    for (Relationship r : getRelationshipsByTypeAndDirection(node, pair)) {
-                        nextA.add(getNodeId((InternalTransaction) tx, r.getOtherNode(node).getElementId()));
+    /**
+     * Splits the frontier into one chunk per worker, expands each chunk in its own transaction
+     * and merges the neighbors found by the workers into the next bitmap
+     */
+    private void expandInParallel(Roaring64NavigableMap frontier, Roaring64NavigableMap next, List<Pair<RelationshipType, Direction>> typesAndDirections, NeighborsConfig config) {
+        long remaining = frontier.getLongCardinality();
+        int concurrency = config.getConcurrency();
+        long chunkSize = Math.max(config.getBatchSize(), (remaining + concurrency - 1) / concurrency);
+
+        ExecutorService pool = pools.getDefaultExecutorService();
+        List<Future<Roaring64NavigableMap>> futures = new ArrayList<>(concurrency);
+        LongIterator iterator = frontier.getLongIterator();
+        while (remaining > 0) {
+            long[] chunk = new long[(int) Math.min(chunkSize, remaining)];
+            for (int i = 0; i < chunk.length; i++) {
+                chunk[i] = iterator.next();
+            }
+            remaining -= chunk.length;
+            futures.add(Util.inTxFuture(pool, db, txInThread -> {
+                Roaring64NavigableMap partial = new Roaring64NavigableMap();
+                try (NeighborsExpander expander = new NeighborsExpander(((InternalTransaction) txInThread).kernelTransaction(), typesAndDirections)) {
+                    for (long nodeId : chunk) {
+                        expander.expand(nodeId, partial);
                     }
                 }
+                return partial;
+            }));
+        }
+        try {
+            for (Future<Roaring64NavigableMap> future : futures) {
+                next.or(future.get());
             }
+        } catch (InterruptedException | ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            throw new RuntimeException("Error expanding neighbors in parallel: " + e.getMessage(), e);
+        }
+    }
 
-            i++;
-            if (i < distance) {
-                // next odd Hop
-                nextA.andNot(seen);
-                seen.or(nextA);
-                nextB.clear();
-                iterator = nextA.iterator();
-                while (iterator.hasNext()) {
-                    nodeElementId = getNodeElementId((InternalTransaction) tx, iterator.next());
-                    node = tx.getNodeByElementId(nodeElementId);
-                    for (Pair<RelationshipType, Direction> pair : typesAndDirections) {
-                        for (Relationship r : getRelationshipsByTypeAndDirection(node, pair)) {
-                            nextB.add(getNodeId((InternalTransaction) tx, r.getOtherNode(node).getElementId()));
-                        }
-                    }
+    /**
+     * Returns the ids of the nodes found at each hop, the i-th bitmap holding the nodes at distance i + 1
+     */
+    private Roaring64NavigableMap[] neighborsByDistance(Node node, String types, int distance) {
+        // Initialize bitmaps for iteration
+        Roaring64NavigableMap[] seen = new Roaring64NavigableMap[distance];
+        for (int i = 0; i < distance; i++) {
+            seen[i] = new Roaring64NavigableMap();
+        }
+        long nodeId = getNodeId((InternalTransaction) tx, node.getElementId());
+
+        List<Pair<RelationshipType, Direction>> typesAndDirections = parse(types);
+        try (NeighborsExpander expander = new NeighborsExpander(ktx, typesAndDirections)) {
+            // First Hop
+            expander.expand(nodeId, seen[0]);
+
+            for (int i = 1; i < distance; i++) {
+                expander.expand(seen[i - 1], seen[i]);
+                for (int j = 0; j < i; j++) {
+                    seen[i].andNot(seen[j]);
                 }
+                seen[i].removeLong(nodeId);
             }
         }
-        if((distance % 2) == 0) {
-            seen.or(nextA);
-        } else {
-            seen.or(nextB);
-        }
-        // remove starting node
-        seen.removeLong(startNodeId);
+        return seen;
+    }
 
-        return StreamSupport.stream(
-                Spliterators.spliteratorUnknownSize(seen.iterator(), Spliterator.SORTED), false)
-                .map(x -> new NodeResult(tx.getNodeByElementId(getNodeElementId((InternalTransaction) tx, x))));
+    private Stream<Node> toNodes(Roaring64NavigableMap ids) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(ids.iterator(), Spliterator.SORTED), false)
+                .map(id -> tx.getNodeByElementId(getNodeElementId((InternalTransaction) tx, id)));
     }
 
-    @Procedure("apoc.neighbors.tohop.count")
-    @Description("Returns the count of all nodes connected by the given relationships in the pattern within the specified distance.")
-    public Stream<LongResult> neighborsCount(@Name("node") Node node, @Name(value = "relTypes", defaultValue = "") String types, @Name(value="distance", defaultValue = "1") Long distance) {
+    @Procedure("apoc.neighbors.tohop")
+    @Description("Returns all nodes connected by the given relationship types within the specified distance.\n" +
+            "Nodes are returned individually for each row.")
+    public Stream<NodeResult> neighbors(@Name("node") Node node, @Name(value = "relTypes", defaultValue = "") String types, @Name(value="distance", defaultValue = "1") Long distance, @Name(value = "config", defaultValue = "{}") Map<String, Object> config) {
         if (distance < 1) return Stream.empty();
         if (types==null || types.isEmpty()) return Stream.empty();
 
-        final long startNodeId = getNodeId((InternalTransaction) tx, node.getElementId());
-
-        // Initialize bitmaps for iteration
-        Roaring64NavigableMap seen = new Roaring64NavigableMap();
-        Roaring64NavigableMap nextA = new Roaring64NavigableMap();
-        Roaring64NavigableMap nextB = new Roaring64NavigableMap();
-        String nodeElementId = node.getElementId();
-        long nodeId = getNodeId((InternalTransaction) tx, nodeElementId);
-        seen.add(nodeId);
-        Iterator<Long> iterator;
-
-        List<Pair<RelationshipType, Direction>> typesAndDirections = parse(types);
-        // First Hop
-        for (Pair<RelationshipType, Direction> pair : typesAndDirections) {
-            for (Relationship r : getRelationshipsByTypeAndDirection(node, pair)) {
-                nextB.add(getNodeId((InternalTransaction) tx, r.getOtherNode(node).getElementId()));
-
-            }
-        }
-
-        for(int i = 1; i < distance; i++) {
-            // next even Hop
-            nextB.andNot(seen);
-            seen.or(nextB);
-            nextA.clear();
-            iterator = nextB.iterator();
-            while (iterator.hasNext()) {
-                nodeElementId = getNodeElementId((InternalTransaction) tx, iterator.next());
-                node = tx.getNodeByElementId(nodeElementId);
-                for (Pair<RelationshipType, Direction> pair : typesAndDirections) {
-                    for (Relationship r : getRelationshipsByTypeAndDirection(node, pair)) {
-                        nextA.add(getNodeId((InternalTransaction) tx, r.getOtherNode(node).getElementId()));
-                    }
-                }
-            }
+        return toNodes(neighborsWithinDistance(node, types, distance, new NeighborsConfig(config))).map(NodeResult::new);
+    }
 
-            i++;
-            if (i < distance) {
-                // next odd Hop
-                nextA.andNot(seen);
-                seen.or(nextA);
-                nextB.clear();
-                iterator = nextA.iterator();
-                while (iterator.hasNext()) {
-                    nodeElementId = getNodeElementId((InternalTransaction) tx, iterator.next());
-                    node = tx.getNodeByElementId(nodeElementId);
-                    for (Pair<RelationshipType, Direction> pair : typesAndDirections) {
-                        for (Relationship r : getRelationshipsByTypeAndDirection(node, pair)) {
-                            nextB.add(getNodeId((InternalTransaction) tx, r.getOtherNode(node).getElementId()));
-                        }
-                    }
-                }
-            }
-        }
-        if((distance % 2) == 0) {
-            seen.or(nextA);
-        } else {
-            seen.or(nextB);
-        }
-        // remove starting node
-        seen.removeLong(startNodeId);
+    @Procedure("apoc.neighbors.tohop.count")
+    @Description("Returns the count of all nodes connected by the given relationships in the pattern within the specified distance.")
+    public Stream<LongResult> neighborsCount(@Name("node") Node node, @Name(value = "relTypes", defaultValue = "") String types, @Name(value="distance", defaultValue = "1") Long distance, @Name(value = "config", defaultValue = "{}") Map<String, Object> config) {
+        if (distance < 1) return Stream.empty();
+        if (types==null || types.isEmpty()) return Stream.empty();
 
-        return Stream.of(new LongResult(seen.getLongCardinality()));
+        return Stream.of(new LongResult(neighborsWithinDistance(node, types, distance, new NeighborsConfig(config)).getLongCardinality()));
     }
 
     @Procedure("apoc.neighbors.byhop")
@@ -207,45 +188,8 @@ public class Neighbors {
         if (distance < 1) return Stream.empty();
         if (types==null || types.isEmpty()) return Stream.empty();
 
-        // Initialize bitmaps for iteration
-        Roaring64NavigableMap[] seen = new Roaring64NavigableMap[distance.intValue()];
-        for(int i = 0; i < distance; i++) {
-            seen[i] = new Roaring64NavigableMap();
-        }
-        String nodeElementId = node.getElementId();
-        long nodeId = getNodeId((InternalTransaction) tx, nodeElementId);
-
-        Iterator<Long> iterator;
-
-        List<Pair<RelationshipType, Direction>> typesAndDirections = parse(types);
-        // First Hop
-        for (Pair<RelationshipType, Direction> pair : typesAndDirections) {
-            for (Relationship r : getRelationshipsByTypeAndDirection(node, pair)) {
-                seen[0].add(getNodeId((InternalTransaction) tx, r.getOtherNode(node).getElementId()));
-            }
-        }
-
-        for(int i = 1; i < distance; i++) {
-            iterator = seen[i-1].iterator();
-            while (iterator.hasNext()) {
-                nodeElementId = getNodeElementId((InternalTransaction) tx, iterator.next());
-                node = tx.getNodeByElementId(nodeElementId);
-                for (Pair<RelationshipType, Direction> pair : typesAndDirections) {
-                    for (Relationship r : getRelationshipsByTypeAndDirection(node, pair)) {
-                        seen[i].add(getNodeId((InternalTransaction) tx, r.getOtherNode(node).getElementId()));
-                    }
-                }
-            }
-            for(int j = 0; j < i; j++){
-                seen[i].andNot(seen[j]);
-                seen[i].removeLong(nodeId);
-            }
-        }
-
-        return Arrays.stream(seen).map(x -> new NodeListResult(
-                StreamSupport.stream(Spliterators.spliteratorUnknownSize(x.iterator(), Spliterator.SORTED), false)
-                        .map(y -> tx.getNodeByElementId(getNodeElementId((InternalTransaction) tx, y)))
-                        .collect(Collectors.toList())));
+        Roaring64NavigableMap[] seen = neighborsByDistance(node, types, distance.intValue());
+        return Arrays.stream(seen).map(x -> new NodeListResult(toNodes(x).collect(Collectors.toList())));
     }
 
     @Procedure("apoc.neighbors.byhop.count")
@@ -254,42 +198,7 @@ public class Neighbors {
         if (distance < 1) return Stream.empty();
         if (types==null || types.isEmpty()) return Stream.empty();
 
-        // Initialize bitmaps for iteration
-        Roaring64NavigableMap[] seen = new Roaring64NavigableMap[distance.intValue()];
-        for(int i = 0; i < distance; i++) {
-            seen[i] = new Roaring64NavigableMap();
-        }
-        String nodeElementId = node.getElementId();
-        long nodeId = getNodeId((InternalTransaction) tx, nodeElementId);
-
-        Iterator<Long> iterator;
-
-        List<Pair<RelationshipType, Direction>> typesAndDirections = parse(types);
-        // First Hop
-        for (Pair<RelationshipType, Direction> pair : typesAndDirections) {
-            for (Relationship r : getRelationshipsByTypeAndDirection(node, pair)) {
-                seen[0].add(getNodeId((InternalTransaction) tx, r.getOtherNode(node).getElementId()));
-
-            }
-        }
-
-        for(int i = 1; i < distance; i++) {
-            iterator = seen[i-1].iterator();
-            while (iterator.hasNext()) {
-                nodeElementId = getNodeElementId((InternalTransaction) tx, iterator.next());
-                node = tx.getNodeByElementId(nodeElementId);
-                for (Pair<RelationshipType, Direction> pair : typesAndDirections) {
-                    for (Relationship r : getRelationshipsByTypeAndDirection(node, pair)) {
-                        seen[i].add(getNodeId((InternalTransaction) tx, r.getOtherNode(node).getElementId()));
-                    }
-                }
-            }
-            for(int j = 0; j < i; j++){
-                seen[i].andNot(seen[j]);
-                seen[i].removeLong(nodeId);
-            }
-        }
-
+        Roaring64NavigableMap[] seen = neighborsByDistance(node, types, distance.intValue());
         ArrayList counts = new ArrayList<Long>();
         for(int i = 0; i < distance; i++) {
             counts.add(seen[i].getLongCardinality());
@@ -304,44 +213,8 @@ public class Neighbors {
         if (distance < 1) return Stream.empty();
         if (types==null || types.isEmpty()) return Stream.empty();
 
-        // Initialize bitmaps for iteration
-        Roaring64NavigableMap[] seen = new Roaring64NavigableMap[distance.intValue()];
-        for(int i = 0; i < distance; i++) {
-            seen[i] = new Roaring64NavigableMap();
-        }
-        String nodeElementId = node.getElementId();
-        long nodeId = getNodeId((InternalTransaction) tx, nodeElementId);
-
-        Iterator<Long> iterator;
-
-        List<Pair<RelationshipType, Direction>> typesAndDirections = parse(types);
-        // First Hop
-        for (Pair<RelationshipType, Direction> pair : typesAndDirections) {
-            for (Relationship r : getRelationshipsByTypeAndDirection(node, pair)) {
-                seen[0].add(getNodeId((InternalTransaction) tx, r.getOtherNode(node).getElementId()));
-            }
-        }
-
-        for(int i = 1; i < distance; i++) {
-            iterator = seen[i-1].iterator();
-            while (iterator.hasNext()) {
-                nodeElementId = getNodeElementId((InternalTransaction) tx, iterator.next());
-                node = tx.getNodeByElementId(nodeElementId);
-                for (Pair<RelationshipType, Direction> pair : typesAndDirections) {
-                    for (Relationship r : getRelationshipsByTypeAndDirection(node, pair)) {
-                        seen[i].add(getNodeId((InternalTransaction) tx, r.getOtherNode(node).getElementId()));
-                    }
-                }
-            }
-            for(int j = 0; j < i; j++){
-                seen[i].andNot(seen[j]);
-                seen[i].removeLong(nodeId);
-            }
-        }
-
-        return StreamSupport
-                .stream(Spliterators.spliteratorUnknownSize(seen[distance.intValue() - 1].iterator(), Spliterator.SORTED), false)
-                .map(y -> new NodeResult(tx.getNodeByElementId(getNodeElementId((InternalTransaction) tx, y))));
+        Roaring64NavigableMap[] seen = neighborsByDistance(node, types, distance.intValue());
+        return toNodes(seen[distance.intValue() - 1]).map(NodeResult::new);
     }
 
     @Procedure("apoc.neighbors.athop.count")
@@ -350,41 +223,7 @@ public class Neighbors {
         if (distance < 1) return Stream.empty();
         if (types == null || types.isEmpty()) return Stream.empty();
 
-        // Initialize bitmaps for iteration
-        Roaring64NavigableMap[] seen = new Roaring64NavigableMap[distance.intValue()];
-        for (int i = 0; i < distance; i++) {
-            seen[i] = new Roaring64NavigableMap();
-        }
-        String nodeElementId = node.getElementId();
-        long nodeId = getNodeId((InternalTransaction) tx, nodeElementId);
-
-        Iterator<Long> iterator;
-
-        List<Pair<RelationshipType, Direction>> typesAndDirections = parse(types);
-        // First Hop
-        for (Pair<RelationshipType, Direction> pair : typesAndDirections) {
-            for (Relationship r : getRelationshipsByTypeAndDirection(node, pair)) {
-                seen[0].add(getNodeId((InternalTransaction) tx, r.getOtherNode(node).getElementId()));
-            }
-        }
-
-        for (int i = 1; i < distance; i++) {
-            iterator = seen[i - 1].iterator();
-            while (iterator.hasNext()) {
-                nodeElementId = getNodeElementId((InternalTransaction) tx, iterator.next());
-                node = tx.getNodeByElementId(nodeElementId);
-                for (Pair<RelationshipType, Direction> pair : typesAndDirections) {
-                    for (Relationship r : getRelationshipsByTypeAndDirection(node, pair)) {
-                        seen[i].add(getNodeId((InternalTransaction) tx, r.getOtherNode(node).getElementId()));
-                    }
-                }
-            }
-            for (int j = 0; j < i; j++) {
-                seen[i].andNot(seen[j]);
-                seen[i].removeLong(nodeId);
-            }
-        }
-
+        Roaring64NavigableMap[] seen = neighborsByDistance(node, types, distance.intValue());
         return Stream.of(new LongResult(seen[distance.intValue() - 1].getLongCardinality()));
     }
 }
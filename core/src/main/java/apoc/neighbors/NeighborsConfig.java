@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.neighbors;
+
+import apoc.util.Util;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Config for the apoc.neighbors.tohop procedures.
+ * With parallel: true every hop whose frontier holds at least batchSize nodes is split into concurrency chunks,
+ * each one expanded in its own read transaction, so nodes and relationships created by the calling transaction are not visible to them.
+ */
+public class NeighborsConfig {
+
+    public static final String PARALLEL_KEY = "parallel";
+    public static final String CONCURRENCY_KEY = "concurrency";
+    public static final String BATCH_SIZE_KEY = "batchSize";
+
+    private final boolean parallel;
+    private final int concurrency;
+    private final int batchSize;
+
+    public NeighborsConfig(Map<String, Object> config) {
+        if (config == null) config = Collections.emptyMap();
+        this.parallel = Util.toBoolean(config.getOrDefault(PARALLEL_KEY, false));
+        this.concurrency = Math.max(1, Util.toInteger(config.getOrDefault(CONCURRENCY_KEY, Runtime.getRuntime().availableProcessors())));
+        this.batchSize = Math.max(1, Util.toInteger(config.getOrDefault(BATCH_SIZE_KEY, 10_000)));
+    }
+
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+}
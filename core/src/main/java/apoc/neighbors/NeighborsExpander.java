@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.neighbors;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.internal.kernel.api.NodeCursor;
+import org.neo4j.internal.kernel.api.Read;
+import org.neo4j.internal.kernel.api.RelationshipTraversalCursor;
+import org.neo4j.internal.kernel.api.TokenRead;
+import org.neo4j.kernel.api.KernelTransaction;
+import org.neo4j.storageengine.api.RelationshipSelection;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Expands neighbor frontiers straight from the kernel cursors, working on internal node ids only.
+ * Relationship types are resolved to token ids once, no Node, Relationship or element id is created during the traversal.
+ * An instance holds cursors of the given transaction, so it must not be shared between threads.
+ */
+public class NeighborsExpander implements AutoCloseable {
+
+    private final Read read;
+    private final NodeCursor nodeCursor;
+    private final RelationshipTraversalCursor relCursor;
+    private final List<RelationshipSelection> selections;
+
+    public NeighborsExpander(KernelTransaction ktx, List<Pair<RelationshipType, Direction>> typesAndDirections) {
+        this.read = ktx.dataRead();
+        this.selections = selections(ktx.tokenRead(), typesAndDirections);
+        this.nodeCursor = ktx.cursors().allocateNodeCursor(ktx.cursorContext());
+        this.relCursor = ktx.cursors().allocateRelationshipTraversalCursor(ktx.cursorContext());
+    }
+
+    private static List<RelationshipSelection> selections(TokenRead tokenRead, List<Pair<RelationshipType, Direction>> typesAndDirections) {
+        List<RelationshipSelection> selections = new ArrayList<>(typesAndDirections.size());
+        for (Pair<RelationshipType, Direction> pair : typesAndDirections) {
+            // as policy if both elements in the pair are null we return an empty result
+            Direction direction = pair.getRight() == null ? Direction.BOTH : pair.getRight();
+            if (pair.getLeft() == null) {
+                if (pair.getRight() != null) {
+                    selections.add(RelationshipSelection.selection(direction));
+                }
+                continue;
+            }
+            int type = tokenRead.relationshipType(pair.getLeft().name());
+            // a type not yet in the token store cannot have any relationship
+            if (type == TokenRead.NO_TOKEN) continue;
+            selections.add(RelationshipSelection.selection(type, direction));
+        }
+        return selections;
+    }
+
+    /**
+     * Adds the ids of all the neighbors of the given node to the target bitmap
+     */
+    public void expand(long nodeId, Roaring64NavigableMap target) {
+        read.singleNode(nodeId, nodeCursor);
+        if (!nodeCursor.next()) return;
+        for (RelationshipSelection selection : selections) {
+            nodeCursor.relationships(relCursor, selection);
+            while (relCursor.next()) {
+                target.addLong(relCursor.otherNodeReference());
+            }
+        }
+    }
+
+    /**
+     * Adds the ids of all the neighbors of every node of the frontier to the target bitmap
+     */
+    public void expand(Roaring64NavigableMap frontier, Roaring64NavigableMap target) {
+        frontier.forEach(nodeId -> expand(nodeId, target));
+    }
+
+    @Override
+    public void close() {
+        relCursor.close();
+        nodeCursor.close();
+    }
+}
@@ -23,17 +23,34 @@ import apoc.result.VirtualNode;
 import apoc.result.VirtualRelationship;
 import apoc.util.Util;
 import apoc.util.collection.Iterables;
+import org.apache.commons.lang3.tuple.Pair;
 import org.neo4j.graphdb.*;
+import org.neo4j.exceptions.KernelException;
+import org.neo4j.internal.kernel.api.EntityCursor;
+import org.neo4j.internal.kernel.api.NodeCursor;
+import org.neo4j.internal.kernel.api.PropertyCursor;
+import org.neo4j.internal.kernel.api.Read;
+import org.neo4j.internal.kernel.api.RelationshipTraversalCursor;
+import org.neo4j.internal.kernel.api.TokenRead;
+import org.neo4j.internal.kernel.api.TokenSet;
+import org.neo4j.internal.kernel.api.exceptions.LabelNotFoundKernelException;
+import org.neo4j.kernel.api.KernelTransaction;
+import org.neo4j.kernel.impl.coreapi.InternalTransaction;
 import org.neo4j.logging.Log;
 import org.neo4j.procedure.Context;
 import org.neo4j.procedure.Description;
 import org.neo4j.procedure.Name;
 import org.neo4j.procedure.Procedure;
+import org.neo4j.storageengine.api.PropertySelection;
+import org.neo4j.storageengine.api.RelationshipSelection;
+import org.roaringbitmap.longlong.LongIterator;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -122,98 +139,79 @@ public class Grouping {
         // also filter (esp. max) during aggregation?
         Map<String,Number> filter = configuredFilter(config);
 
-        Map<NodeKey, Set<Node>> grouped = new ConcurrentHashMap<>();
-        Map<NodeKey, VirtualNode> virtualNodes = new ConcurrentHashMap<>();
-        Map<RelKey, VirtualRelationship> virtualRels = new ConcurrentHashMap<>();
-
-        List<Future> futures = new ArrayList<>(1000);
+        // first phase: each batch aggregates its nodes into its own groups, merged into the final ones when done
+        Map<NodeKey, Group> groups = new HashMap<>();
+        List<Future<Map<NodeKey, Group>>> nodeFutures = new ArrayList<>(1000);
 
         ExecutorService pool = pools.getDefaultExecutorService();
         for (String labelName : labels) {
             Label label = Label.label(labelName);
-            Label[] singleLabel = {label};
 
             try (ResourceIterator<Node> nodes = (labelName.equals("*")) ? tx.getAllNodes().iterator() : tx.findNodes(label)) {
                 while (nodes.hasNext()) {
                     List<Node> batch = Util.take(nodes, BATCHSIZE);
-                    futures.add(Util.inTxFuture(pool, db, txInThread -> {
+                    nodeFutures.add(Util.inTxFuture(pool, db, txInThread -> {
+                        Map<NodeKey, Group> partial = new HashMap<>();
                         try {
                             for (Node node : batch) {
                                 final Node boundNode = Util.rebind(txInThread, node);
-                                NodeKey key = keyFor(boundNode, labelName, keys);
-                                grouped.compute(key, (k, v) -> {
-                                    if (v == null) v = new HashSet<>();
-                                    v.add(boundNode);
-                                    return v;
-                                });
-                                virtualNodes.compute(key, (k, v) -> {
-                                            if (v == null) {
-                                                v = new VirtualNode(singleLabel, propertiesFor(boundNode, keys));
-                                            }
-                                            VirtualNode vn = v;
-                                            if (!nodeAggNames.isEmpty()) {
-                                                aggregate(vn, nodeAggNames, nodeAggKeys.length > 0 ? boundNode.getProperties(nodeAggKeys) : Collections.emptyMap());
-                                            }
-                                            return vn;
-                                        }
-                                );
+                                Group group = partial.computeIfAbsent(keyFor(boundNode, labelName, keys), k -> new Group());
+                                group.ids.addLong(Util.getNodeId((InternalTransaction) txInThread, boundNode.getElementId()));
+                                if (!nodeAggNames.isEmpty()) {
+                                    aggregate(group.aggregates, nodeAggNames, nodeAggKeys.length > 0 ? boundNode.getProperties(nodeAggKeys) : Collections.emptyMap());
+                                }
                             }
                         } catch (Exception e) {
                             log.error("Error grouping nodes", e);
                         }
-                        return null;
+                        return partial;
                     }));
-                    Util.removeFinished(futures);
+                    mergeFinished(nodeFutures, false, partial -> partial.forEach((key, group) -> groups.merge(key, group, Group::merge)));
                 }
             }
         }
-        Util.waitForFutures(futures);
-        futures.clear();
-        Iterator<Map.Entry<NodeKey, Set<Node>>> entries = grouped.entrySet().iterator();
+        mergeFinished(nodeFutures, true, partial -> partial.forEach((key, group) -> groups.merge(key, group, Group::merge)));
+
+        // second phase: the outgoing relationships of the grouped node ids, read with kernel cursors
+        Map<RelKey, Map<String, Object>> rels = new HashMap<>();
+        List<Future<Map<RelKey, Map<String, Object>>>> relFutures = new ArrayList<>(1000);
+        RelationshipGrouper grouper = new RelationshipGrouper(groups, labels, keys, includeRels, selfRels, relAggNames, relAggKeys);
+        List<Pair<NodeKey, long[]>> batch = new ArrayList<>();
         int size = 0;
-        List<Map.Entry<NodeKey, Set<Node>>> batch = new ArrayList<>();
-        while (entries.hasNext()) {
-            Map.Entry<NodeKey, Set<Node>> outerEntry = entries.next();
-            batch.add(outerEntry);
-            size += outerEntry.getValue().size();
-            if (size > BATCHSIZE || !entries.hasNext()) {
-                ArrayList<Map.Entry<NodeKey, Set<Node>>> submitted = new ArrayList<>(batch);
-                batch.clear();
-                size = 0;
-                futures.add(Util.inTxFuture(pool, db, txInThread -> {
-                    try {
-                        for (Map.Entry<NodeKey, Set<Node>> entry : submitted) {
-                            for (Node node : entry.getValue()) {
-                                node = Util.rebind(txInThread, node);
-                                NodeKey startKey = entry.getKey();
-                                VirtualNode v1 = virtualNodes.get(startKey);
-                                for (Relationship rel : node.getRelationships(Direction.OUTGOING)) {
-                                    if (includeRels != null && !includeRels.contains(rel.getType().name())) continue;
-                                    Node endNode = rel.getEndNode();
-                                    for (NodeKey endKey : keysFor(endNode, labels, keys)) {
-                                        VirtualNode v2 = virtualNodes.get(endKey);
-                                        if (v2 == null) continue;
-                                        if (!selfRels && startKey.equals(endKey)) continue;
-                                        virtualRels.compute(new RelKey(startKey, endKey, rel), (rk, vRel) -> {
-                                            if (vRel == null) vRel = v1.createRelationshipTo(v2, rel.getType());
-                                            if (!relAggNames.isEmpty()) {
-                                                aggregate(vRel, relAggNames, relAggKeys.length > 0 ? rel.getProperties(relAggKeys) : Collections.emptyMap());
-                                            }
-                                            return vRel;
-                                        });
-                                    }
-                                }
-                            }
-                        }
-                    } catch (Exception e) {
-                        log.error("Error grouping relationships", e);
-                    }
-                    return null;
-                }));
-                Util.removeFinished(futures);
+        for (Map.Entry<NodeKey, Group> entry : groups.entrySet()) {
+            LongIterator ids = entry.getValue().ids.getLongIterator();
+            while (ids.hasNext()) {
+                long[] chunk = new long[(int) Math.min(BATCHSIZE - size, entry.getValue().ids.getLongCardinality())];
+                int count = 0;
+                while (count < chunk.length && ids.hasNext()) {
+                    chunk[count++] = ids.next();
+                }
+                batch.add(Pair.of(entry.getKey(), count == chunk.length ? chunk : Arrays.copyOf(chunk, count)));
+                size += count;
+                if (size >= BATCHSIZE) {
+                    relFutures.add(submitRelationships(pool, grouper, batch));
+                    batch = new ArrayList<>();
+                    size = 0;
+                    mergeFinished(relFutures, false, partial -> partial.forEach((key, aggregates) -> rels.merge(key, aggregates, Grouping::mergeAggregates)));
+                }
             }
         }
-        Util.waitForFutures(futures);
+        if (!batch.isEmpty()) {
+            relFutures.add(submitRelationships(pool, grouper, batch));
+        }
+        mergeFinished(relFutures, true, partial -> partial.forEach((key, aggregates) -> rels.merge(key, aggregates, Grouping::mergeAggregates)));
+
+        Map<NodeKey, VirtualNode> virtualNodes = new LinkedHashMap<>(groups.size());
+        groups.forEach((key, group) -> {
+            VirtualNode virtualNode = new VirtualNode(new Label[]{Label.label(key.label)}, key.values);
+            group.aggregates.forEach(virtualNode::setProperty);
+            virtualNodes.put(key, virtualNode);
+        });
+        rels.forEach((key, aggregates) -> {
+            VirtualRelationship virtualRel = virtualNodes.get(key.startKey).createRelationshipTo(virtualNodes.get(key.endKey), RelationshipType.withName(key.type));
+            aggregates.forEach(virtualRel::setProperty);
+        });
+
         Stream<VirtualNode> stream = fixAggregates(virtualNodes.values()).stream();
         // apply filter
         if (filter != null) stream = stream.filter(n -> filter(n.getLabels(), n.getAllProperties(), filter));
@@ -227,6 +225,33 @@ public class Grouping {
         return groupResultStream;
     }
 
+    private Future<Map<RelKey, Map<String, Object>>> submitRelationships(ExecutorService pool, RelationshipGrouper grouper, List<Pair<NodeKey, long[]>> batch) {
+        return Util.inTxFuture(pool, db, txInThread -> {
+            try {
+                return grouper.group(((InternalTransaction) txInThread).kernelTransaction(), batch);
+            } catch (Exception e) {
+                log.error("Error grouping relationships", e);
+                return Collections.emptyMap();
+            }
+        });
+    }
+
+    /**
+     * Merges the partial results of the finished futures, or of all of them if `all` is true, and removes them from the list
+     */
+    private static <T> void mergeFinished(List<Future<T>> futures, boolean all, Consumer<T> merger) {
+        for (Iterator<Future<T>> it = futures.iterator(); it.hasNext(); ) {
+            Future<T> future = it.next();
+            if (!all && !future.isDone()) continue;
+            try {
+                merger.accept(future.get());
+            } catch (InterruptedException | ExecutionException e) {
+                // the workers log their own errors
+            }
+            it.remove();
+        }
+    }
+
     private Map<String, Number> configuredFilter(Map<String, Object> config) {
         Map<String, Number> filter = (Map<String, Number>) config.get("filter");
         if (filter == null || filter.isEmpty()) return null;
@@ -316,38 +341,36 @@ public class Grouping {
         return pcs;
     }
 
-    private void aggregate(Entity pc, Map<String, List<String>> aggregations, Map<String, Object> properties) {
+    private static void aggregate(Map<String, Object> pc, Map<String, List<String>> aggregations, Map<String, Object> properties) {
         aggregations.forEach((k2, aggNames) -> {
             for (String aggName : aggNames) {
                 String key = aggName + "_" + k2;
                 if ("count_*".equals(key)) {
-                    pc.setProperty(key, ((Number) pc.getProperty(key, 0)).longValue() + 1);
+                    pc.put(key, ((Number) pc.getOrDefault(key, 0)).longValue() + 1);
                 } else {
                     Object value = properties.get(k2);
                     if (value != null) {
                         switch (aggName) {
                             case "collect":
-                                List<Object> existing = (List<Object>) pc.getProperty(key, new ArrayList<>());
+                                List<Object> existing = (List<Object>) pc.computeIfAbsent(key, k -> new ArrayList<>());
                                 existing.add(value);
-                                pc.setProperty(key, existing);
                                 break;
                             case "count":
-                                pc.setProperty(key, ((Number) pc.getProperty(key, 0)).longValue() + 1);
+                                pc.put(key, ((Number) pc.getOrDefault(key, 0)).longValue() + 1);
                                 break;
                             case "sum":
-                                pc.setProperty(key, ((Number) pc.getProperty(key, 0)).doubleValue() + Util.toDouble(value));
+                                pc.put(key, ((Number) pc.getOrDefault(key, 0)).doubleValue() + Util.toDouble(value));
                                 break;
                             case "min":
-                                pc.setProperty(key, Math.min(((Number) pc.getProperty(key, Double.MAX_VALUE)).doubleValue(), Util.toDouble(value)));
+                                pc.put(key, Math.min(((Number) pc.getOrDefault(key, Double.MAX_VALUE)).doubleValue(), Util.toDouble(value)));
                                 break;
                             case "max":
-                                pc.setProperty(key, Math.max(((Number) pc.getProperty(key, Double.MIN_VALUE)).doubleValue(), Util.toDouble(value)));
+                                pc.put(key, Math.max(((Number) pc.getOrDefault(key, Double.MIN_VALUE)).doubleValue(), Util.toDouble(value)));
                                 break;
                             case "avg": {
-                                double[] avg = (double[]) pc.getProperty(key, new double[2]);
+                                double[] avg = (double[]) pc.computeIfAbsent(key, k -> new double[2]);
                                 avg[0] += Util.toDouble(value);
                                 avg[1] += 1;
-                                pc.setProperty(key, avg);
                                 break;
                             }
                         }
@@ -357,6 +380,44 @@ public class Grouping {
         });
     }
 
+    /**
+     * Merges the partial aggregates of `source`, as computed by {@link #aggregate}, into `target`
+     */
+    private static Map<String, Object> mergeAggregates(Map<String, Object> target, Map<String, Object> source) {
+        source.forEach((key, value) -> target.merge(key, value, (existing, other) -> {
+            switch (key.substring(0, key.indexOf('_'))) {
+                case "collect":
+                    collected(existing).addAll((List<?>) other);
+                    return existing;
+                case "count":
+                    return ((Number) existing).longValue() + ((Number) other).longValue();
+                case "sum":
+                    return ((Number) existing).doubleValue() + ((Number) other).doubleValue();
+                case "min":
+                    return Math.min(((Number) existing).doubleValue(), ((Number) other).doubleValue());
+                case "max":
+                    return Math.max(((Number) existing).doubleValue(), ((Number) other).doubleValue());
+                case "avg": {
+                    double[] avg = (double[]) existing;
+                    avg[0] += ((double[]) other)[0];
+                    avg[1] += ((double[]) other)[1];
+                    return avg;
+                }
+                default:
+                    return existing;
+            }
+        }));
+        return target;
+    }
+
+    /**
+     * The partial aggregates of `collect` are the mutable lists created by {@link #aggregate}
+     */
+    @SuppressWarnings("unchecked")
+    private static List<Object> collected(Object aggregate) {
+        return (List<Object>) aggregate;
+    }
+
     /**
      * Returns the properties for the given node according to the specified keys. If a node does not have a property
      * assigned to given key, the value is set to {@code null}.
@@ -388,26 +449,153 @@ public class Grouping {
     }
 
     /**
-     * Creates a grouping key for each specified label.
-     *
-     * @param node   node
-     * @param labels node labels
-     * @param keys   property keys
-     * @return grouping keys
+     * The ids of the nodes of a group, and their aggregates
      */
-    private Collection<NodeKey> keysFor(Node node, Collection<String> labels, String[] keys) {
-        Map<String, Object> props = propertiesFor(node, keys);
-        List<NodeKey> result = new ArrayList<>(labels.size());
-        if (labels.contains("*")) {
-            result.add(new NodeKey("*", props));
-        } else {
-            for (Label label : node.getLabels()) {
-                if (labels.contains(label.name())) {
-                    result.add(new NodeKey(label.name(), props));
+    private static class Group {
+        private final Roaring64NavigableMap ids = new Roaring64NavigableMap();
+        private final Map<String, Object> aggregates = new HashMap<>();
+
+        Group merge(Group other) {
+            ids.or(other.ids);
+            mergeAggregates(aggregates, other.aggregates);
+            return this;
+        }
+    }
+
+    /**
+     * Groups the outgoing relationships of batches of grouped node ids, straight from the kernel cursors.
+     * The groups are only read, so an instance can be shared by the workers
+     */
+    private static class RelationshipGrouper {
+        private final Map<NodeKey, Group> groups;
+        private final Collection<String> labels;
+        private final String[] keys;
+        private final Set<String> includeRels;
+        private final boolean selfRels;
+        private final Map<String, List<String>> relAggNames;
+        private final String[] relAggKeys;
+
+        RelationshipGrouper(Map<NodeKey, Group> groups, Collection<String> labels, String[] keys, Set<String> includeRels,
+                            boolean selfRels, Map<String, List<String>> relAggNames, String[] relAggKeys) {
+            this.groups = groups;
+            this.labels = labels;
+            this.keys = keys;
+            this.includeRels = includeRels;
+            this.selfRels = selfRels;
+            this.relAggNames = relAggNames;
+            this.relAggKeys = relAggKeys;
+        }
+
+        Map<RelKey, Map<String, Object>> group(KernelTransaction ktx, List<Pair<NodeKey, long[]>> batch) {
+            Map<RelKey, Map<String, Object>> partial = new HashMap<>();
+            Read read = ktx.dataRead();
+            TokenRead tokenRead = ktx.tokenRead();
+            int[] keyTokens = propertyTokens(tokenRead, keys);
+            int[] relAggTokens = propertyTokens(tokenRead, relAggKeys);
+            Map<Integer, String> typeNames = new HashMap<>();
+            Map<Long, List<NodeKey>> endKeys = new HashMap<>();
+            try (NodeCursor nodeCursor = ktx.cursors().allocateNodeCursor(ktx.cursorContext());
+                 NodeCursor endCursor = ktx.cursors().allocateNodeCursor(ktx.cursorContext());
+                 RelationshipTraversalCursor relCursor = ktx.cursors().allocateRelationshipTraversalCursor(ktx.cursorContext());
+                 PropertyCursor propertyCursor = ktx.cursors().allocatePropertyCursor(ktx.cursorContext(), ktx.memoryTracker())) {
+                for (Pair<NodeKey, long[]> entry : batch) {
+                    NodeKey startKey = entry.getKey();
+                    for (long nodeId : entry.getValue()) {
+                        read.singleNode(nodeId, nodeCursor);
+                        if (!nodeCursor.next()) continue;
+                        nodeCursor.relationships(relCursor, RelationshipSelection.selection(Direction.OUTGOING));
+                        while (relCursor.next()) {
+                            String type = typeNames.computeIfAbsent(relCursor.type(), token -> relationshipTypeName(tokenRead, token));
+                            if (includeRels != null && !includeRels.contains(type)) continue;
+                            List<NodeKey> keysOfEnd = endKeys.computeIfAbsent(relCursor.otherNodeReference(),
+                                    endId -> keysFor(read, tokenRead, endId, endCursor, propertyCursor, keyTokens));
+                            Map<String, Object> relProps = null;
+                            for (NodeKey endKey : keysOfEnd) {
+                                if (!selfRels && startKey.equals(endKey)) continue;
+                                Map<String, Object> aggregates = partial.computeIfAbsent(new RelKey(startKey, endKey, type), k -> new HashMap<>());
+                                if (!relAggNames.isEmpty()) {
+                                    if (relProps == null) relProps = properties(relCursor, propertyCursor, relAggKeys, relAggTokens, false);
+                                    aggregate(aggregates, relAggNames, relProps);
+                                }
+                            }
+                        }
+                    }
                 }
             }
+            return partial;
+        }
+
+        /**
+         * Creates the grouping keys of the node for each specified label, keeping only the existing groups
+         */
+        private List<NodeKey> keysFor(Read read, TokenRead tokenRead, long nodeId, NodeCursor nodeCursor, PropertyCursor propertyCursor, int[] keyTokens) {
+            read.singleNode(nodeId, nodeCursor);
+            if (!nodeCursor.next()) return Collections.emptyList();
+            Map<String, Object> props = properties(nodeCursor, propertyCursor, keys, keyTokens, true);
+            List<NodeKey> result = new ArrayList<>(1);
+            if (labels.contains("*")) {
+                addIfGrouped(new NodeKey("*", props), result);
+            } else {
+                TokenSet nodeLabels = nodeCursor.labels();
+                for (int i = 0; i < nodeLabels.numberOfTokens(); i++) {
+                    String label = labelName(tokenRead, nodeLabels.token(i));
+                    if (labels.contains(label)) {
+                        addIfGrouped(new NodeKey(label, props), result);
+                    }
+                }
+            }
+            return result;
+        }
+
+        private void addIfGrouped(NodeKey key, List<NodeKey> result) {
+            if (groups.containsKey(key)) result.add(key);
+        }
+
+        /**
+         * The properties with the given names, with null values for the missing ones if `withNulls` is true
+         */
+        private static Map<String, Object> properties(EntityCursor entityCursor, PropertyCursor propertyCursor, String[] names, int[] tokens, boolean withNulls) {
+            Map<String, Object> props = new HashMap<>(names.length);
+            if (withNulls) {
+                for (String name : names) props.put(name, null);
+            }
+            int[] existing = Arrays.stream(tokens).filter(token -> token != TokenRead.NO_TOKEN).toArray();
+            if (existing.length == 0) return props;
+            entityCursor.properties(propertyCursor, PropertySelection.selection(existing));
+            while (propertyCursor.next()) {
+                int token = propertyCursor.propertyKey();
+                for (int i = 0; i < tokens.length; i++) {
+                    if (tokens[i] == token) {
+                        props.put(names[i], propertyCursor.propertyValue().asObjectCopy());
+                    }
+                }
+            }
+            return props;
+        }
+
+        private static int[] propertyTokens(TokenRead tokenRead, String[] names) {
+            int[] tokens = new int[names.length];
+            for (int i = 0; i < names.length; i++) {
+                tokens[i] = tokenRead.propertyKey(names[i]);
+            }
+            return tokens;
+        }
+
+        private static String relationshipTypeName(TokenRead tokenRead, int token) {
+            try {
+                return tokenRead.relationshipTypeName(token);
+            } catch (KernelException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        private static String labelName(TokenRead tokenRead, int token) {
+            try {
+                return tokenRead.nodeLabelName(token);
+            } catch (LabelNotFoundKernelException e) {
+                throw new RuntimeException(e);
+            }
         }
-        return result;
     }
 
     /**
@@ -448,10 +636,10 @@ public class Grouping {
         private final NodeKey endKey;
         private final String type;
 
-        RelKey(NodeKey startKey, NodeKey endKey, Relationship rel) {
+        RelKey(NodeKey startKey, NodeKey endKey, String type) {
             this.startKey = startKey;
             this.endKey = endKey;
-            this.type = rel.getType().name();
+            this.type = type;
             hash = 31 * (31 * startKey.hashCode() + endKey.hashCode()) + type.hashCode();
         }
 
@@ -32,6 +32,7 @@ import apoc.result.VirtualPathResult;
 import apoc.util.collection.Iterables;
 import apoc.util.Util;
 import org.apache.commons.lang3.tuple.Pair;
+import org.eclipse.collections.impl.set.mutable.primitive.LongHashSet;
 import org.neo4j.graphalgo.BasicEvaluationContext;
 import org.neo4j.graphalgo.GraphAlgoFactory;
 import org.neo4j.graphalgo.PathFinder;
@@ -52,6 +53,7 @@ import org.neo4j.internal.kernel.api.Read;
 import org.neo4j.internal.kernel.api.RelationshipTraversalCursor;
 import org.neo4j.internal.kernel.api.TokenRead;
 import org.neo4j.kernel.api.KernelTransaction;
+import org.neo4j.kernel.impl.core.NodeEntity;
 import org.neo4j.procedure.Context;
 import org.neo4j.procedure.Description;
 import org.neo4j.procedure.Mode;
@@ -81,6 +83,9 @@ import static apoc.util.Util.map;
 
 public class Nodes {
 
+    // a dense start node is scanned once for many end nodes, unless it has more relationships than this many per end node
+    private static final int DENSE_SCAN_FACTOR = 50;
+
     @Context
     public GraphDatabaseService db;
 
@@ -231,12 +236,14 @@ public class Nodes {
             "This function is optimized for dense nodes.")
     public boolean connected(@Name("startNode") Node start, @Name("endNode") Node end, @Name(value = "types", defaultValue = "") String types)  {
         if (start == null || end == null) return false;
-        if (start.equals(end)) return true;
-
-        long startId = start.getId();
-        long endId = end.getId();
         List<Pair<RelationshipType, Direction>> pairs = (types == null || types.isEmpty()) ? null : parse(types);
+        return connected(nodeId(start), nodeId(end), pairs);
+    }
 
+    /**
+     * Scans the relationships of the endpoint with the fewest of the given types and directions, a node is connected to itself only by a self-loop
+     */
+    private boolean connected(long startId, long endId, List<Pair<RelationshipType, Direction>> pairs) {
         Read dataRead = ktx.dataRead();
         TokenRead tokenRead = ktx.tokenRead();
         CursorFactory cursors = ktx.cursors();
@@ -249,20 +256,68 @@ public class Nodes {
                 throw new IllegalArgumentException("node with id " + startId + " does not exist.");
             }
 
-//            boolean startDense = startNodeCursor.supportsFastDegreeLookup();
             dataRead.singleNode(endId, endNodeCursor);
             if (!endNodeCursor.next()) {
                 throw new IllegalArgumentException("node with id " + endId + " does not exist.");
             }
-//            boolean endDense = endNodeCursor.supportsFastDegreeLookup();
 
-            return connected(startNodeCursor, endId, typedDirections(tokenRead, pairs, true));
+            int[][] startTypedDirections = typedDirections(tokenRead, pairs, true);
+            int[][] endTypedDirections = typedDirections(tokenRead, pairs, false);
+            // sparse nodes have few relationships, dense ones have their degrees per type and direction
+            if (!startNodeCursor.supportsFastDegreeLookup()) return connected(startNodeCursor, endId, startTypedDirections);
+            if (!endNodeCursor.supportsFastDegreeLookup()) return connected(endNodeCursor, startId, endTypedDirections);
+            return degree(startNodeCursor, startTypedDirections) <= degree(endNodeCursor, endTypedDirections)
+                    ? connected(startNodeCursor, endId, startTypedDirections)
+                    : connected(endNodeCursor, startId, endTypedDirections);
+        }
+    }
+
+    @UserFunction("apoc.nodes.connectedTo")
+    @Description("Returns a list of booleans, one for each of the given end nodes, true when it is directly connected to the given start node.\n" +
+            "The relationships of the start node are scanned once for all the end nodes, unless it is a dense node with far more relationships than end nodes.")
+    public List<Boolean> connectedTo(@Name("startNode") Node start, @Name("endNodes") List<Node> ends, @Name(value = "types", defaultValue = "") String types) {
+        if (ends == null) return null;
+        if (start == null) return Collections.nCopies(ends.size(), false);
+
+        long startId = nodeId(start);
+        LongHashSet endIds = new LongHashSet(ends.size());
+        for (Node end : ends) {
+            if (end != null) endIds.add(nodeId(end));
+        }
+        List<Pair<RelationshipType, Direction>> pairs = (types == null || types.isEmpty()) ? null : parse(types);
 
+        LongHashSet connected;
+        try (NodeCursor startNodeCursor = ktx.cursors().allocateNodeCursor(ktx.cursorContext())) {
+            ktx.dataRead().singleNode(startId, startNodeCursor);
+            if (!startNodeCursor.next()) {
+                throw new IllegalArgumentException("node with id " + startId + " does not exist.");
+            }
+            int[][] typedDirections = typedDirections(ktx.tokenRead(), pairs, true);
+            if (startNodeCursor.supportsFastDegreeLookup()
+                    && degree(startNodeCursor, typedDirections) > (long) endIds.size() * DENSE_SCAN_FACTOR) {
+                // each end node is checked from its side when cheaper
+                LongHashSet found = new LongHashSet();
+                endIds.forEach(endId -> {
+                    if (connected(startId, endId, pairs)) found.add(endId);
+                });
+                connected = found;
+            } else {
+                connected = connected(startNodeCursor, endIds, typedDirections);
+            }
+        }
+
+        List<Boolean> result = new ArrayList<>(ends.size());
+        for (Node end : ends) {
+            result.add(end != null && connected.contains(nodeId(end)));
+        }
+        return result;
+    }
 
-//            if (!startDense) return connected(startNodeCursor, endId, typedDirections(tokenRead, pairs, true));
-//            if (!endDense) return connected(endNodeCursor, startId, typedDirections(tokenRead, pairs, false));
-//            return connectedDense(startNodeCursor, endNodeCursor, typedDirections(tokenRead, pairs, true));
+    private static long nodeId(Node node) {
+        if (!(node instanceof NodeEntity entity)) {
+            throw new IllegalArgumentException("The node " + node + " is not stored in the database.");
         }
+        return entity.getId();
     }
 
     @Procedure("apoc.nodes.collapse")
@@ -342,28 +397,63 @@ public class Nodes {
     }
 
     /**
-     * TODO: be more efficient, in
+     * Scans the relationships of the start node, only those of the given types and directions
      * @param start
      * @param end
      * @param typedDirections
      * @return
      */
     private boolean connected(NodeCursor start, long end, int[][] typedDirections) {
+        LongHashSet ends = new LongHashSet(1);
+        ends.add(end);
+        return !connected(start, ends, typedDirections).isEmpty();
+    }
+
+    /**
+     * @return the nodes among `ends` connected to the start node, the scan stops once all of them are found
+     */
+    private LongHashSet connected(NodeCursor start, LongHashSet ends, int[][] typedDirections) {
+        LongHashSet found = new LongHashSet();
         try (RelationshipTraversalCursor relationship = ktx.cursors().allocateRelationshipTraversalCursor(ktx.cursorContext())) {
-            start.relationships(relationship, RelationshipSelection.selection(Direction.BOTH));
-            while (relationship.next()) {
-                if (relationship.otherNodeReference() ==end) {
-                    if (typedDirections==null) {
-                        return true;
-                    } else {
-                        int direction = relationship.targetNodeReference() == end ? 0 : 1 ;
-                        int[] types = typedDirections[direction];
-                        if (arrayContains(types, relationship.type())) return true;
-                    }
+            if (typedDirections == null) {
+                scan(start, relationship, RelationshipSelection.selection(Direction.BOTH), ends, found);
+            } else {
+                int[] outgoing = typedDirections[Direction.OUTGOING.ordinal()];
+                int[] incoming = typedDirections[Direction.INCOMING.ordinal()];
+                if (outgoing.length > 0) {
+                    scan(start, relationship, RelationshipSelection.selection(outgoing, Direction.OUTGOING), ends, found);
+                }
+                if (incoming.length > 0 && found.size() < ends.size()) {
+                    scan(start, relationship, RelationshipSelection.selection(incoming, Direction.INCOMING), ends, found);
                 }
             }
         }
-        return false;
+        return found;
+    }
+
+    private void scan(NodeCursor start, RelationshipTraversalCursor relationship, RelationshipSelection selection, LongHashSet ends, LongHashSet found) {
+        start.relationships(relationship, selection);
+        while (relationship.next()) {
+            long other = relationship.otherNodeReference();
+            if (ends.contains(other) && found.add(other) && found.size() == ends.size()) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * The number of relationships of the given types and directions, as scanned by {@link #connected(NodeCursor, LongHashSet, int[][])}
+     */
+    private long degree(NodeCursor node, int[][] typedDirections) {
+        if (typedDirections == null) {
+            return node.degree(RelationshipSelection.selection(Direction.BOTH));
+        }
+        int[] outgoing = typedDirections[Direction.OUTGOING.ordinal()];
+        int[] incoming = typedDirections[Direction.INCOMING.ordinal()];
+        long degree = 0;
+        if (outgoing.length > 0) degree += node.degree(RelationshipSelection.selection(outgoing, Direction.OUTGOING));
+        if (incoming.length > 0) degree += node.degree(RelationshipSelection.selection(incoming, Direction.INCOMING));
+        return degree;
     }
 
     private boolean arrayContains(int[] array, int element) {
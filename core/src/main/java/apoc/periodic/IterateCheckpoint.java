@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.periodic;
+
+import apoc.SystemLabels;
+import apoc.SystemPropertyKeys;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static apoc.ApocConfig.apocConfig;
+
+/**
+ * The progress of an `apoc.periodic.iterate` run with a `checkpoint` name, stored in the system database
+ * so that the iteration can be resumed after a termination or a restart
+ */
+public class IterateCheckpoint {
+    public final String name;
+    public final String statement;
+    public final long offset;
+    public final Object key;
+    public final boolean done;
+    public final long lastUpdated;
+
+    public IterateCheckpoint(String name, String statement, long offset, Object key, boolean done, long lastUpdated) {
+        this.name = name;
+        this.statement = statement;
+        this.offset = offset;
+        this.key = key;
+        this.done = done;
+        this.lastUpdated = lastUpdated;
+    }
+
+    private static IterateCheckpoint of(Node node) {
+        return new IterateCheckpoint(
+                (String) node.getProperty(SystemPropertyKeys.name.name()),
+                (String) node.getProperty(SystemPropertyKeys.statement.name()),
+                (long) node.getProperty(SystemPropertyKeys.offset.name(), 0L),
+                node.getProperty(SystemPropertyKeys.key.name(), null),
+                (boolean) node.getProperty(SystemPropertyKeys.done.name(), false),
+                (long) node.getProperty(SystemPropertyKeys.lastUpdated.name(), 0L));
+    }
+
+    /**
+     * Returns the checkpoint of a previous run, or null, failing if it was saved for a different statement
+     */
+    public static IterateCheckpoint load(String databaseName, String name, String statement) {
+        IterateCheckpoint checkpoint = withSystemDb(tx -> {
+            Node node = find(tx, databaseName, name);
+            return node == null ? null : of(node);
+        });
+        if (checkpoint != null && !checkpoint.statement.equals(statement)) {
+            throw new IllegalArgumentException(String.format("The checkpoint `%s` was saved for a different statement: `%s`, remove it to start a new iteration", name, checkpoint.statement));
+        }
+        return checkpoint;
+    }
+
+    public static void save(String databaseName, String name, String statement, long offset, Object key, boolean done) {
+        withSystemDb(tx -> {
+            Node node = find(tx, databaseName, name);
+            if (node == null) {
+                node = tx.createNode(SystemLabels.ApocIterateCheckpoint);
+                node.setProperty(SystemPropertyKeys.database.name(), databaseName);
+                node.setProperty(SystemPropertyKeys.name.name(), name);
+            }
+            node.setProperty(SystemPropertyKeys.statement.name(), statement);
+            node.setProperty(SystemPropertyKeys.offset.name(), offset);
+            if (key == null) {
+                node.removeProperty(SystemPropertyKeys.key.name());
+            } else {
+                node.setProperty(SystemPropertyKeys.key.name(), key);
+            }
+            node.setProperty(SystemPropertyKeys.done.name(), done);
+            node.setProperty(SystemPropertyKeys.lastUpdated.name(), System.currentTimeMillis());
+            return null;
+        });
+    }
+
+    public static Stream<IterateCheckpoint> list(String databaseName) {
+        return withSystemDb(tx -> tx.findNodes(SystemLabels.ApocIterateCheckpoint, SystemPropertyKeys.database.name(), databaseName)
+                .stream()
+                .map(IterateCheckpoint::of)
+                .toList())
+                .stream();
+    }
+
+    public static IterateCheckpoint remove(String databaseName, String name) {
+        return withSystemDb(tx -> {
+            Node node = find(tx, databaseName, name);
+            if (node == null) return null;
+            IterateCheckpoint checkpoint = of(node);
+            node.delete();
+            return checkpoint;
+        });
+    }
+
+    private static Node find(Transaction tx, String databaseName, String name) {
+        return tx.findNodes(SystemLabels.ApocIterateCheckpoint, SystemPropertyKeys.database.name(), databaseName)
+                .stream()
+                .filter(node -> name.equals(node.getProperty(SystemPropertyKeys.name.name(), null)))
+                .findFirst()
+                .orElse(null);
+    }
+
+    private static <T> T withSystemDb(Function<Transaction, T> action) {
+        try (Transaction tx = apocConfig().getSystemDb().beginTx()) {
+            T result = action.apply(tx);
+            tx.commit();
+            return result;
+        }
+    }
+}
@@ -25,17 +25,23 @@ import apoc.util.Util;
 import apoc.periodic.PeriodicUtils.JobInfo;
 import org.apache.commons.lang3.tuple.Pair;
 import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.QueryStatistics;
 import org.neo4j.graphdb.Result;
 import org.neo4j.graphdb.Transaction;
 import org.neo4j.graphdb.schema.ConstraintDefinition;
 import org.neo4j.graphdb.schema.IndexDefinition;
 import org.neo4j.graphdb.schema.Schema;
+import org.neo4j.graphdb.security.AuthorizationViolationException;
+import org.neo4j.internal.kernel.api.exceptions.ProcedureException;
+import org.neo4j.internal.kernel.api.procs.QualifiedName;
+import org.neo4j.kernel.api.KernelTransaction;
 import org.neo4j.logging.Log;
 import org.neo4j.procedure.*;
 
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Stream;
@@ -62,6 +68,7 @@ public class Periodic {
     @Context public Log log;
     @Context public Pools pools;
     @Context public Transaction tx;
+    @Context public KernelTransaction ktx;
 
     @Admin
     @Procedure(name = "apoc.periodic.truncate", mode = Mode.SCHEMA)
@@ -84,6 +91,34 @@ public class Periodic {
         return pools.getJobList().entrySet().stream().map( (e) -> e.getKey().update(e.getValue()));
     }
 
+    @Admin
+    @Procedure("apoc.periodic.checkpoint.list")
+    @Description("Returns the checkpoints saved by `apoc.periodic.iterate` for the current database.")
+    public Stream<IterateCheckpoint> checkpoints() {
+        return IterateCheckpoint.list(db.databaseName());
+    }
+
+    @Admin
+    @Procedure(name = "apoc.periodic.checkpoint.remove", mode = Mode.WRITE)
+    @Description("Removes the given `apoc.periodic.iterate` checkpoint, so that the next run starts from the beginning.")
+    public Stream<IterateCheckpoint> removeCheckpoint(@Name("name") String name) {
+        return Stream.ofNullable(IterateCheckpoint.remove(db.databaseName(), name));
+    }
+
+    /**
+     * The checkpoints are stored in the system database, so they are saved only by the users allowed to remove them
+     */
+    private void checkCanManageCheckpoints() {
+        try {
+            int procedureId = ktx.procedures().procedureGet(new QualifiedName(new String[] {"apoc", "periodic", "checkpoint"}, "remove")).id();
+            if (!ktx.securityContext().allowExecuteAdminProcedure(procedureId).allowsAccess()) {
+                throw new AuthorizationViolationException("The checkpoint config of apoc.periodic.iterate is only allowed to the users that can execute apoc.periodic.checkpoint.remove");
+            }
+        } catch (ProcedureException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     @Procedure(name = "apoc.periodic.commit", mode = Mode.WRITE)
     @Description("Runs the given statement in separate batched transactions.")
     public Stream<RundownResult> commit(@Name("statement") String statement, @Name(value = "params", defaultValue = "{}") Map<String,Object> parameters) {
@@ -248,11 +283,30 @@ public class Periodic {
         boolean parallel = Util.toBoolean(config.getOrDefault("parallel", false));
         long retries = Util.toLong(config.getOrDefault("retries", 0)); // todo sleep/delay or push to end of batch to try again or immediate ?
         int failedParams = Util.toInteger(config.getOrDefault("failedParams", -1));
+        AdaptiveBatchSize adaptiveBatchSize = AdaptiveBatchSize.fromConfig(config, (int) batchSize);
+        String partitionKey = (String) config.get("partitionKey");
+        if (partitionKey != null && !parallel) {
+            throw new IllegalArgumentException("The partitionKey config requires parallel: true, as the batches of a sequential iteration never conflict");
+        }
+        String checkpointName = (String) config.get("checkpoint");
+        String checkpointKey = checkpointName == null ? null : (String) config.get("checkpointKey");
+        if (checkpointName != null && checkpointKey == null) {
+            // skipping the rows committed by a previous run by their number would skip unprocessed rows
+            // whenever the statement filters on the state changed by the action
+            throw new IllegalArgumentException("The checkpoint config requires a checkpointKey, the column of the cypherIterate statement the committed rows are resumed from");
+        }
+        if (checkpointName != null) {
+            checkCanManageCheckpoints();
+        }
+        long checkpointInterval = Util.toLong(config.getOrDefault("checkpointInterval", 10000));
 
         BatchMode batchMode = BatchMode.fromConfig(config);
         Map<String,Object> params = (Map<String, Object>) config.getOrDefault("params", Collections.emptyMap());
+        IterateCheckpoint checkpoint = checkpointName == null ? null : IterateCheckpoint.load(db.databaseName(), checkpointName, cypherIterate);
+        // the statement skips the committed rows itself, i.e. `WHERE $_checkpoint IS NULL OR n.id > $_checkpoint`
+        Map<String,Object> iterateParams = checkpointKey == null ? params : merge(params, Util.map("_checkpoint", checkpoint == null ? null : checkpoint.key));
 
-        try (Result result = tx.execute(slottedRuntime(cypherIterate),params)) {
+        try (Result result = tx.execute(slottedRuntime(cypherIterate),iterateParams)) {
             Pair<String,Boolean> prepared = PeriodicUtils.prepareInnerStatement(cypherAction, batchMode, result.columns(), "_batch");
             String innerStatement = applyPlanner(prepared.getLeft(), Planner.valueOf((String) config.getOrDefault("planner", Planner.DEFAULT.name())));
             boolean iterateList = prepared.getRight();
@@ -260,15 +314,38 @@ public class Periodic {
             if (log.isDebugEnabled()) {
             	log.debug("Starting periodic iterate from `%s` operation using iteration `%s` in separate thread with id: `%s`", cypherIterate,cypherAction, periodicId);
             }
+            BiFunction<Transaction, Map<String, Object>, QueryStatistics> consumer = (tx, p) -> {
+                final Result r = tx.execute(innerStatement, merge(params, p));
+                Iterators.count(r); // XXX: consume all results
+                return r.getQueryStatistics();
+            };
+            Iterator<Map<String,Object>> rows = result;
+            IterateProgress progress = null;
+            if (checkpointName != null) {
+                if (!result.columns().contains(checkpointKey)) {
+                    throw new IllegalArgumentException("The checkpointKey `" + checkpointKey + "` is not a column of the cypherIterate statement, available columns are " + result.columns());
+                }
+                String databaseName = db.databaseName();
+                progress = new IterateProgress(checkpointKey,
+                        checkpoint == null ? 0 : checkpoint.offset,
+                        checkpoint == null ? null : checkpoint.key,
+                        (offset, key, done) -> IterateCheckpoint.save(databaseName, checkpointName, cypherIterate, offset, key, done),
+                        checkpointInterval);
+                rows = progress.track(result);
+            }
+            if (partitionKey != null) {
+                if (!result.columns().contains(partitionKey)) {
+                    throw new IllegalArgumentException("The partitionKey `" + partitionKey + "` is not a column of the cypherIterate statement, available columns are " + result.columns());
+                }
+                return PeriodicUtils.iterateAndExecutePartitionedInSeparateThreads(
+                        db, terminationGuard, log, pools,
+                        adaptiveBatchSize, iterateList, retries, rows, consumer,
+                        concurrency, failedParams, periodicId, partitionKey, progress);
+            }
             return PeriodicUtils.iterateAndExecuteBatchedInSeparateThread(
                     db, terminationGuard, log, pools,
-                    (int)batchSize, parallel, iterateList, retries, result,
-                    (tx, p) -> {
-                        final Result r = tx.execute(innerStatement, merge(params, p));
-                        Iterators.count(r); // XXX: consume all results
-                        return r.getQueryStatistics();
-                    },
-                    concurrency, failedParams, periodicId);
+                    adaptiveBatchSize, parallel, iterateList, retries, rows, consumer,
+                    concurrency, failedParams, periodicId, progress);
         }
     }
 
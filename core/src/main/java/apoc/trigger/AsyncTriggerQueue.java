@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.trigger;
+
+import org.neo4j.logging.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Bounded queue of the committed transactions waiting for the `afterAsync` triggers.
+ * A single drain task at a time takes the queued commits in micro-batches,
+ * so that the triggers run once per batch instead of once per commit
+ */
+class AsyncTriggerQueue {
+
+    enum OverflowPolicy {
+        // wait for room in the queue, while the pool drains it
+        block,
+        // discard the commit
+        drop,
+        // run the triggers for the commit in the committing thread
+        callerRuns
+    }
+
+    private record Commit(TriggerMetadata metadata, long enqueuedAt) {}
+
+    private final BlockingQueue<Commit> queue;
+    private final int capacity;
+    private final int batchSize;
+    private final long batchWaitMillis;
+    private final OverflowPolicy overflowPolicy;
+    private final ExecutorService executor;
+    private final Consumer<List<TriggerMetadata>> processor;
+    private final Log log;
+
+    private final AtomicBoolean drainScheduled = new AtomicBoolean(false);
+
+    private final AtomicLong commits = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private volatile long lastBatchLag;
+
+    AsyncTriggerQueue(int capacity, int batchSize, long batchWaitMillis, OverflowPolicy overflowPolicy,
+                      ExecutorService executor, Consumer<List<TriggerMetadata>> processor, Log log) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.batchWaitMillis = batchWaitMillis;
+        this.overflowPolicy = overflowPolicy;
+        this.executor = executor;
+        this.processor = processor;
+        this.log = log;
+    }
+
+    void submit(TriggerMetadata metadata) {
+        final Commit commit = new Commit(metadata, System.currentTimeMillis());
+        commits.incrementAndGet();
+        if (!queue.offer(commit)) {
+            switch (overflowPolicy) {
+                case drop -> {
+                    if (dropped.getAndIncrement() % 1000 == 0) {
+                        log.warn("The afterAsync trigger queue is full, " + dropped.get() + " transaction(s) dropped so far");
+                    }
+                    return;
+                }
+                case callerRuns -> {
+                    process(List.of(commit));
+                    return;
+                }
+                case block -> put(commit);
+            }
+        }
+        scheduleDrain();
+    }
+
+    /**
+     * The committing thread only waits for room in the queue, the triggers always run in the pool
+     */
+    private void put(Commit commit) {
+        try {
+            while (!queue.offer(commit, 100, TimeUnit.MILLISECONDS)) {
+                scheduleDrain();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            dropped.incrementAndGet();
+        }
+    }
+
+    private void scheduleDrain() {
+        if (drainScheduled.compareAndSet(false, true)) {
+            executor.submit(this::drain);
+        }
+    }
+
+    private void drain() {
+        try {
+            while (!queue.isEmpty()) {
+                drainBatch();
+            }
+        } finally {
+            drainScheduled.set(false);
+            // commits queued after the last check, while still scheduled
+            if (!queue.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+    }
+
+    private void drainBatch() {
+        final List<Commit> batch = new ArrayList<>(Math.min(batchSize, queue.size()));
+        queue.drainTo(batch, batchSize);
+        if (batch.isEmpty()) return;
+        if (batchWaitMillis > 0) {
+            final long deadline = batch.get(0).enqueuedAt() + batchWaitMillis;
+            try {
+                long remaining;
+                while (batch.size() < batchSize && (remaining = deadline - System.currentTimeMillis()) > 0) {
+                    final Commit next = queue.poll(remaining, TimeUnit.MILLISECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                    queue.drainTo(batch, batchSize - batch.size());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        process(batch);
+    }
+
+    private void process(List<Commit> batch) {
+        lastBatchLag = System.currentTimeMillis() - batch.get(0).enqueuedAt();
+        batches.incrementAndGet();
+        try {
+            processor.accept(batch.stream().map(Commit::metadata).toList());
+        } catch (Exception e) {
+            failed.addAndGet(batch.size());
+            log.warn("Error executing afterAsync triggers for " + batch.size() + " transaction(s)", e);
+        }
+    }
+
+    /**
+     * Counts a commit whose triggers could not run, i.e. because its entities no longer exist
+     */
+    void failed(long count) {
+        failed.addAndGet(count);
+    }
+
+    AsyncTriggerStats stats() {
+        final Commit oldest = queue.peek();
+        final long lag = oldest == null ? 0 : System.currentTimeMillis() - oldest.enqueuedAt();
+        return new AsyncTriggerStats(queue.size(), capacity, commits.get(), batches.get(), dropped.get(), failed.get(), lag, lastBatchLag);
+    }
+}
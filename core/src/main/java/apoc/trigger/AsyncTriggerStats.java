@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.trigger;
+
+public class AsyncTriggerStats {
+    public final long queued;
+    public final long capacity;
+    public final long commits;
+    public final long batches;
+    public final long dropped;
+    public final long failed;
+    public final long lag;
+    public final long lastBatchLag;
+
+    public AsyncTriggerStats(long queued, long capacity, long commits, long batches, long dropped, long failed, long lag, long lastBatchLag) {
+        this.queued = queued;
+        this.capacity = capacity;
+        this.commits = commits;
+        this.batches = batches;
+        this.dropped = dropped;
+        this.failed = failed;
+        this.lag = lag;
+        this.lastBatchLag = lastBatchLag;
+    }
+}
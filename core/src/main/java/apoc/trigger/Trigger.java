@@ -64,7 +64,7 @@ public class Trigger {
     @Deprecated
     @Procedure(name = "apoc.trigger.add", mode = Mode.WRITE, deprecatedBy = "apoc.trigger.install")
     @Description("Adds a trigger to the given Cypher statement.\n" +
-            "The selector for this procedure is {phase:'before/after/rollback/afterAsync'}.")
+            "The selector for this procedure is {phase:'before/after/rollback/afterAsync'}, optionally restricted with {labels: [...], relTypes: [...], propertyKeys: [...]}.")
     public Stream<TriggerInfo> add(@Name("name") String name, @Name("statement") String statement, @Name(value = "selector")  Map<String,Object> selector, @Name(value = "config", defaultValue = "{}") Map<String,Object> config) {
         preprocessDeprecatedProcedures();
         
@@ -121,6 +121,13 @@ public class Trigger {
                 );
     }
 
+    @Admin
+    @Procedure(name = "apoc.trigger.asyncStats", mode = Mode.READ)
+    @Description("Returns the queue depth, lag and batch counters of the afterAsync triggers for the session database.")
+    public Stream<AsyncTriggerStats> asyncStats() {
+        return Stream.of(triggerHandler.asyncStats());
+    }
+
     @Admin
     @Deprecated
     @Procedure(name = "apoc.trigger.pause", mode = Mode.WRITE, deprecatedBy = "apoc.trigger.stop")
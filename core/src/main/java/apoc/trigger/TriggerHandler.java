@@ -29,6 +29,7 @@ import org.apache.commons.lang3.tuple.Pair;
 import org.neo4j.dbms.api.DatabaseManagementService;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.NotFoundException;
 import org.neo4j.graphdb.Result;
 import org.neo4j.graphdb.Transaction;
 import org.neo4j.graphdb.event.TransactionData;
@@ -39,8 +40,15 @@ import org.neo4j.scheduler.Group;
 import org.neo4j.scheduler.JobHandle;
 import org.neo4j.scheduler.JobScheduler;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -56,8 +64,20 @@ public class TriggerHandler extends LifecycleAdapter implements TransactionEvent
     private static final Map<String, Object> TRIGGER_META = Map.of("apoc.trigger", true);
 
     public static final String TRIGGER_REFRESH = "apoc.trigger.refresh";
+    /*
+     * The afterAsync settings are read once, when the first afterAsync trigger of the database is installed:
+     * changing them afterwards takes effect with the next restart.
+     * With a batch size above 1 the commits of a batch run the triggers once, with the merged changes,
+     * while $transactionId, $commitTime and $metaData are only the ones of the last commit of the batch
+     */
+    public static final String TRIGGER_ASYNC_QUEUE_SIZE = "apoc.trigger.async.queue.size";
+    public static final String TRIGGER_ASYNC_BATCH_SIZE = "apoc.trigger.async.batch.size";
+    public static final String TRIGGER_ASYNC_BATCH_WAIT = "apoc.trigger.async.batch.wait";
+    public static final String TRIGGER_ASYNC_OVERFLOW = "apoc.trigger.async.overflow";
 
     private final ConcurrentHashMap<String, Map<String,Object>> activeTriggers = new ConcurrentHashMap();
+    // the triggers that are not paused, by phase, rebuilt whenever the active triggers change
+    private volatile Map<Phase, List<TriggerEntry>> triggersByPhase = Collections.emptyMap();
     private final Log log;
     private final GraphDatabaseService db;
     private final DatabaseManagementService databaseManagementService;
@@ -69,6 +89,9 @@ public class TriggerHandler extends LifecycleAdapter implements TransactionEvent
 
     private JobHandle restoreTriggerHandler;
 
+    // created with the first `afterAsync` trigger, reading the async configuration at that time
+    private volatile AsyncTriggerQueue asyncQueue;
+
     private final AtomicBoolean registeredWithKernel = new AtomicBoolean(false);
 
     public static final String NOT_ENABLED_ERROR = "Triggers have not been enabled." +
@@ -117,9 +140,39 @@ public class TriggerHandler extends LifecycleAdapter implements TransactionEvent
             return null;
         });
 
+        indexTriggers();
         reconcileKernelRegistration();
     }
 
+    private void indexTriggers() {
+        Map<Phase, List<TriggerEntry>> index = new EnumMap<>(Phase.class);
+        activeTriggers.forEach((name, data) -> {
+            if ((boolean) data.get("paused")) return;
+            try {
+                TriggerEntry entry = new TriggerEntry(name, data);
+                index.computeIfAbsent(entry.phase, phase -> new ArrayList<>()).add(entry);
+            } catch (IllegalArgumentException e) {
+                log.warn("Ignoring trigger " + name + " with an invalid selector: " + e.getMessage());
+            }
+        });
+        triggersByPhase = index;
+        if (index.containsKey(Phase.afterAsync)) {
+            initAsyncQueue();
+        }
+    }
+
+    private synchronized void initAsyncQueue() {
+        if (asyncQueue != null) return;
+        asyncQueue = new AsyncTriggerQueue(
+                apocConfig.getInt(TRIGGER_ASYNC_QUEUE_SIZE, 10000),
+                apocConfig.getInt(TRIGGER_ASYNC_BATCH_SIZE, 1),
+                apocConfig.getInt(TRIGGER_ASYNC_BATCH_WAIT, 0),
+                AsyncTriggerQueue.OverflowPolicy.valueOf(apocConfig.getString(TRIGGER_ASYNC_OVERFLOW, "block")),
+                pools.getDefaultExecutorService(),
+                this::executeAsyncTriggers,
+                log);
+    }
+
     /**
      * There is substantial memory overhead to the kernel event system, so if a user has enabled apoc triggers in
      * config, but there are no triggers set up, unregister to let the kernel bypass the event handling system.
@@ -245,16 +298,41 @@ public class TriggerHandler extends LifecycleAdapter implements TransactionEvent
     }
 
     private void afterAsync(TransactionData txData) {
-        if (hasPhase(Phase.afterAsync)) {
-            TriggerMetadata triggerMetadata = TriggerMetadata.from(txData, true);
-            Util.inTxFuture(pools.getDefaultExecutorService(), db, (inner) -> {
-                setTriggerMetadata(inner);
-                executeTriggers(inner, triggerMetadata.rebind(inner), Phase.afterAsync);
-                return null;
-            });
+        AsyncTriggerQueue queue = asyncQueue;
+        if (queue != null && hasPhase(Phase.afterAsync)) {
+            queue.submit(TriggerMetadata.from(txData, true));
+        }
+    }
+
+    /**
+     * Runs the `afterAsync` triggers once, in a single transaction, for a batch of commits.
+     * Commits whose entities no longer exist (i.e. deleted by a later transaction) are skipped
+     */
+    private void executeAsyncTriggers(List<TriggerMetadata> batch) {
+        try (Transaction tx = db.beginTx()) {
+            setTriggerMetadata(tx);
+            List<TriggerMetadata> rebound = new ArrayList<>(batch.size());
+            for (TriggerMetadata triggerMetadata : batch) {
+                try {
+                    rebound.add(triggerMetadata.rebind(tx));
+                } catch (NotFoundException e) {
+                    log.warn("Skipping afterAsync triggers for transaction " + triggerMetadata.getTransactionId() + ": " + e.getMessage());
+                    asyncQueue.failed(1);
+                }
+            }
+            if (!rebound.isEmpty()) {
+                executeTriggers(tx, TriggerMetadata.merge(rebound), Phase.afterAsync);
+            }
+            tx.commit();
         }
     }
 
+    public AsyncTriggerStats asyncStats() {
+        checkEnabled();
+        AsyncTriggerQueue queue = asyncQueue;
+        return queue == null ? new AsyncTriggerStats(0, 0, 0, 0, 0, 0, 0, 0) : queue.stats();
+    }
+
     private static void setTriggerMetadata(Transaction tx) {
         tx.execute("CALL tx.setMetaData($data)",
                 Map.of("data", TRIGGER_META) );
@@ -271,9 +349,7 @@ public class TriggerHandler extends LifecycleAdapter implements TransactionEvent
     }
 
     private boolean hasPhase(Phase phase) {
-        return activeTriggers.values().stream()
-                .map(data -> (Map<String, Object>) data.get("selector"))
-                .anyMatch(selector -> when(selector, phase));
+        return triggersByPhase.containsKey(phase);
     }
 
     private void executeTriggers(Transaction tx, TransactionData txData, Phase phase) {
@@ -281,32 +357,84 @@ public class TriggerHandler extends LifecycleAdapter implements TransactionEvent
     }
 
     private void executeTriggers(Transaction tx, TriggerMetadata triggerMetadata, Phase phase) {
+        List<TriggerEntry> triggers = triggersByPhase.getOrDefault(phase, Collections.emptyList());
         Map<String,String> exceptions = new LinkedHashMap<>();
-        activeTriggers.forEach((name, data) -> {
-            Map<String, Object> params = triggerMetadata.toMap();
-            if (data.get("params") != null) {
-                params.putAll((Map<String, Object>) data.get("params"));
-            }
-            Map<String, Object> selector = (Map<String, Object>) data.get("selector");
-            if ((!(boolean)data.get("paused")) && when(selector, phase)) {
-                try {
-                    params.put("trigger", name);
-                    Result result = tx.execute((String) data.get("statement"), params);
-                    Iterators.count(result);
-                } catch (Exception e) {
-                    log.warn("Error executing trigger " + name + " in phase " + phase, e);
-                    exceptions.put(name, e.getMessage());
+        // built lazily and once per transaction, shared by all the triggers of the phase
+        Map<String, Object> metadata = null;
+        TriggerMetadata.ChangedTokens changes = null;
+        for (TriggerEntry trigger : triggers) {
+            if (trigger.hasTokenSelectors()) {
+                if (changes == null) {
+                    changes = triggerMetadata.changedTokens(tx);
                 }
+                if (!trigger.matches(changes)) continue;
             }
-        });
+            if (metadata == null) {
+                metadata = triggerMetadata.toMap();
+            }
+            Map<String, Object> params = new HashMap<>(metadata);
+            params.putAll(trigger.params);
+            try {
+                params.put("trigger", trigger.name);
+                Result result = tx.execute(trigger.statement, params);
+                Iterators.count(result);
+            } catch (Exception e) {
+                log.warn("Error executing trigger " + trigger.name + " in phase " + phase, e);
+                exceptions.put(trigger.name, e.getMessage());
+            }
+        }
         if (!exceptions.isEmpty()) {
             throw new RuntimeException("Error executing triggers "+exceptions.toString());
         }
     }
 
-    private boolean when(Map<String, Object> selector, Phase phase) {
-        if (selector == null) return phase == Phase.before;
-        return Phase.valueOf(selector.getOrDefault("phase", "before").toString()) == phase;
+    private static Phase phase(Map<String, Object> selector) {
+        if (selector == null) return Phase.before;
+        return Phase.valueOf(selector.getOrDefault("phase", "before").toString());
+    }
+
+    /**
+     * An active trigger, with its selector parsed.
+     * A trigger selecting `labels`, `relTypes` or `propertyKeys` only runs if the transaction changed any of them
+     */
+    private static class TriggerEntry {
+        private final String name;
+        private final String statement;
+        private final Map<String, Object> params;
+        private final Phase phase;
+        private final Set<String> labels;
+        private final Set<String> relTypes;
+        private final Set<String> propertyKeys;
+
+        TriggerEntry(String name, Map<String, Object> data) {
+            Map<String, Object> selector = (Map<String, Object>) data.get("selector");
+            this.name = name;
+            this.statement = (String) data.get("statement");
+            this.params = data.get("params") == null ? Collections.emptyMap() : (Map<String, Object>) data.get("params");
+            this.phase = phase(selector);
+            this.labels = tokens(selector, "labels");
+            this.relTypes = tokens(selector, "relTypes");
+            this.propertyKeys = tokens(selector, "propertyKeys");
+        }
+
+        private static Set<String> tokens(Map<String, Object> selector, String key) {
+            if (selector == null || selector.get(key) == null) return Collections.emptySet();
+            Object value = selector.get(key);
+            if (value instanceof Collection) {
+                return ((Collection<?>) value).stream().map(Object::toString).collect(Collectors.toSet());
+            }
+            return Set.of(value.toString());
+        }
+
+        boolean hasTokenSelectors() {
+            return !labels.isEmpty() || !relTypes.isEmpty() || !propertyKeys.isEmpty();
+        }
+
+        boolean matches(TriggerMetadata.ChangedTokens changes) {
+            return labels.stream().anyMatch(changes.labels()::contains)
+                    || relTypes.stream().anyMatch(changes.relTypes()::contains)
+                    || propertyKeys.stream().anyMatch(changes.propertyKeys()::contains);
+        }
     }
 
     @Override
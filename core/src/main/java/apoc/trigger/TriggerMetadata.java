@@ -26,6 +26,7 @@ import apoc.util.collection.Iterables;
 import org.neo4j.graphdb.Entity;
 import org.neo4j.graphdb.Label;
 import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.NotFoundException;
 import org.neo4j.graphdb.Relationship;
 import org.neo4j.graphdb.Transaction;
 import org.neo4j.graphdb.event.LabelEntry;
@@ -35,9 +36,13 @@ import org.neo4j.graphdb.event.TransactionData;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static apoc.util.Util.map;
 
@@ -81,6 +86,10 @@ public class TriggerMetadata {
         this.metaData = metaData;
     }
 
+    public long getTransactionId() {
+        return transactionId;
+    }
+
     public static TriggerMetadata from(TransactionData txData, boolean rebindDeleted) {
         long txId, commitTime;
         try {
@@ -167,6 +176,39 @@ public class TriggerMetadata {
                 assignedRelationshipProperties, metaData);
     }
 
+    /**
+     * Merges the metadata of consecutive transactions, in commit order, into a single one.
+     * The transaction id, commit time and metadata are the ones of the last transaction
+     */
+    public static TriggerMetadata merge(List<TriggerMetadata> metadata) {
+        if (metadata.size() == 1) return metadata.get(0);
+        final TriggerMetadata last = metadata.get(metadata.size() - 1);
+        return new TriggerMetadata(last.transactionId, last.commitTime,
+                mergeLists(metadata, m -> m.createdNodes),
+                mergeLists(metadata, m -> m.createdRelationships),
+                mergeLists(metadata, m -> m.deletedNodes),
+                mergeLists(metadata, m -> m.deletedRelationships),
+                mergeMaps(metadata, m -> m.removedLabels),
+                mergeMaps(metadata, m -> m.removedNodeProperties),
+                mergeMaps(metadata, m -> m.removedRelationshipProperties),
+                mergeMaps(metadata, m -> m.assignedLabels),
+                mergeMaps(metadata, m -> m.assignedNodeProperties),
+                mergeMaps(metadata, m -> m.assignedRelationshipProperties),
+                last.metaData);
+    }
+
+    private static <T> List<T> mergeLists(List<TriggerMetadata> metadata, Function<TriggerMetadata, List<T>> getter) {
+        final List<T> result = new ArrayList<>();
+        metadata.forEach(m -> result.addAll(getter.apply(m)));
+        return result;
+    }
+
+    private static <T> Map<String, List<T>> mergeMaps(List<TriggerMetadata> metadata, Function<TriggerMetadata, Map<String, List<T>>> getter) {
+        final Map<String, List<T>> result = new HashMap<>();
+        metadata.forEach(m -> getter.apply(m).forEach((key, values) -> result.computeIfAbsent(key, k -> new ArrayList<>()).addAll(values)));
+        return result;
+    }
+
     private <T extends Entity> Map<String, List<PropertyEntryContainer<T>>> rebindPropertyEntryContainer(Map<String, List<PropertyEntryContainer<T>>> map, Transaction tx) {
         return map.entrySet()
                 .stream()
@@ -204,6 +246,70 @@ public class TriggerMetadata {
                 "metaData", metaData);
     }
 
+    /**
+     * The labels, relationship types and property keys changed by the transaction
+     */
+    record ChangedTokens(Set<String> labels, Set<String> relTypes, Set<String> propertyKeys) {}
+
+    ChangedTokens changedTokens(Transaction tx) {
+        final Set<String> labels = new HashSet<>(assignedLabels.keySet());
+        labels.addAll(removedLabels.keySet());
+        final Set<Node> changedNodes = new HashSet<>();
+        Stream.concat(assignedNodeProperties.values().stream(), removedNodeProperties.values().stream())
+                .flatMap(List::stream)
+                .forEach(entry -> changedNodes.add(entry.entity));
+        for (Node node : changedNodes) {
+            final Node bound = rebindOrNull(tx, node);
+            if (bound != null) {
+                bound.getLabels().forEach(label -> labels.add(label.name()));
+            }
+        }
+
+        final Set<String> relTypes = new HashSet<>();
+        final Set<Relationship> changedRels = new HashSet<>(createdRelationships);
+        changedRels.addAll(deletedRelationships);
+        Stream.concat(assignedRelationshipProperties.values().stream(), removedRelationshipProperties.values().stream())
+                .flatMap(List::stream)
+                .forEach(entry -> changedRels.add(entry.entity));
+        for (Relationship rel : changedRels) {
+            final String type = typeOf(tx, rel);
+            if (type != null) {
+                relTypes.add(type);
+            }
+        }
+
+        final Set<String> propertyKeys = new HashSet<>(assignedNodeProperties.keySet());
+        propertyKeys.addAll(removedNodeProperties.keySet());
+        propertyKeys.addAll(assignedRelationshipProperties.keySet());
+        propertyKeys.addAll(removedRelationshipProperties.keySet());
+        return new ChangedTokens(labels, relTypes, propertyKeys);
+    }
+
+    /**
+     * The entity as readable in the transaction, or null if it no longer exists
+     * (e.g. deleted, whose labels are among the removed ones anyway, or created by a rolled back transaction)
+     */
+    private static Node rebindOrNull(Transaction tx, Node node) {
+        try {
+            return Util.rebind(tx, node);
+        } catch (NotFoundException e) {
+            return null;
+        }
+    }
+
+    private static String typeOf(Transaction tx, Relationship rel) {
+        try {
+            // the type of deleted relationships is kept by the transaction data
+            return rel.getType().name();
+        } catch (RuntimeException e) {
+            try {
+                return Util.rebind(tx, rel).getType().name();
+            } catch (NotFoundException notFound) {
+                return null;
+            }
+        }
+    }
+
     private static Map<String, List<Node>> aggregateLabels(Iterable<LabelEntry> labelEntries) {
         if (!labelEntries.iterator().hasNext()) return Collections.emptyMap();
         Map<String, List<Node>> result = new HashMap<>();
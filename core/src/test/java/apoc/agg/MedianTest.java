@@ -67,4 +67,25 @@ public class MedianTest {
                     assertEquals(2D, row.get("p"));
                 });
     }
+
+    @Test
+    public void testMedianUnordered() {
+        // repeated values and negative ones, in no particular order
+        testCall(db, "UNWIND range(1, 10001) as id RETURN apoc.agg.median((id * 7919) % 101 - 50) as p",
+                (row) -> assertEquals(0D, row.get("p")));
+        testCall(db, "UNWIND [5, -3, 5, 5, 2, -3, 8, 0] as value RETURN apoc.agg.median(value) as p",
+                (row) -> assertEquals(3.5D, row.get("p")));
+    }
+
+    @Test
+    public void testApproximateMedian() {
+        testCall(db, "UNWIND [] as value RETURN apoc.agg.median(value, {approximate: true}) as p",
+                (row) -> assertEquals(null, row.get("p")));
+        testCall(db, "UNWIND [1,1.5,2,2.5,3] as value RETURN apoc.agg.median(value, {approximate: true}) as p",
+                (row) -> assertEquals(2D, (double) row.get("p"), 0.01));
+        testCall(db, "UNWIND range(-1000, 2999) as value RETURN apoc.agg.median(value, {approximate: true, precision: 2}) as p",
+                (row) -> assertEquals(999.5D, (double) row.get("p"), 999.5D * 0.01));
+        testCall(db, "UNWIND range(-3000, 999) as value RETURN apoc.agg.median(value, {approximate: true}) as p",
+                (row) -> assertEquals(-1000.5D, (double) row.get("p"), 1000.5D * 0.001));
+    }
 }
@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.agg;
+
+import apoc.util.TestUtil;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.neo4j.test.rule.DbmsRule;
+import org.neo4j.test.rule.ImpermanentDbmsRule;
+
+import java.util.List;
+import java.util.Map;
+
+import static apoc.util.TestUtil.testCall;
+import static apoc.util.Util.map;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SketchesTest {
+
+    @ClassRule
+    public static DbmsRule db = new ImpermanentDbmsRule();
+
+    @BeforeClass
+    public static void setUp() {
+        TestUtil.registerProcedure(db, Sketches.class);
+    }
+
+    @AfterClass
+    public static void teardown() {
+        db.shutdown();
+    }
+
+    @Test
+    public void testDistinctCount() {
+        testCall(db, "UNWIND range(1, 100000) AS id RETURN apoc.sketch.distinctCount(apoc.agg.hll(id % 20000)) AS count",
+                (row) -> assertEquals(20000D, ((Number) row.get("count")).doubleValue(), 20000 * 0.03));
+        testCall(db, "UNWIND [1, 1.0, '1', null] AS value RETURN apoc.sketch.distinctCount(apoc.agg.hll(value, {precision: 4})) AS count",
+                (row) -> assertEquals(2L, row.get("count")));
+        testCall(db, "UNWIND [] AS value RETURN apoc.sketch.distinctCount(apoc.agg.hll(value)) AS count",
+                (row) -> assertEquals(0L, row.get("count")));
+    }
+
+    @Test
+    public void testMergePartialSketches() {
+        // the sketches of each partition, merged, estimate like the sketch of all the values
+        db.executeTransactionally("UNWIND range(0, 9) AS partition CREATE (:Rollup {partition: partition})");
+        db.executeTransactionally("MATCH (r:Rollup) " +
+                "CALL { WITH r UNWIND range(r.partition * 1000, r.partition * 1000 + 999) AS id " +
+                "  RETURN apoc.agg.hll(id % 5000) AS hll, apoc.agg.quantileSketch(id) AS quantiles, apoc.agg.frequencySketch(CASE WHEN id % 10 = 0 THEN 'hot' ELSE id END, {k: 3}) AS frequencies } " +
+                "SET r.hll = hll, r.quantiles = quantiles, r.frequencies = frequencies");
+
+        testCall(db, "MATCH (r:Rollup) WITH apoc.agg.mergeSketches(r.hll) AS hll, apoc.agg.mergeSketches(r.quantiles) AS quantiles, apoc.agg.mergeSketches(r.frequencies) AS frequencies " +
+                        "RETURN apoc.sketch.distinctCount(hll) AS distinct, apoc.sketch.quantiles(quantiles, [0.5, 0.99]) AS quantiles, " +
+                        "apoc.sketch.frequency(frequencies, 'hot') AS hot, apoc.sketch.frequency(frequencies, 42) AS other, apoc.sketch.topK(frequencies) AS top",
+                (row) -> {
+                    assertEquals(5000D, ((Number) row.get("distinct")).doubleValue(), 5000 * 0.03);
+                    List<Double> quantiles = (List<Double>) row.get("quantiles");
+                    assertEquals(4999D, quantiles.get(0), 5);
+                    assertEquals(9899D, quantiles.get(1), 10);
+                    // count-min estimates are never below the actual counts
+                    assertTrue((long) row.get("hot") >= 1000L);
+                    assertTrue((long) row.get("other") >= 1L);
+                    List<Map<String, Object>> top = (List<Map<String, Object>>) row.get("top");
+                    assertTrue(top.size() <= 3);
+                    assertEquals("hot", top.get(0).get("item"));
+                    assertTrue(top.get(1).get("item") instanceof Long);
+                });
+
+        testCall(db, "MATCH (r:Rollup) WITH collect(r.hll) AS sketches RETURN apoc.sketch.distinctCount(apoc.sketch.merge(sketches)) AS distinct",
+                (row) -> assertEquals(5000D, ((Number) row.get("distinct")).doubleValue(), 5000 * 0.03));
+    }
+
+    @Test
+    public void testQuantilesWithNegativeValues() {
+        testCall(db, "UNWIND range(-500, 499) AS value RETURN apoc.sketch.quantiles(apoc.agg.quantileSketch(value), [0.0, 0.25, 0.5, 1.0, null]) AS quantiles",
+                (row) -> {
+                    List<Double> quantiles = (List<Double>) row.get("quantiles");
+                    assertEquals(-500D, quantiles.get(0), 1);
+                    assertEquals(-251D, quantiles.get(1), 1);
+                    assertEquals(-1D, quantiles.get(2), 1);
+                    assertEquals(499D, quantiles.get(3), 1);
+                    assertNull(quantiles.get(4));
+                });
+    }
+
+    @Test
+    public void testQuantilesOfNegativeValuesOnly() {
+        testCall(db, "UNWIND range(-100, -1) AS value RETURN apoc.sketch.quantiles(apoc.agg.quantileSketch(value), [0.0, 0.5, 1.0]) AS quantiles",
+                (row) -> {
+                    List<Double> quantiles = (List<Double>) row.get("quantiles");
+                    assertEquals(-100D, quantiles.get(0), 1);
+                    assertEquals(-51D, quantiles.get(1), 1);
+                    assertEquals(-1D, quantiles.get(2), 1);
+                });
+    }
+
+    @Test
+    public void testQuantileOutOfRange() {
+        RuntimeException e = org.junit.Assert.assertThrows(RuntimeException.class,
+                () -> testCall(db, "RETURN apoc.sketch.quantiles(apoc.agg.quantileSketch(1), [1.5]) AS quantiles", (row) -> {}));
+        assertTrue(e.getMessage(), e.getMessage().contains("A quantile must be between 0 and 1, got 1.5"));
+    }
+
+    @Test
+    public void testDistinctCountOfArrays() {
+        testCall(db, "UNWIND $values AS value RETURN apoc.sketch.distinctCount(apoc.agg.hll(value)) AS distinct",
+                map("values", List.of(new byte[] {1, 2}, new byte[] {1, 2}, new byte[] {2, 1}, List.of(1, 2), new long[] {1, 2}, new String[] {"1", "2"})),
+                (row) -> assertEquals(4L, row.get("distinct")));
+    }
+
+    @Test
+    public void testMergeDifferentKinds() {
+        RuntimeException e = org.junit.Assert.assertThrows(RuntimeException.class,
+                () -> testCall(db, "RETURN apoc.sketch.merge([apoc.agg.hll(1), apoc.agg.quantileSketch(1)]) AS sketch", (row) -> {}));
+        assertTrue(e.getMessage(), e.getMessage().contains("Cannot merge a QuantileSketch sketch into a HyperLogLog one"));
+    }
+}
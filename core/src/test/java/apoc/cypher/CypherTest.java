@@ -39,6 +39,8 @@ import org.neo4j.graphdb.Result;
 import org.neo4j.graphdb.Transaction;
 import org.neo4j.graphdb.schema.ConstraintDefinition;
 import org.neo4j.graphdb.schema.IndexDefinition;
+import org.neo4j.procedure.Name;
+import org.neo4j.procedure.UserFunction;
 import org.neo4j.test.rule.DbmsRule;
 import org.neo4j.test.rule.ImpermanentDbmsRule;
 
@@ -64,6 +66,7 @@ import static java.util.Collections.singletonMap;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 
@@ -81,10 +84,24 @@ public class CypherTest {
     @Rule
     public ExpectedException thrown= ExpectedException.none();
 
+    public static class UninterruptibleSleep {
+        @UserFunction("apoc.test.sleepIgnoringTermination")
+        public long sleepIgnoringTermination(@Name("duration") long duration) {
+            // unlike apoc.util.sleep, this does not check whether the transaction has been terminated
+            long end = System.currentTimeMillis() + duration;
+            while (System.currentTimeMillis() < end) {
+                try {
+                    Thread.sleep(end - System.currentTimeMillis());
+                } catch (InterruptedException ignored) {}
+            }
+            return duration;
+        }
+    }
+
     @BeforeClass
     public static void setUp() {
         apocConfig().setProperty(APOC_IMPORT_FILE_ENABLED, true);
-        TestUtil.registerProcedure(db, Cypher.class, Utils.class, CypherFunctions.class, Timeboxed.class, Strings.class);
+        TestUtil.registerProcedure(db, Cypher.class, Utils.class, CypherFunctions.class, Timeboxed.class, Strings.class, UninterruptibleSleep.class);
     }
 
     @After
@@ -157,6 +174,29 @@ public class CypherTest {
                 r -> assertEquals(Arrays.asList(1L,2L,3L), (r.get("s"))));
     }
 
+    @Test
+    public void testPrewarmAndStatementCache() {
+        final Map<String, Object> before = TestUtil.singleResultFirstColumn(db, "CALL apoc.cypher.statementCacheStats() YIELD hits, misses RETURN {hits: hits, misses: misses}");
+        final String statement = "RETURN a * 2 AS prewarmed";
+
+        testCall(db, "CALL apoc.cypher.prewarm($statement, {a: 1})", map("statement", statement), r -> {
+            final String resolved = (String) r.get("statement");
+            assertTrue(resolved, resolved.startsWith("cypher runtime=slotted "));
+            assertTrue(resolved, resolved.endsWith(statement));
+            assertEquals((long) before.get("misses") + 1, r.get("misses"));
+        });
+
+        testCall(db, "UNWIND range(1, 10) AS a RETURN sum(apoc.cypher.runFirstColumnSingle($statement, {a: a})) AS s",
+                map("statement", statement),
+                r -> assertEquals(110L, r.get("s")));
+
+        testCall(db, "CALL apoc.cypher.statementCacheStats()", r -> {
+            assertEquals((long) before.get("hits") + 10, r.get("hits"));
+            assertEquals((long) before.get("misses") + 1, r.get("misses"));
+            assertNull(r.get("statement"));
+        });
+    }
+
     @Test
     public void testRunFirstColumnBugCompiled() {
         TestUtil.singleResultFirstColumn(db, "CREATE (m:Movie  {title:'MovieA'})<-[:ACTED_IN]-(p:Person {name:'PersonA'})-[:ACTED_IN]->(m2:Movie {title:'MovieB'}) RETURN m");
@@ -248,6 +288,39 @@ public class CypherTest {
         assertEquals(1, count);
     }
 
+    @Test
+    public void testRunManyParallel() {
+        // the relationships block can only run after the nodes block has been committed
+        final StringBuilder statements = new StringBuilder(":begin\n");
+        for (int i = 0; i < 20; i++) {
+            statements.append("UNWIND range(").append(i * 10).append(", ").append(i * 10 + 9).append(") AS id CREATE (:Item {id: id});\n");
+        }
+        statements.append(":commit\n:begin\n");
+        for (int i = 1; i < 20; i++) {
+            statements.append("MATCH (a:Item {id: 0}), (b:Item {id: ").append(i * 10).append("}) CREATE (a)-[:NEXT]->(b);\n");
+        }
+        statements.append(":commit\n");
+
+        testResult(db, "CALL apoc.cypher.runMany($statements, {}, {parallel: true, concurrency: 4})",
+                map("statements", statements.toString()),
+                r -> {
+                    long statementsRun = 0, nodesCreated = 0, relationshipsCreated = 0;
+                    while (r.hasNext()) {
+                        Map<String, Object> row = r.next();
+                        assertEquals(-1L, row.get("row"));
+                        Map result = (Map) row.get("result");
+                        statementsRun++;
+                        nodesCreated += toLong(result.get("nodesCreated"));
+                        relationshipsCreated += toLong(result.get("relationshipsCreated"));
+                    }
+                    assertEquals(39L, statementsRun);
+                    assertEquals(200L, nodesCreated);
+                    assertEquals(19L, relationshipsCreated);
+                });
+        testCall(db, "MATCH (:Item {id: 0})-[r:NEXT]->(:Item) RETURN count(r) AS count",
+                row -> assertEquals(19L, row.get("count")));
+    }
+
     @Test
     public void testRunManyReadOnlyShouldFail() {
         final Map<String, Object> map = map("name", "John", "name2", "Doe");
@@ -284,6 +357,48 @@ public class CypherTest {
         assertFalse(db.executeTransactionally("CALL apoc.cypher.runTimeboxed('CALL apoc.util.sleep(10)', null, $timeout)", singletonMap("timeout", 10000), result -> result.hasNext()));
     }
 
+    @Test(timeout=9000)
+    public void testRunTimeboxedDirect() {
+        testResult(db, "CALL apoc.cypher.runTimeboxed('UNWIND range(1, $max) AS id RETURN id', {max: 5}, 10000, {direct: true})",
+                r -> assertEquals(List.of(1L, 2L, 3L, 4L, 5L), Iterators.asList(r.<Map<String, Object>>columnAs("value")).stream().map(row -> row.get("id")).toList()));
+    }
+
+    @Test
+    public void testRunTimeboxedWithMaxTimeout() {
+        // the deadline of the longest timeout must not overflow into the past
+        for (boolean direct : List.of(false, true)) {
+            testResult(db, "CALL apoc.cypher.runTimeboxed('UNWIND range(1, 3) AS id RETURN id', {}, $timeout, {direct: $direct})",
+                    Map.of("timeout", Long.MAX_VALUE, "direct", direct),
+                    r -> assertEquals(List.of(1L, 2L, 3L), Iterators.asList(r.<Map<String, Object>>columnAs("value")).stream().map(row -> row.get("id")).toList()));
+        }
+    }
+
+    @Test(timeout=9000)
+    public void testRunTimeboxedDirectWithTimeout() {
+        long timeBefore = System.currentTimeMillis();
+        assertFalse(db.executeTransactionally(
+                "CALL apoc.cypher.runTimeboxed('CALL apoc.util.sleep(10000) RETURN 1', null, $timeout, {direct: true})",
+                singletonMap("timeout", 100),
+                result -> result.hasNext()));
+        assertThat(System.currentTimeMillis() - timeBefore, Matchers.lessThan(5000L));
+    }
+
+    @Test(timeout=20000)
+    public void testRunTimeboxedWithStatementIgnoringTermination() {
+        // the second row arrives before the deadline, the third one only long after it
+        long timeBefore = System.currentTimeMillis();
+        testResult(db, "CALL apoc.cypher.runTimeboxed('UNWIND [0, 1000, 5000] AS duration RETURN apoc.test.sleepIgnoringTermination(duration) AS slept', {}, 2000)",
+                r -> assertEquals(List.of(0L, 1000L), Iterators.asList(r.<Map<String, Object>>columnAs("value")).stream().map(row -> row.get("slept")).toList()));
+        // the deadline ends the call, without waiting for the statement or for another timeout
+        assertThat(System.currentTimeMillis() - timeBefore, Matchers.lessThan(2800L));
+    }
+
+    @Test(timeout=9000)
+    public void testRunTimeboxedQueueCapacity() {
+        testCall(db, "CALL apoc.cypher.runTimeboxed('UNWIND range(1, 1000) AS id RETURN id', {}, 5000, {queueCapacity: 1}) YIELD value RETURN count(value) AS count",
+                r -> assertEquals(1000L, r.get("count")));
+    }
+
     @Test
     public void testSimpleWhenIfCondition() {
         testCall(db, "CALL apoc.when(true, 'RETURN 7 as b')",
@@ -21,6 +21,7 @@ package apoc.export.arrow;
 import apoc.graph.Graphs;
 import apoc.load.LoadArrow;
 import apoc.meta.Meta;
+import apoc.periodic.Periodic;
 import apoc.util.JsonUtil;
 import apoc.util.TestUtil;
 import com.fasterxml.jackson.core.JsonProcessingException;
@@ -36,6 +37,7 @@ import org.neo4j.test.rule.ImpermanentDbmsRule;
 import java.io.File;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
@@ -47,6 +49,7 @@ import static apoc.ApocConfig.APOC_EXPORT_FILE_ENABLED;
 import static apoc.ApocConfig.APOC_IMPORT_FILE_ENABLED;
 import static apoc.ApocConfig.apocConfig;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 
 public class ArrowTest {
 
@@ -113,7 +116,7 @@ public class ArrowTest {
     @BeforeClass
     public static void beforeClass() {
         db.executeTransactionally("CREATE (f:User {name:'Adam',age:42,male:true,kids:['Sam','Anna','Grace'], born:localdatetime('2015-05-18T19:32:24.000'), place:point({latitude: 13.1, longitude: 33.46789, height: 100.0})})-[:KNOWS {since: 1993, bffSince: duration('P5M1.5D')}]->(b:User {name:'Jim',age:42})");
-        TestUtil.registerProcedure(db, ExportArrow.class, LoadArrow.class, Graphs.class, Meta.class);
+        TestUtil.registerProcedure(db, ExportArrow.class, LoadArrow.class, Graphs.class, Meta.class, Periodic.class);
     }
 
     @Before
@@ -316,6 +319,85 @@ public class ArrowTest {
         });
     }
 
+    @Test
+    public void testFileRoundtripArrowAllParallel() {
+        // given - when
+        String file = db.executeTransactionally("CALL apoc.export.arrow.all('all_parallel_test.arrow', {parallel: true}) YIELD file",
+                Map.of(),
+                this::extractFileName);
+
+        // then
+        final String query = "CALL apoc.load.arrow($file) YIELD value " +
+                "RETURN value";
+        db.executeTransactionally(query, Map.of("file", file), result -> {
+            final List<Map<String, Object>> actual = getActual(result);
+            assertEquals(EXPECTED, actual);
+            return null;
+        });
+    }
+
+    @Test
+    public void testStreamRoundtripArrowAllParallel() {
+        // given - when
+        final List<byte[]> list = db.executeTransactionally("CALL apoc.export.arrow.stream.all({parallel: true}) YIELD value AS byteArray ",
+                Map.of(),
+                result -> result.<byte[]>columnAs("byteArray").stream().collect(Collectors.toList()));
+
+        // then
+        final String query = "UNWIND $list AS byteArray " +
+                "CALL apoc.load.arrow.stream(byteArray) YIELD value " +
+                "RETURN value";
+        db.executeTransactionally(query, Map.of("list", list), result -> {
+            final List<Map<String, Object>> actual = getActual(result);
+            assertEquals(EXPECTED, actual);
+            return null;
+        });
+    }
+
+    @Test
+    public void testVolumeArrowAllParallel() {
+        // given - when
+        db.executeTransactionally("UNWIND range(0, 10000 - 1) AS id CREATE (:ArrowNode{id:id})");
+
+        final List<byte[]> list = db.executeTransactionally("CALL apoc.export.arrow.stream.all({parallel: true, batchSize: 300, concurrency: 4}) YIELD value AS byteArray ",
+                Map.of(),
+                result -> result.<byte[]>columnAs("byteArray").stream().collect(Collectors.toList()));
+        String file = db.executeTransactionally("CALL apoc.export.arrow.all('volume_parallel_test.arrow', {parallel: true, batchSize: 300, concurrency: 4}) YIELD file, nodes, relationships " +
+                        "RETURN file, nodes, relationships",
+                Map.of(),
+                result -> {
+                    final Map<String, Object> row = result.next();
+                    assertEquals(10002L, row.get("nodes"));
+                    assertEquals(1L, row.get("relationships"));
+                    return (String) row.get("file");
+                });
+
+        final List<Long> expected = LongStream.range(0, 10000)
+                .mapToObj(l -> l)
+                .collect(Collectors.toList());
+
+        // then
+        final String streamQuery = "UNWIND $list AS byteArray " +
+                "CALL apoc.load.arrow.stream(byteArray) YIELD value " +
+                "WITH value WHERE 'ArrowNode' IN value.labels " +
+                "RETURN value.id AS id";
+        final String fileQuery = "CALL apoc.load.arrow($file) YIELD value " +
+                "WITH value WHERE 'ArrowNode' IN value.labels " +
+                "RETURN value.id AS id";
+        for (String query : List.of(streamQuery, fileQuery)) {
+            db.executeTransactionally(query, Map.of("list", list, "file", file), result -> {
+                final List<Long> actual = result.stream()
+                        .map(m -> (Long) m.get("id"))
+                        .sorted()
+                        .collect(Collectors.toList());
+                assertEquals(expected, actual);
+                return null;
+            });
+        }
+
+        db.executeTransactionally("MATCH (n:ArrowNode) DELETE n");
+    }
+
     @Test
     public void testStreamVolumeArrowAll() {
         // given - when
@@ -373,6 +455,74 @@ public class ArrowTest {
         db.executeTransactionally("MATCH (n:ArrowNode) DELETE n");
     }
 
+    @Test
+    public void testFileBatchesArrowAll() {
+        // given - when
+        String file = db.executeTransactionally("CALL apoc.export.arrow.all('batches_test.arrow') YIELD file",
+                Map.of(),
+                this::extractFileName);
+
+        // then
+        final String query = "CALL apoc.load.arrow.batches($file) YIELD batch, count, value " +
+                "RETURN batch, count, value";
+        db.executeTransactionally(query, Map.of("file", file), result -> {
+            final Map<String, Object> row = result.next();
+            assertEquals(0L, row.get("batch"));
+            assertEquals(3L, row.get("count"));
+            final Map<String, Object> value = (Map<String, Object>) row.get("value");
+            assertEquals(Arrays.asList("Adam", "Jim", null), value.get("name"));
+            assertEquals(Arrays.asList(0L, 1L, 0L), value.get("<id>"));
+            assertEquals(Arrays.asList(null, null, "KNOWS"), value.get("<type>"));
+            assertEquals(Arrays.asList(List.of("Sam", "Anna", "Grace"), null, null), value.get("kids"));
+            assertFalse(result.hasNext());
+            return null;
+        });
+    }
+
+    @Test
+    public void testStreamBatchesArrowQuery() {
+        // given - when
+        final List<byte[]> list = db.executeTransactionally("CALL apoc.export.arrow.stream.query('UNWIND range(0, 2499) AS id RETURN id', {batchSize: 1000}) YIELD value AS byteArray ",
+                Map.of(),
+                result -> result.<byte[]>columnAs("byteArray").stream().collect(Collectors.toList()));
+
+        // then
+        final String query = "UNWIND $list AS byteArray " +
+                "CALL apoc.load.arrow.stream.batches(byteArray) YIELD count, value " +
+                "RETURN count, value.id AS ids";
+        db.executeTransactionally(query, Map.of("list", list), result -> {
+            final List<Long> actual = new ArrayList<>();
+            final List<Long> counts = new ArrayList<>();
+            result.forEachRemaining(row -> {
+                counts.add((Long) row.get("count"));
+                actual.addAll((List<Long>) row.get("ids"));
+            });
+            assertEquals(3, counts.size());
+            assertEquals(2500L, counts.stream().mapToLong(Long::longValue).sum());
+            assertEquals(LongStream.range(0, 2500).boxed().collect(Collectors.toList()), actual);
+            return null;
+        });
+    }
+
+    @Test
+    public void testFileBatchesArrowQueryParallelIterate() {
+        // given - when
+        String file = db.executeTransactionally("CALL apoc.export.arrow.query('batches_volume_test.arrow', 'UNWIND range(0, 9999) AS id RETURN id', {batchSize: 500}) YIELD file ",
+                Map.of(),
+                this::extractFileName);
+
+        // then
+        db.executeTransactionally("CALL apoc.periodic.iterate('CALL apoc.load.arrow.batches($file) YIELD value RETURN value', " +
+                        "'UNWIND value.id AS id CREATE (:ArrowBatchNode {id: id})', {batchSize: 1, parallel: true, params: {file: $file}})",
+                Map.of("file", file));
+        TestUtil.testCall(db, "MATCH (n:ArrowBatchNode) RETURN count(n) AS count, count(DISTINCT n.id) AS ids", row -> {
+            assertEquals(10000L, row.get("count"));
+            assertEquals(10000L, row.get("ids"));
+        });
+
+        db.executeTransactionally("MATCH (n:ArrowBatchNode) DELETE n");
+    }
+
     @Test
     public void testValidNonStorableQuery() {
         final List<byte[]> list = db.executeTransactionally("CALL apoc.export.arrow.stream.query($query) YIELD value AS byteArray ",
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.export.csv;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CsvIdMappingTest {
+
+    @Test
+    public void testNumericIds() {
+        try (CsvIdMapping mapping = new CsvIdMapping(false)) {
+            for (long i = -50_000; i < 50_000; i++) {
+                mapping.put("Person", String.valueOf(i * 7), i + 50_000);
+            }
+            mapping.put("City", "0", 42);
+
+            for (long i = -50_000; i < 50_000; i++) {
+                assertEquals(i + 50_000, mapping.get("Person", String.valueOf(i * 7)));
+            }
+            assertEquals(50_000L, mapping.get("Person", "0"));
+            assertEquals(42L, mapping.get("City", "0"));
+            assertFalse(mapping.contains("Person", "1"));
+            assertFalse(mapping.contains("Company", "0"));
+            assertEquals(CsvIdMapping.NOT_FOUND, mapping.get("Person", null));
+        }
+    }
+
+    @Test
+    public void testNonCanonicalNumericIds() {
+        try (CsvIdMapping mapping = new CsvIdMapping(false)) {
+            mapping.put("Person", "1", 1);
+            mapping.put("Person", "01", 2);
+            mapping.put("Person", "abc", 3);
+            mapping.put("Person", "", 4);
+            mapping.put("Person", String.valueOf(Long.MIN_VALUE), 5);
+            mapping.put("Person", "9223372036854775808", 6);
+
+            assertEquals(1L, mapping.get("Person", "1"));
+            assertEquals(2L, mapping.get("Person", "01"));
+            assertEquals(3L, mapping.get("Person", "abc"));
+            assertEquals(4L, mapping.get("Person", ""));
+            assertEquals(5L, mapping.get("Person", String.valueOf(Long.MIN_VALUE)));
+            assertEquals(6L, mapping.get("Person", "9223372036854775808"));
+            // unknown ids, numeric or not, are missing nodes
+            assertEquals(CsvIdMapping.NOT_FOUND, mapping.get("Person", " 1"));
+            assertEquals(CsvIdMapping.NOT_FOUND, mapping.get("Person", "-0"));
+            assertEquals(CsvIdMapping.NOT_FOUND, mapping.get("Person", "xyz"));
+            assertEquals(CsvIdMapping.NOT_FOUND, mapping.get("Person", "   "));
+        }
+        try (CsvIdMapping mapping = new CsvIdMapping(false)) {
+            mapping.put("Person", "1", 1);
+            assertEquals(CsvIdMapping.NOT_FOUND, mapping.get("Person", "abc"));
+        }
+    }
+
+    @Test
+    public void testStringIds() {
+        try (CsvIdMapping mapping = new CsvIdMapping(true)) {
+            for (int i = 0; i < 100_000; i++) {
+                mapping.put("Person", "person-" + i, i);
+            }
+            mapping.put("City", "person-1", 1_000_000);
+            mapping.put("Person", "ünïcode", 123);
+
+            for (int i = 0; i < 100_000; i++) {
+                assertEquals(i, mapping.get("Person", "person-" + i));
+            }
+            assertEquals(1_000_000L, mapping.get("City", "person-1"));
+            assertEquals(123L, mapping.get("Person", "ünïcode"));
+            assertTrue(mapping.contains("Person", "person-0"));
+            assertFalse(mapping.contains("Person", "person-100000"));
+            assertFalse(mapping.contains("City", "person-2"));
+        }
+    }
+}
@@ -207,6 +207,62 @@ public class ImportCsvTest {
                 (r) -> assertEquals(664850L, r.get("nodes")));
     }
     
+    @Test
+    public void testImportCsvParallel() throws IOException {
+        final int nodes = 1000;
+        final StringBuilder persons = new StringBuilder("id:ID,name:STRING\n");
+        final StringBuilder knows = new StringBuilder(":START_ID,:END_ID,since:INT\n");
+        for (int i = 0; i < nodes; i++) {
+            persons.append(i).append(",Person").append(i).append("\n");
+            knows.append(i).append(",").append((i + 1) % nodes).append(",").append(i).append("\n");
+            knows.append(i).append(",").append((i * 7) % nodes).append(",").append(-i).append("\n");
+        }
+        CsvTestUtil.saveCsvFile("parallel-persons", persons.toString());
+        CsvTestUtil.saveCsvFile("parallel-knows", knows.toString());
+
+        TestUtil.testCall(db,
+                "CALL apoc.import.csv([{fileName: $nodeFile, labels: ['Person']}], [{fileName: $relFile, type: 'KNOWS'}], $config)",
+                map("nodeFile", "file:/parallel-persons.csv",
+                        "relFile", "file:/parallel-knows.csv",
+                        "config", map("parallel", true, "concurrency", 4, "batchSize", 50, "stringIds", false)),
+                (r) -> {
+                    assertEquals((long) nodes, r.get("nodes"));
+                    assertEquals(2L * nodes, r.get("relationships"));
+                    assertEquals(4L * nodes, r.get("properties"));
+                }
+        );
+
+        final long next = TestUtil.singleResultFirstColumn(db,
+                "MATCH (a:Person)-[r:KNOWS]->(b:Person) WHERE r.since >= 0 AND b.id = (a.id + 1) % $nodes AND r.since = a.id RETURN count(*)",
+                map("nodes", nodes));
+        assertEquals(nodes, next);
+        final long multiplied = TestUtil.singleResultFirstColumn(db,
+                "MATCH (a:Person)-[r:KNOWS]->(b:Person) WHERE r.since <= 0 AND b.id = (a.id * 7) % $nodes AND r.since = -a.id RETURN count(*)",
+                map("nodes", nodes));
+        assertEquals(nodes, multiplied);
+    }
+
+    @Test
+    public void testImportCsvParallelFailures() {
+        QueryExecutionException e = assertThrows(QueryExecutionException.class,
+                () ->  db.executeTransactionally("CALL apoc.import.csv([{fileName: $nodeFile, labels: ['Person']}], [{fileName: $relFile, type: 'KNOWS'}], $config)",
+                        map("nodeFile", "file:/persons.csv",
+                                "relFile", "file:/knows.csv",
+                                "config", map("stringIds", false, "parallel", true, "batchSize", 1)))
+        );
+        assertTrue(e.getMessage().contains("Node for id space __CSV_DEFAULT_IDSPACE and id 10 not found"));
+
+        e = assertThrows(QueryExecutionException.class,
+                () -> db.executeTransactionally(
+                        "CALL apoc.import.csv([{fileName: $file, labels: ['Person']}], [], $config)",
+                        map(
+                                "file", "file:/id-with-duplicates.csv",
+                                "config", map("delimiter", '|', "stringIds", false, "ignoreDuplicateNodes", false, "parallel", true)
+                        ))
+        );
+        assertTrue(e.getMessage().contains("Duplicate node with id 1 found on line 2"));
+    }
+
     @Test
     public void testImportCsvTerminate() {
         checkTerminationGuard(db, "CALL apoc.import.csv([{fileName: $nodeFile, labels: ['Person']}], [], $config)",
@@ -214,6 +270,28 @@ public class ImportCsvTest {
                         "config", map("batchSize", 100L)));
     }
 
+    @Test
+    public void testImportCsvParallelTerminate() {
+        checkTerminationGuard(db, "CALL apoc.import.csv([{fileName: $nodeFile, labels: ['Person']}], [], $config)",
+                map("nodeFile", "file:/largeFile.csv",
+                        "config", map("batchSize", 100L, "parallel", true)));
+    }
+
+    @Test
+    public void testMissingStartNodeReportsItsIdSpace() {
+        for (boolean parallel : List.of(false, true)) {
+            QueryExecutionException e = assertThrows(QueryExecutionException.class,
+                    () -> db.executeTransactionally("CALL apoc.import.csv([{fileName: $companyFile, labels: ['Company']}, {fileName: $universityFile, labels: ['University']}], " +
+                                    "[{fileName: $relFile, type: 'AFFILIATED_WITH'}], $config)",
+                            map("companyFile", "file:/custom-ids-idspaces-companies.csv",
+                                    "universityFile", "file:/custom-ids-idspaces-unis.csv",
+                                    "relFile", "file:/custom-ids-idspaces-affiliated-with.csv",
+                                    "config", map("parallel", parallel))));
+            assertTrue(e.getMessage(), e.getMessage().contains("Node for id space Person and id 1 not found"));
+            db.executeTransactionally("MATCH (n) DETACH DELETE n");
+        }
+    }
+
     @Test
     public void testNodesWithIds() {
         TestUtil.testCall(
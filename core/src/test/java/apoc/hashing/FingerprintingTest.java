@@ -123,6 +123,29 @@ public class FingerprintingTest  {
         assertNotEquals(valueAfter, valueWithExclude);
     }
 
+    @Test
+    public void fingerprintGraphParallel() {
+        String cypher = "UNWIND range(0, 999) AS id " +
+                "CREATE (p:Person {name: 'P' + (id % 100), created: timestamp()})-[:KNOWS {since: id % 10}]->(:Person {name: 'Q' + (id % 7)})";
+        String query = "return apoc.hashing.fingerprintGraph(['created'], $conf) as hash";
+        db.executeTransactionally(cypher);
+        String value = TestUtil.singleResultFirstColumn(db, query, map("conf", map("parallel", true)));
+        // the partitions and their order do not change the result
+        assertEquals(value, TestUtil.singleResultFirstColumn(db, query, map("conf", map("parallel", true, "batchSize", 7, "concurrency", 3))));
+        assertEquals(value, TestUtil.singleResultFirstColumn(db, query, map("conf", map("parallel", true, "batchSize", 100, "concurrency", 1))));
+        assertNotEquals(value, TestUtil.singleResultFirstColumn(db, query, map("conf", map())));
+
+        // nor the ids of the nodes
+        db.executeTransactionally("match (n) detach delete n");
+        db.executeTransactionally("CREATE (:Other)");
+        db.executeTransactionally(cypher);
+        db.executeTransactionally("MATCH (n:Other) DELETE n");
+        assertEquals(value, TestUtil.singleResultFirstColumn(db, query, map("conf", map("parallel", true, "batchSize", 13))));
+
+        db.executeTransactionally("MATCH (p:Person {name: 'P1'})-[r:KNOWS]->() WITH r LIMIT 1 SET r.since = -1");
+        assertNotEquals(value, TestUtil.singleResultFirstColumn(db, query, map("conf", map("parallel", true))));
+    }
+
     @Test
     public void testExcludes() {
         compareGraph("CREATE (:Person{name:'ABC', created:timestamp()})", singletonList("created"), true);
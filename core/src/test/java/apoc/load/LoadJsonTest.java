@@ -158,6 +158,29 @@ public class LoadJsonTest {
                     assertEquals(map("result",asList(1L,2L,3L)), row.get("value"));
                 });
     }
+    @Test public void testLoadJsonStreamArray() {
+        URL url = ClassLoader.getSystemResource("items.json");
+        final String query = "CALL apoc.load.json($url, $path, $config) YIELD value RETURN value";
+        for (String path : List.of("$.items[*]", "$['items'][*]")) {
+            List<Object> expected = db.executeTransactionally(query, map("url", url.toString(), "path", path, "config", map()),
+                    result -> Iterators.asList(result.columnAs("value")));
+            List<Object> actual = db.executeTransactionally(query, map("url", url.toString(), "path", path, "config", map("stream", true)),
+                    result -> Iterators.asList(result.columnAs("value")));
+            assertEquals(path, expected, actual);
+        }
+
+        testResult(db, query, map("url", url.toString(), "path", "$.meta.items[*]", "config", map("stream", true)),
+                (result) -> {
+                    assertEquals(map("result", "skip"), result.next().get("value"));
+                    assertEquals(map("result", 1L), result.next().get("value"));
+                    assertFalse(result.hasNext());
+                });
+
+        QueryExecutionException e = assertThrows(QueryExecutionException.class,
+                () -> testCall(db, query, map("url", url.toString(), "path", "$..items", "config", map("stream", true)), (r) -> {}));
+        assertTrue(e.getMessage().contains("is not supported in stream mode"));
+    }
+
     @Test public void testLoadJsonPathRoot() {
 		URL url = ClassLoader.getSystemResource("map.json");
 		testCall(db, "CALL apoc.load.json($url,'$')",map("url",url.toString()), // 'file:map.json' YIELD value RETURN value
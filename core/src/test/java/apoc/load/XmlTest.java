@@ -106,6 +106,32 @@ public class XmlTest {
                 });
     }
 
+    @Test
+    public void testLoadXmlStreamMatchesDom() {
+        final String books = TestUtil.getUrlFileName("xml/books.xml").toString();
+        for (String path : List.of("/", "/catalog/book", "catalog/book/title", "//author", "/catalog//price",
+                "/catalog/book[@id=\"bk102\"]/author", "/catalog/*[@id='bk103']", "//book[@id][@id='bk104']/*")) {
+            for (boolean simple : List.of(false, true)) {
+                assertEquals(path, loadXml(books, path, Map.of(), simple), loadXml(books, path, Map.of("stream", true), simple));
+            }
+        }
+        final String mixedContent = TestUtil.getUrlFileName("xml/mixedcontent.xml").toString();
+        assertEquals(loadXml(mixedContent, "/", Map.of(), false), loadXml(mixedContent, "/", Map.of("stream", true), false));
+    }
+
+    @Test
+    public void testLoadXmlStreamUnsupportedPath() {
+        QueryExecutionException e = assertThrows(QueryExecutionException.class,
+                () -> loadXml(TestUtil.getUrlFileName("xml/books.xml").toString(), "/catalog/book[title=\"Maeve Ascendant\"]/genre", Map.of("stream", true), false));
+        assertTrue(e.getMessage().contains("is not supported in stream mode"));
+    }
+
+    private List<Object> loadXml(String url, String path, Map<String, Object> config, boolean simple) {
+        return db.executeTransactionally("CALL apoc.load.xml($url, $path, $config, $simple)",
+                map("url", url, "path", path, "config", config, "simple", simple),
+                result -> Iterators.asList(result.columnAs("value")));
+    }
+
     @Test
     public void testMixedContent() {
         testCall(db, "CALL apoc.load.xml('" + TestUtil.getUrlFileName("xml/mixedcontent.xml") + "')", //  YIELD value RETURN value
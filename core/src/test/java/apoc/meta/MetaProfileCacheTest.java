@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.meta;
+
+import apoc.util.TestUtil;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.event.TransactionData;
+import org.neo4j.graphdb.event.TransactionEventListener;
+import org.neo4j.graphdb.event.TransactionEventListenerAdapter;
+import org.neo4j.test.rule.DbmsRule;
+import org.neo4j.test.rule.ImpermanentDbmsRule;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static apoc.ApocConfig.APOC_META_CACHE_ENABLED;
+import static apoc.ApocConfig.apocConfig;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.neo4j.configuration.GraphDatabaseSettings.procedure_unrestricted;
+
+public class MetaProfileCacheTest {
+
+    private static final String NODE_QUERY = "CALL apoc.meta.nodeTypeProperties($config) " +
+            "YIELD nodeType, propertyName, propertyTypes, propertyObservations, totalObservations " +
+            "RETURN nodeType, propertyName, propertyTypes, propertyObservations, totalObservations ORDER BY nodeType, propertyName";
+
+    private static final String REL_QUERY = "CALL apoc.meta.relTypeProperties($config) " +
+            "YIELD relType, sourceNodeLabels, targetNodeLabels, propertyName, propertyTypes, propertyObservations, totalObservations " +
+            "RETURN relType, sourceNodeLabels, targetNodeLabels, propertyName, propertyTypes, propertyObservations, totalObservations " +
+            "ORDER BY relType, sourceNodeLabels, targetNodeLabels, propertyName";
+
+    // only the callers asking for exact results are answered from the cache
+    private static final Map<String, Object> EXACT = Map.of("sample", -1L, "maxRels", -1L);
+
+    @Rule
+    public DbmsRule db = new ImpermanentDbmsRule()
+            .withSetting(procedure_unrestricted, List.of("apoc*"));
+
+    @Before
+    public void setUp() {
+        TestUtil.registerProcedure(db, Meta.class);
+        apocConfig().setProperty(APOC_META_CACHE_ENABLED, true);
+    }
+
+    @After
+    public void tearDown() {
+        apocConfig().setProperty(APOC_META_CACHE_ENABLED, false);
+    }
+
+    @Test
+    public void testCacheFollowsCommittedChanges() {
+        db.executeTransactionally("CREATE (:Person {name: 'Tom', age: 42})-[:KNOWS {since: 2010}]->(:Person {name: 'John'})");
+        // builds the cache
+        assertEquals(List.of(
+                Map.of("nodeType", ":`Person`", "propertyName", "age", "propertyTypes", List.of("Long"), "propertyObservations", 1L, "totalObservations", 2L),
+                Map.of("nodeType", ":`Person`", "propertyName", "name", "propertyTypes", List.of("String"), "propertyObservations", 2L, "totalObservations", 2L)),
+                nodeProperties(EXACT));
+
+        db.executeTransactionally("MATCH (p:Person {name: 'John'}) SET p.age = '30', p:Employee");
+        db.executeTransactionally("CREATE (:City {name: 'Rome'})");
+        db.executeTransactionally("MATCH (p:Person {name: 'Tom'}) REMOVE p.age");
+        db.executeTransactionally("MATCH (:Person {name: 'Tom'})-[r:KNOWS]->() SET r.since = 2011.5");
+
+        List<Map<String, Object>> cached = nodeProperties(EXACT);
+        assertEquals(List.of(
+                Map.of("nodeType", ":`City`", "propertyName", "name", "propertyTypes", List.of("String"), "propertyObservations", 1L, "totalObservations", 1L),
+                Map.of("nodeType", ":`Employee`:`Person`", "propertyName", "age", "propertyTypes", List.of("String"), "propertyObservations", 1L, "totalObservations", 1L),
+                Map.of("nodeType", ":`Employee`:`Person`", "propertyName", "name", "propertyTypes", List.of("String"), "propertyObservations", 1L, "totalObservations", 1L),
+                Map.of("nodeType", ":`Person`", "propertyName", "name", "propertyTypes", List.of("String"), "propertyObservations", 1L, "totalObservations", 1L)),
+                cached);
+        assertEquals(cached, nodeProperties(Map.of("sample", -1L, "maxRels", -1L, "refresh", true)));
+
+        List<Map<String, Object>> cachedRels = relProperties(EXACT);
+        assertEquals(1, cachedRels.size());
+        assertEquals(List.of("Employee", "Person"), cachedRels.get(0).get("targetNodeLabels"));
+        assertEquals(List.of("Double"), cachedRels.get(0).get("propertyTypes"));
+        assertEquals(cachedRels, relProperties(Map.of("sample", -1L, "maxRels", -1L, "refresh", true)));
+
+        db.executeTransactionally("MATCH (n:Person) DETACH DELETE n");
+        assertEquals(List.of(
+                Map.of("nodeType", ":`City`", "propertyName", "name", "propertyTypes", List.of("String"), "propertyObservations", 1L, "totalObservations", 1L)),
+                nodeProperties(EXACT));
+        assertEquals(List.of(), relProperties(EXACT));
+    }
+
+    @Test
+    public void testRolledBackChangesAreIgnored() {
+        db.executeTransactionally("CREATE (:Person {name: 'Tom'})");
+        List<Map<String, Object>> before = nodeProperties(EXACT);
+
+        try (var tx = db.beginTx()) {
+            tx.execute("CREATE (:Person {name: 1})").close();
+            tx.rollback();
+        }
+        assertEquals(before, nodeProperties(EXACT));
+    }
+
+    @Test
+    public void testChangesFailingAtCommitAreIgnored() {
+        db.executeTransactionally("CREATE (:Person {name: 'Tom'})");
+        // builds the cache, which registers its listener before the failing one
+        List<Map<String, Object>> before = nodeProperties(EXACT);
+
+        TransactionEventListener<Object> failing = new TransactionEventListenerAdapter<>() {
+            @Override
+            public Object beforeCommit(TransactionData data, Transaction transaction, GraphDatabaseService databaseService) {
+                throw new RuntimeException("failing the commit");
+            }
+        };
+        db.getManagementService().registerTransactionEventListener(db.databaseName(), failing);
+        try {
+            db.executeTransactionally("CREATE (:Person {name: 1})");
+            fail("the commit should have failed");
+        } catch (Exception e) {
+            assertTrue(ExceptionUtils.getStackTrace(e).contains("failing the commit"));
+        } finally {
+            db.getManagementService().unregisterTransactionEventListener(db.databaseName(), failing);
+        }
+        assertEquals(before, nodeProperties(EXACT));
+
+        // the cache still follows the commits
+        db.executeTransactionally("CREATE (:Person {name: 'John', age: 30})");
+        assertEquals(List.of(
+                Map.of("nodeType", ":`Person`", "propertyName", "age", "propertyTypes", List.of("Long"), "propertyObservations", 1L, "totalObservations", 2L),
+                Map.of("nodeType", ":`Person`", "propertyName", "name", "propertyTypes", List.of("String"), "propertyObservations", 2L, "totalObservations", 2L)),
+                nodeProperties(EXACT));
+    }
+
+    @Test
+    public void testLabelChangeOfNodeWithRelationshipsRebuildsTheCache() {
+        db.executeTransactionally("CREATE (:Person {name: 'Tom'})-[:KNOWS]->(:Person {name: 'John'})");
+        relProperties(EXACT);
+
+        db.executeTransactionally("MATCH (p:Person {name: 'Tom'}) SET p:Employee");
+        List<Map<String, Object>> rels = relProperties(EXACT);
+        assertEquals(1, rels.size());
+        assertEquals(List.of("Employee", "Person"), rels.get(0).get("sourceNodeLabels"));
+        assertEquals(rels, relProperties(Map.of("sample", -1L, "maxRels", -1L, "refresh", true)));
+    }
+
+    @Test
+    public void testDefaultCallIsSampledInsteadOfCached() {
+        db.executeTransactionally("UNWIND range(1, 3000) AS id CREATE (:Person {id: id})");
+        // builds the cache with the exact counts
+        assertEquals(3000L, nodeProperties(EXACT).get(0).get("totalObservations"));
+
+        // the default call samples the graph, as the cache can't answer it
+        long sampled = (long) nodeProperties(Map.of()).get(0).get("totalObservations");
+        assertTrue("observations: " + sampled, sampled > 0 && sampled < 3000L);
+        assertEquals(3000L, nodeProperties(EXACT).get(0).get("totalObservations"));
+    }
+
+    private List<Map<String, Object>> nodeProperties(Map<String, Object> config) {
+        return db.executeTransactionally(NODE_QUERY, Map.of("config", config), result -> result.stream().collect(Collectors.toList()));
+    }
+
+    private List<Map<String, Object>> relProperties(Map<String, Object> config) {
+        return db.executeTransactionally(REL_QUERY, Map.of("config", config), result -> result.stream().collect(Collectors.toList()));
+    }
+}
@@ -958,6 +958,39 @@ public class MetaTest {
                 });
     }
 
+    @Test
+    public void testMetaDataSamplesLargeLabels() {
+        db.executeTransactionally("CREATE (:Target {name: 'target'})");
+        db.executeTransactionally("MATCH (t:Target) UNWIND range(1, 10000) AS id " +
+                "CREATE (p:Person {id: id})-[:KNOWS]->(t) " +
+                "SET p.name = CASE WHEN id % 100 = 0 THEN 'name' + id ELSE null END");
+        db.executeTransactionally("UNWIND range(1, 500) AS id CREATE (:City {id: id})");
+
+        for (boolean parallel : List.of(false, true)) {
+            TestUtil.testResult(db, "CALL apoc.meta.data({sample: 100, parallel: $parallel})", Map.of("parallel", parallel), (r) -> {
+                Map<String, Map<String, Object>> rows = new HashMap<>();
+                r.forEachRemaining(row -> rows.put(row.get("label") + "." + row.get("property"), row));
+
+                assertEquals("INTEGER", rows.get("Person.id").get("type"));
+                assertEquals("INTEGER", rows.get("City.id").get("type"));
+                assertEquals("STRING", rows.get("Target.name").get("type"));
+                // only a sample of the persons has been profiled, spread across the whole label
+                long sampled = (long) rows.get("Person.KNOWS").get("count");
+                assertTrue("sampled " + sampled, sampled >= 50 && sampled <= 200);
+                assertEquals(List.of("Target"), rows.get("Person.KNOWS").get("other"));
+                assertEquals(sampled, rows.get("KNOWS.Person").get("count"));
+            });
+        }
+    }
+
+    @Test
+    public void testMetaDataSeesChangesOfTheCurrentTransaction() {
+        db.executeTransactionally("CREATE (:Person {name: 'Tom'})");
+        TestUtil.testResult(db, "CREATE (:Fresh {flag: true}) WITH 1 AS ignored CALL apoc.meta.data({parallel: true}) YIELD label, property RETURN label, property",
+                (r) -> Assertions.assertThat(r.stream().map(m -> m.get("label") + "." + m.get("property")))
+                        .containsExactlyInAnyOrder("Person.name", "Fresh.flag"));
+    }
+
     @Test
     public void testSchemaWithSample() {
         db.executeTransactionally("create constraint for (p:Person) require p.name is unique");
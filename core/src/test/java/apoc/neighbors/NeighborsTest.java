@@ -185,4 +185,29 @@ public class NeighborsTest {
                         "RETURN number",
                 (row) -> assertEquals(1L, row.get("number")));
     }
+
+    @Test
+    public void getNeighbors3HopsInParallel() {
+        TestUtil.testCall(db, "MATCH (n:First) WITH n " +
+                        "CALL apoc.neighbors.tohop(n,'KNOWS>', 3, {parallel: true, concurrency: 2, batchSize: 1}) YIELD node AS neighbor " +
+                        "RETURN COLLECT(neighbor) AS neighbors",
+                (row) -> {
+                    List<Node> neighbors = (List<Node>) row.get("neighbors");
+                    assertEquals(3, neighbors.size());
+                    assertEquals(Arrays.asList("b", "c", "d"),
+                            neighbors.stream().map(n -> n.getProperty("name")).collect(Collectors.toList()));
+                });
+    }
+
+    @Test
+    public void getNeighborsCountInParallel() {
+        db.executeTransactionally("MATCH (d:Neighbor {name: 'd'}) " +
+                "UNWIND range(1, 100) AS i " +
+                "CREATE (d)-[:KNOWS]->(:Neighbor {name: 'e' + i})-[:KNOWS]->(:Neighbor {name: 'f' + i})");
+
+        TestUtil.testCall(db, "MATCH (n:First) WITH n " +
+                        "CALL apoc.neighbors.tohop.count(n,'KNOWS>', 5, {parallel: true, concurrency: 4, batchSize: 10}) YIELD value AS number " +
+                        "RETURN number",
+                (row) -> assertEquals(203L, row.get("number")));
+    }
 }
@@ -31,6 +31,7 @@ import org.neo4j.test.rule.ImpermanentDbmsRule;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import static apoc.util.TestUtil.testResult;
 import static apoc.util.Util.map;
@@ -266,4 +267,43 @@ public class GroupingTest {
                 });
 
     }
+
+    @Test
+    public void testGroupAcrossBatches() {
+        // more nodes than a single batch, so that partial aggregates and relationships from several batches are merged
+        db.executeTransactionally("UNWIND range(0, 24999) AS id " +
+                "CREATE (u:User {gender: CASE id % 2 WHEN 0 THEN 'male' ELSE 'female' END, age: id % 100}) " +
+                "WITH u, id WHERE id % 5 = 0 " +
+                "CREATE (u)-[:KNOWS {weight: 2}]->(:User {gender: 'male', age: 0})");
+
+        TestUtil.testResult(db, "CALL apoc.nodes.group(['User'],['gender'],[{`*`:'count', age:['sum','min','max','avg']}, {`*`:'count', weight:'sum'}]) " +
+                        "YIELD node, relationship RETURN node, relationship",
+                result -> {
+                    Map<String, Map<String, Object>> rows = new java.util.HashMap<>();
+                    while (result.hasNext()) {
+                        Map<String, Object> row = result.next();
+                        Node node = (Node) row.get("node");
+                        Relationship rel = (Relationship) row.get("relationship");
+                        String key = node.getProperty("gender") + (rel == null ? "" : "->" + rel.getEndNode().getProperty("gender"));
+                        rows.put(key, rel == null ? node.getAllProperties() : map("node", node.getAllProperties(), "rel", rel.getAllProperties()));
+                    }
+                    assertEquals(Set.of("male->male", "female->male"), rows.keySet());
+
+                    Map<String, Object> male = (Map<String, Object>) rows.get("male->male").get("node");
+                    // 12500 even ids with ages 0, 2, ..., 98 plus the 5000 created end nodes with age 0
+                    assertEquals(17500L, male.get("count_*"));
+                    assertEquals(250 * 2450L, male.get("sum_age"));
+                    assertEquals(0L, male.get("min_age"));
+                    assertEquals(98L, male.get("max_age"));
+                    assertEquals(250 * 2450D / 17500, (double) male.get("avg_age"), 0.0001);
+                    assertEquals(map("count_*", 2500L, "sum_weight", 5000L), rows.get("male->male").get("rel"));
+
+                    Map<String, Object> female = (Map<String, Object>) rows.get("female->male").get("node");
+                    assertEquals(12500L, female.get("count_*"));
+                    assertEquals(250 * 2500L, female.get("sum_age"));
+                    assertEquals(1L, female.get("min_age"));
+                    assertEquals(99L, female.get("max_age"));
+                    assertEquals(map("count_*", 2500L, "sum_weight", 5000L), rows.get("female->male").get("rel"));
+                });
+    }
 }
@@ -388,6 +388,65 @@ public class NodesTest {
         // todo inverse e,s then also incoming
     }
 
+    @Test
+    public void testConnectedDense() {
+        db.executeTransactionally("CREATE (a:HubA)-[:LINK]->(b:HubB) WITH a, b " +
+                "UNWIND range(1, 200) AS id CREATE (a)-[:OTHER]->(:LeafA {id: id}) CREATE (b)<-[:OTHER]-(:LeafB {id: id})");
+
+        TestUtil.testCall(db, "MATCH (a:HubA),(b:HubB) RETURN apoc.nodes.connected(a, b) AS value", (r) -> assertEquals(true, r.get("value")));
+        TestUtil.testCall(db, "MATCH (a:HubA),(b:HubB) RETURN apoc.nodes.connected(a, b, 'LINK>') AS value", (r) -> assertEquals(true, r.get("value")));
+        TestUtil.testCall(db, "MATCH (a:HubA),(b:HubB) RETURN apoc.nodes.connected(a, b, '<LINK') AS value", (r) -> assertEquals(false, r.get("value")));
+        TestUtil.testCall(db, "MATCH (a:HubA),(b:HubB) RETURN apoc.nodes.connected(b, a, '<LINK') AS value", (r) -> assertEquals(true, r.get("value")));
+        TestUtil.testCall(db, "MATCH (a:HubA),(b:HubB) RETURN apoc.nodes.connected(a, b, 'OTHER') AS value", (r) -> assertEquals(false, r.get("value")));
+
+        TestUtil.testCall(db, "MATCH (a:HubA),(l:LeafA {id: 100}) RETURN apoc.nodes.connected(a, l, 'OTHER>') AS value", (r) -> assertEquals(true, r.get("value")));
+        TestUtil.testCall(db, "MATCH (a:HubA),(l:LeafA {id: 100}) RETURN apoc.nodes.connected(l, a, 'OTHER>') AS value", (r) -> assertEquals(false, r.get("value")));
+        TestUtil.testCall(db, "MATCH (a:HubA),(l:LeafA {id: 100}) RETURN apoc.nodes.connected(l, a, '<OTHER') AS value", (r) -> assertEquals(true, r.get("value")));
+        TestUtil.testCall(db, "MATCH (a:HubA),(l:LeafB {id: 100}) RETURN apoc.nodes.connected(a, l) AS value", (r) -> assertEquals(false, r.get("value")));
+    }
+
+    @Test
+    public void testConnectedTo() {
+        db.executeTransactionally("CREATE (h:Hub) WITH h UNWIND range(1, 300) AS id CREATE (h)-[:OTHER]->(:Leaf {id: id}) CREATE (:Stranger {id: id})");
+
+        // few end nodes, checked from their side
+        TestUtil.testCall(db, "MATCH (h:Hub),(l1:Leaf {id: 1}),(l2:Leaf {id: 300}),(s:Stranger {id: 1}) " +
+                "RETURN apoc.nodes.connectedTo(h, [l1, s, null, l2, h]) AS value, apoc.nodes.connectedTo(h, [l1, s], '<OTHER') AS incoming", (r) -> {
+            assertEquals(List.of(true, false, false, true, false), r.get("value"));
+            assertEquals(List.of(false, false), r.get("incoming"));
+        });
+
+        // many end nodes, with a single scan of the hub
+        TestUtil.testCall(db, "MATCH (h:Hub) " +
+                "MATCH (l:Leaf) WHERE l.id <= 20 " +
+                "MATCH (s:Stranger) WHERE s.id <= 20 " +
+                "WITH h, collect(DISTINCT l) + collect(DISTINCT s) AS ends " +
+                "RETURN apoc.nodes.connectedTo(h, ends, 'OTHER>') AS value", (r) -> {
+            List<Boolean> value = (List<Boolean>) r.get("value");
+            assertEquals(40, value.size());
+            assertEquals(Collections.nCopies(20, true), value.subList(0, 20));
+            assertEquals(Collections.nCopies(20, false), value.subList(20, 40));
+        });
+
+        TestUtil.testCall(db, "MATCH (l:Leaf {id: 1}),(h:Hub) RETURN apoc.nodes.connectedTo(l, [h], '<OTHER') AS value", (r) -> assertEquals(List.of(true), r.get("value")));
+    }
+
+    @Test
+    public void testConnectedToItselfOnlyBySelfLoop() {
+        db.executeTransactionally("CREATE (:Lonely) CREATE (l:Looped)-[:SELF]->(l)");
+
+        TestUtil.testCall(db, "MATCH (n:Lonely),(l:Looped) " +
+                "RETURN apoc.nodes.connected(n, n) AS lonely, apoc.nodes.connected(l, l) AS looped, apoc.nodes.connected(l, l, 'SELF>') AS outgoing, " +
+                "apoc.nodes.connectedTo(n, [n]) AS lonelyTo, apoc.nodes.connectedTo(l, [l, n]) AS loopedTo, apoc.nodes.connectedTo(l, [l], '<SELF') AS incomingTo", (r) -> {
+            assertEquals(false, r.get("lonely"));
+            assertEquals(true, r.get("looped"));
+            assertEquals(true, r.get("outgoing"));
+            assertEquals(List.of(false), r.get("lonelyTo"));
+            assertEquals(List.of(true, false), r.get("loopedTo"));
+            assertEquals(List.of(true), r.get("incomingTo"));
+        });
+    }
+
     @Test
     public void testDegreeTypeAndDirection() {
         db.executeTransactionally("CREATE (f:Foo) CREATE (b:Bar) CREATE (f)-[:Y]->(b) CREATE (f)-[:Y]->(b) CREATE (f)-[:X]->(b) CREATE (f)<-[:X]-(b)");
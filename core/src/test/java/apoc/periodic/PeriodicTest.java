@@ -53,6 +53,7 @@ import java.util.stream.Stream;
 
 import static apoc.periodic.Periodic.applyPlanner;
 import static apoc.util.TestUtil.testCall;
+import static apoc.util.TestUtil.testCallEmpty;
 import static apoc.util.TestUtil.testResult;
 import static apoc.util.TransactionTestUtil.lastTransactionChecks;
 import static apoc.util.TransactionTestUtil.terminateTransactionAsync;
@@ -64,6 +65,7 @@ import static org.hamcrest.text.MatchesPattern.matchesPattern;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertTrue;
@@ -536,6 +538,161 @@ public class PeriodicTest {
         });
     }
 
+    @Test
+    public void testIterateAdaptiveBatchSize() {
+        testResult(db, "CALL apoc.periodic.iterate('UNWIND range(1, 20000) AS id RETURN id', 'CREATE (:Adaptive {id: id})', " +
+                "{batchSize: 10, adaptive: true, maxBatchSize: 2000, parallel: true, concurrency: 4})", result -> {
+            Map<String, Object> row = Iterators.single(result);
+            assertEquals(20000L, row.get("total"));
+            assertEquals(20000L, row.get("committedOperations"));
+            assertEquals(0L, row.get("failedBatches"));
+            // the batches grow well beyond the initial size, as they commit faster than the target latency
+            assertTrue((long) row.get("batches") < 2000L);
+        });
+
+        testCall(db,
+                "MATCH (n:Adaptive) RETURN count(n) AS count, count(DISTINCT n.id) AS ids",
+                row -> {
+                    assertEquals(20000L, row.get("count"));
+                    assertEquals(20000L, row.get("ids"));
+                });
+        db.executeTransactionally("MATCH (n:Adaptive) DELETE n");
+    }
+
+    @Test
+    public void testIterateAdaptiveBatchSizeWrongConfig() {
+        QueryExecutionException e = assertThrows(QueryExecutionException.class,
+                () -> db.executeTransactionally("CALL apoc.periodic.iterate('RETURN 1', 'RETURN 1', {adaptive: true, minBatchSize: 100, maxBatchSize: 10})")
+        );
+        assertTrue(e.getMessage().contains("minBatchSize must be > 0 and not greater than maxBatchSize"));
+    }
+
+    @Test
+    public void testIteratePartitioned() {
+        db.executeTransactionally("UNWIND range(0, 9) AS id CREATE (:Hub {id: id})");
+        testResult(db, "CALL apoc.periodic.iterate('UNWIND range(1, 2000) AS id MATCH (h:Hub {id: id % 10}) RETURN h, id', " +
+                "'MERGE (l:Leaf {id: id}) CREATE (h)-[:HAS]->(l) SET h.count = coalesce(h.count, 0) + 1', " +
+                "{batchSize: 50, parallel: true, concurrency: 4, partitionKey: 'h'})", result -> {
+            Map<String, Object> row = Iterators.single(result);
+            assertEquals(2000L, row.get("total"));
+            assertEquals(2000L, row.get("committedOperations"));
+            assertEquals(0L, row.get("failedBatches"));
+            assertEquals(0L, row.get("retries"));
+            assertEquals(false, row.get("wasTerminated"));
+        });
+
+        testCall(db,
+                "MATCH (h:Hub) RETURN count(h) AS hubs, sum(h.count) AS count, min(h.count) AS min, max(h.count) AS max",
+                row -> {
+                    assertEquals(10L, row.get("hubs"));
+                    assertEquals(2000L, row.get("count"));
+                    assertEquals(200L, row.get("min"));
+                    assertEquals(200L, row.get("max"));
+                });
+        testCall(db,
+                "MATCH (:Hub)-[r:HAS]->(l:Leaf) RETURN count(r) AS rels, count(DISTINCT l) AS leaves",
+                row -> {
+                    assertEquals(2000L, row.get("rels"));
+                    assertEquals(2000L, row.get("leaves"));
+                });
+        db.executeTransactionally("MATCH (n) WHERE n:Hub OR n:Leaf DETACH DELETE n");
+    }
+
+    @Test
+    public void testIteratePartitionedWrongKey() {
+        QueryExecutionException e = assertThrows(QueryExecutionException.class,
+                () -> db.executeTransactionally("CALL apoc.periodic.iterate('RETURN 1 AS id', 'RETURN 1', {parallel: true, partitionKey: 'key'})")
+        );
+        assertTrue(e.getMessage().contains("The partitionKey `key` is not a column of the cypherIterate statement"));
+    }
+
+    @Test
+    public void testIteratePartitionedRequiresParallel() {
+        QueryExecutionException e = assertThrows(QueryExecutionException.class,
+                () -> db.executeTransactionally("CALL apoc.periodic.iterate('RETURN 1 AS id', 'RETURN 1', {partitionKey: 'id'})")
+        );
+        assertTrue(e.getMessage().contains("The partitionKey config requires parallel: true"));
+    }
+
+    @Test
+    public void testIterateCheckpointRequiresKey() {
+        // resuming by the number of committed rows would skip the unprocessed ones, as the statement filters on what the action changes
+        QueryExecutionException e = assertThrows(QueryExecutionException.class,
+                () -> db.executeTransactionally("CALL apoc.periodic.iterate('MATCH (n:Source) WHERE NOT n:Done RETURN n', 'SET n:Done', {checkpoint: 'backfill'})")
+        );
+        assertTrue(e.getMessage().contains("The checkpoint config requires a checkpointKey"));
+        testCallEmpty(db, "CALL apoc.periodic.checkpoint.list()", Collections.emptyMap());
+    }
+
+    @Test
+    public void testIterateCheckpointKeyMustBeAPropertyValue() {
+        db.executeTransactionally("CREATE (:CheckpointSource {id: 1})");
+        QueryExecutionException e = assertThrows(QueryExecutionException.class,
+                () -> db.executeTransactionally("CALL apoc.periodic.iterate('MATCH (n:CheckpointSource) RETURN n', 'SET n.done = true', {checkpoint: 'entity', checkpointKey: 'n'})")
+        );
+        assertTrue(e.getMessage(), e.getMessage().contains("The checkpointKey `n` is a node or relationship"));
+
+        e = assertThrows(QueryExecutionException.class,
+                () -> db.executeTransactionally("CALL apoc.periodic.iterate('MATCH (n:CheckpointSource) RETURN n, [n.id, \\'a\\'] AS key', 'SET n.done = true', {checkpoint: 'list', checkpointKey: 'key'})")
+        );
+        assertTrue(e.getMessage(), e.getMessage().contains("The checkpointKey `key` can't be saved"));
+
+        // no batch ran and no checkpoint was saved
+        testCall(db, "MATCH (n:CheckpointSource) RETURN n.done AS done", row -> assertNull(row.get("done")));
+        testCallEmpty(db, "CALL apoc.periodic.checkpoint.list()", Collections.emptyMap());
+        db.executeTransactionally("MATCH (n:CheckpointSource) DELETE n");
+    }
+
+    @Test
+    public void testIterateCheckpointKeyResume() {
+        db.executeTransactionally("UNWIND range(1, 100) AS id CREATE (:CheckpointSource {id: id})");
+        final String query = "CALL apoc.periodic.iterate('MATCH (n:CheckpointSource) WHERE $_checkpoint IS NULL OR n.id > $_checkpoint RETURN n.id AS id ORDER BY id', " +
+                "'MERGE (:Checkpointed {id: id}) WITH id WHERE id = $failAt RETURN 1 / 0', " +
+                "{batchSize: 10, parallel: true, concurrency: 2, checkpoint: 'keyed', checkpointKey: 'id', params: {failAt: $failAt}})";
+        testResult(db, query, Map.of("failAt", 35), result -> {
+            Map<String, Object> row = Iterators.single(result);
+            assertEquals(100L, row.get("total"));
+            assertEquals(1L, row.get("failedBatches"));
+        });
+        testCall(db, "CALL apoc.periodic.checkpoint.list()", row -> {
+            assertEquals(30L, row.get("offset"));
+            assertEquals(30L, row.get("key"));
+            assertEquals(false, row.get("done"));
+        });
+
+        testResult(db, query, Map.of("failAt", -1), result -> {
+            Map<String, Object> row = Iterators.single(result);
+            assertEquals(70L, row.get("total"));
+            assertEquals(0L, row.get("failedBatches"));
+        });
+        testCall(db, "CALL apoc.periodic.checkpoint.list()", row -> {
+            assertEquals(100L, row.get("offset"));
+            assertEquals(100L, row.get("key"));
+            assertEquals(true, row.get("done"));
+        });
+
+        // a checkpoint can't be resumed with another statement
+        QueryExecutionException e = assertThrows(QueryExecutionException.class,
+                () -> db.executeTransactionally("CALL apoc.periodic.iterate('RETURN 1 AS id', 'RETURN 1', {checkpoint: 'keyed', checkpointKey: 'id'})")
+        );
+        assertTrue(e.getMessage().contains("The checkpoint `keyed` was saved for a different statement"));
+
+        testCall(db, "CALL apoc.periodic.checkpoint.remove('keyed')", row -> assertEquals(100L, row.get("offset")));
+        testCallEmpty(db, "CALL apoc.periodic.checkpoint.list()", Collections.emptyMap());
+        db.executeTransactionally("MATCH (n) WHERE n:Checkpointed OR n:CheckpointSource DELETE n");
+    }
+
+    @Test
+    public void testIterateSequentialManyBatches() {
+        testResult(db, "CALL apoc.periodic.iterate('UNWIND range(1, 5000) AS id RETURN id', 'CREATE (:Sequential {id: id})', {batchSize: 7})", result -> {
+            Map<String, Object> row = Iterators.single(result);
+            assertEquals(715L, row.get("batches"));
+            assertEquals(5000L, row.get("total"));
+            assertEquals(5000L, row.get("committedOperations"));
+        });
+        db.executeTransactionally("MATCH (n:Sequential) DELETE n");
+    }
+
     @Test
     public void testIterateFail() {
         db.executeTransactionally("UNWIND range(1,100) AS x CREATE (:Person{name:'Person_'+x})");
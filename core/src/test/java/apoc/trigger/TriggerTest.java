@@ -97,6 +97,45 @@ public class TriggerTest {
         });
     }
 
+    @Test
+    public void testTriggerSelectors() {
+        final String countQuery = "MERGE (c:Counter {name: $trigger}) ON CREATE SET c.count = 1 ON MATCH SET c.count = c.count + 1";
+        db.executeTransactionally("CALL apoc.trigger.add('persons', $query, {labels: ['Person']})", map("query", countQuery));
+        db.executeTransactionally("CALL apoc.trigger.add('knows', $query, {phase: 'after', relTypes: 'KNOWS'})", map("query", countQuery));
+        db.executeTransactionally("CALL apoc.trigger.add('ages', $query, {propertyKeys: ['age'], labels: ['Unused']})", map("query", countQuery));
+
+        db.executeTransactionally("CREATE (:Other {name: 'other'})-[:LIKES]->(:Other)");
+        assertSelectorCounts(0L, 0L, 0L);
+
+        db.executeTransactionally("CREATE (:Person {name: 'John'})");
+        assertSelectorCounts(1L, 0L, 0L);
+
+        // a property change on a node with the label, without label changes
+        db.executeTransactionally("MATCH (p:Person) SET p.age = 42");
+        assertSelectorCounts(2L, 0L, 1L);
+
+        db.executeTransactionally("MATCH (p:Person), (o:Other {name: 'other'}) CREATE (p)-[:KNOWS]->(o)");
+        assertSelectorCounts(2L, 1L, 1L);
+
+        db.executeTransactionally("MATCH ()-[r:KNOWS]->() DELETE r");
+        assertSelectorCounts(2L, 2L, 1L);
+
+        db.executeTransactionally("MATCH (o:Other {name: 'other'}) REMOVE o.name");
+        assertSelectorCounts(2L, 2L, 1L);
+
+        db.executeTransactionally("MATCH (p:Person) REMOVE p.age");
+        assertSelectorCounts(3L, 2L, 2L);
+    }
+
+    private void assertSelectorCounts(long persons, long knows, long ages) {
+        final Map<String, Object> expected = map("persons", persons, "knows", knows, "ages", ages);
+        expected.forEach((name, value) -> {
+            final long count = db.executeTransactionally("OPTIONAL MATCH (c:Counter {name: $name}) RETURN coalesce(c.count, 0) AS count",
+                    map("name", name), r -> (long) r.next().get("count"));
+            assertEquals(name, value, count);
+        });
+    }
+
     @Test
     public void testRemoveNode() {
         db.executeTransactionally("CREATE (:Counter {count:0})");
@@ -195,6 +234,55 @@ public class TriggerTest {
                 , (value) -> value, 30L, TimeUnit.SECONDS);
     }
 
+    @Test
+    public void testAfterAsyncRunsOncePerCommitByDefault() {
+        // each commit sees its own $transactionId
+        db.executeTransactionally("CALL apoc.trigger.add('tx-async', $query, {phase: 'afterAsync'})",
+                map("query", "UNWIND $createdNodes AS n SET n.txId = $transactionId"));
+
+        final int commits = 20;
+        for (int i = 0; i < commits; i++) {
+            db.executeTransactionally("CREATE (:Item {id: $id})", map("id", i));
+        }
+
+        org.neo4j.test.assertion.Assert.assertEventually(() ->
+                        db.executeTransactionally("MATCH (i:Item) WHERE i.txId IS NOT NULL RETURN count(DISTINCT i.txId) AS count", Map.of(),
+                                result -> (long) result.next().get("count")),
+                (value) -> value == commits, 30L, TimeUnit.SECONDS);
+        testCall(db, "CALL apoc.trigger.asyncStats()", row -> assertEquals((long) commits, row.get("batches")));
+    }
+
+    @Test
+    public void testAfterAsyncBatches() {
+        // commits queued within the wait are coalesced in a single trigger execution
+        apocConfig().setProperty(TriggerHandler.TRIGGER_ASYNC_BATCH_SIZE, 50);
+        apocConfig().setProperty(TriggerHandler.TRIGGER_ASYNC_BATCH_WAIT, 200);
+        db.executeTransactionally("CALL apoc.trigger.add('count-async', $query, {phase: 'afterAsync'})",
+                map("query", "MERGE (c:Counter) ON CREATE SET c.count = size($createdNodes), c.batches = 1 " +
+                        "ON MATCH SET c.count = c.count + size($createdNodes), c.batches = c.batches + 1"));
+
+        final int commits = 100;
+        for (int i = 0; i < commits; i++) {
+            db.executeTransactionally("CREATE (:Item {id: $id})", map("id", i));
+        }
+
+        org.neo4j.test.assertion.Assert.assertEventually(() ->
+                        db.executeTransactionally("MATCH (c:Counter) RETURN c.count AS count", Map.of(),
+                                result -> result.hasNext() ? (long) result.next().get("count") : 0L),
+                (value) -> value == commits, 30L, TimeUnit.SECONDS);
+
+        final long batches = db.executeTransactionally("MATCH (c:Counter) RETURN c.batches AS batches", Map.of(),
+                result -> (long) result.next().get("batches"));
+        assertTrue("Expected coalesced batches, got " + batches, batches < commits);
+        testCall(db, "CALL apoc.trigger.asyncStats()", row -> {
+            assertEquals((long) commits, row.get("commits"));
+            assertEquals(batches, row.get("batches"));
+            assertEquals(0L, row.get("queued"));
+            assertEquals(0L, row.get("dropped"));
+            assertEquals(0L, row.get("failed"));
+        });
+    }
+
     @Test
     public void testTxId() {
         db.executeTransactionally("CREATE (f:Another)");
@@ -18,6 +18,10 @@
  */
 package apoc.util;
 
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
 import org.apache.commons.lang3.tuple.Pair;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
@@ -31,6 +35,11 @@ import org.neo4j.graphdb.Transaction;
 import org.neo4j.test.rule.DbmsRule;
 import org.neo4j.test.rule.ImpermanentDbmsRule;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.List;
 import java.util.Map;
 
@@ -179,6 +188,42 @@ public class UtilTest {
             db.executeTransactionally("MATCH (n:Test) DETACH DELETE n");
         }
     }
+    @Test
+    public void testOpenInputStreamIntoArchives() throws Exception {
+        final File dir = Files.createTempDirectory("archives").toFile();
+        try {
+            final File zip = new File(dir, "entries.zip");
+            try (ZipArchiveOutputStream out = new ZipArchiveOutputStream(zip)) {
+                for (String name : List.of("a.txt", "dir/b.txt")) {
+                    out.putArchiveEntry(new ZipArchiveEntry(name));
+                    out.write(("content of " + name).getBytes(StandardCharsets.UTF_8));
+                    out.closeArchiveEntry();
+                }
+            }
+            final File tar = new File(dir, "entries.tar");
+            try (TarArchiveOutputStream out = new TarArchiveOutputStream(new FileOutputStream(tar))) {
+                for (String name : List.of("a.txt", "dir/b.txt")) {
+                    final byte[] content = ("content of " + name).getBytes(StandardCharsets.UTF_8);
+                    final TarArchiveEntry entry = new TarArchiveEntry(name);
+                    entry.setSize(content.length);
+                    out.putArchiveEntry(entry);
+                    out.write(content);
+                    out.closeArchiveEntry();
+                }
+            }
+
+            for (File archive : List.of(zip, tar)) {
+                for (String name : List.of("a.txt", "dir/b.txt")) {
+                    try (InputStream is = Util.openInputStream(archive.toURI() + "!" + name, null, null, null)) {
+                        assertEquals("content of " + name, new String(is.readAllBytes(), StandardCharsets.UTF_8));
+                    }
+                }
+            }
+        } finally {
+            org.apache.commons.io.FileUtils.deleteDirectory(dir);
+        }
+    }
+
     @Test
     public void testIsWritableInstance() {
         assertTrue(Util.isWriteableInstance(db));
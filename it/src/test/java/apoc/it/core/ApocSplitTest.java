@@ -36,6 +36,8 @@ public class ApocSplitTest {
     public static final Set<String> CORE_PROCEDURES = Set.of(
         "apoc.periodic.truncate",
         "apoc.periodic.list",
+        "apoc.periodic.checkpoint.list",
+        "apoc.periodic.checkpoint.remove",
         "apoc.periodic.commit",
         "apoc.periodic.cancel",
         "apoc.periodic.submit",
@@ -46,6 +48,7 @@ public class ApocSplitTest {
         "apoc.trigger.remove",
         "apoc.trigger.removeAll",
         "apoc.trigger.list",
+        "apoc.trigger.asyncStats",
         "apoc.trigger.pause",
         "apoc.trigger.resume",
         "apoc.trigger.install",
@@ -109,6 +112,8 @@ public class ApocSplitTest {
         "apoc.cypher.run",
         "apoc.cypher.runMany",
         "apoc.cypher.runManyReadOnly",
+        "apoc.cypher.prewarm",
+        "apoc.cypher.statementCacheStats",
         "apoc.cypher.doIt",
         "apoc.cypher.runWrite",
         "apoc.cypher.runSchema",
@@ -143,6 +148,8 @@ public class ApocSplitTest {
         "apoc.import.xml",
         "apoc.load.arrow.stream",
         "apoc.load.arrow",
+        "apoc.load.arrow.stream.batches",
+        "apoc.load.arrow.batches",
         "apoc.schema.properties.distinct",
         "apoc.schema.properties.distinctCount",
         "apoc.log.stream",
@@ -240,6 +247,7 @@ public class ApocSplitTest {
         "apoc.util.compress",
         "apoc.node.relationship.exists",
         "apoc.nodes.connected",
+        "apoc.nodes.connectedTo",
         "apoc.node.labels",
         "apoc.node.id",
         "apoc.rel.id",
@@ -468,6 +476,15 @@ public class ApocSplitTest {
         "apoc.agg.minItems",
         "apoc.agg.statistics",
         "apoc.agg.median",
+        "apoc.agg.hll",
+        "apoc.agg.quantileSketch",
+        "apoc.agg.frequencySketch",
+        "apoc.agg.mergeSketches",
+        "apoc.sketch.merge",
+        "apoc.sketch.distinctCount",
+        "apoc.sketch.quantiles",
+        "apoc.sketch.frequency",
+        "apoc.sketch.topK",
         "apoc.agg.nth",
         "apoc.agg.first",
         "apoc.agg.last",